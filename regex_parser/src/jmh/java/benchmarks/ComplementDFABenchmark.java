@@ -0,0 +1,48 @@
+package benchmarks;
+
+import domain.NFA;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.generators.DFAGenerator;
+import utils.generators.NFAGenerator;
+
+/**
+ * Measures DFAGenerator.generateComplementDFA on the NFA of the negated part
+ * of the workload.
+ *
+ * <p>
+ * The NFA is generated once; a new DFAGenerator is used for every call.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class ComplementDFABenchmark {
+
+    @Param({"tricky-5", "tricky-10", "negated-1-2", "negated-10-20", "frankenstein"})
+    public String workload;
+
+    private NFA nfa;
+
+    @Setup
+    public void setUp() {
+        nfa = new NFAGenerator(false).generateNFA(Workload.of(workload).getNegatedPart());
+    }
+
+    @Benchmark
+    public NFA generateComplementDFA() {
+        return new DFAGenerator(-1).generateComplementDFA(nfa);
+    }
+}
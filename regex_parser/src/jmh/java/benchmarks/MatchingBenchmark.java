@@ -0,0 +1,80 @@
+package benchmarks;
+
+import domain.NFA;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.generators.NFAGenerator;
+
+/**
+ * Measures NFA.accepts with a pregenerated automaton.
+ *
+ * <p>
+ * With caching enabled the first iterations fill the cache of the automaton,
+ * so the measurement mostly reflects cache hits. Without caching every call
+ * simulates the automaton from scratch, either with lists of state ids, with
+ * bitsets or with Shift-And over the positions of the automaton. The last one
+ * is only possible with the workloads that have at most 127 positions; with
+ * the others it falls back to lists. The automaton is built with Thompson's
+ * or Glushkov's construction; the latter has no empty transitions to
+ * follow.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class MatchingBenchmark {
+
+    @Param({"tricky-10", "tricky-25", "tricky-50", "tricky-1000", "negated-1-2", "negated-10-20", "frankenstein"})
+    public String workload;
+
+    @Param({"caching", "lists", "bitsets", "shift-and"})
+    public String simulation;
+
+    @Param({"thompson", "glushkov"})
+    public String construction;
+
+    private NFA nfa;
+
+    private String input;
+
+    @Setup
+    public void setUp() {
+        Workload w = Workload.of(workload);
+        NFAGenerator generator = new NFAGenerator(false);
+        if (construction.equals("glushkov")) {
+            generator.enableGlushkovConstruction();
+        }
+        nfa = generator.generateNFA(w.getPattern());
+        if (simulation.equals("caching")) {
+            nfa.enableCaching();
+        } else {
+            nfa.disableCaching();
+        }
+        if (simulation.equals("bitsets")) {
+            nfa.enableBitParallelSimulation();
+        }
+        if (simulation.equals("shift-and")) {
+            nfa.enableShiftAndSimulation();
+        } else {
+            nfa.disableShiftAndSimulation();
+        }
+        input = w.getInput();
+    }
+
+    @Benchmark
+    public boolean accepts() {
+        return nfa.accepts(input);
+    }
+}
@@ -0,0 +1,56 @@
+package benchmarks;
+
+import domain.NFA;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.generators.NFAGenerator;
+
+/**
+ * Measures NFAGenerator.generateNFA, preprocessing included.
+ *
+ * <p>
+ * A new generator without cache is created for every call. Negated
+ * workloads also include the complement DFA construction. The automaton is
+ * built with Thompson's or Glushkov's construction; negated workloads always
+ * use Thompson's.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class NFAConstructionBenchmark {
+
+    @Param({"tricky-10", "tricky-25", "tricky-50", "negated-1-2", "negated-10-20", "frankenstein"})
+    public String workload;
+
+    @Param({"thompson", "glushkov"})
+    public String construction;
+
+    private String pattern;
+
+    @Setup
+    public void setUp() {
+        pattern = Workload.of(workload).getPattern();
+    }
+
+    @Benchmark
+    public NFA generateNFA() {
+        NFAGenerator generator = new NFAGenerator(false);
+        if (construction.equals("glushkov")) {
+            generator.enableGlushkovConstruction();
+        }
+        return generator.generateNFA(pattern);
+    }
+}
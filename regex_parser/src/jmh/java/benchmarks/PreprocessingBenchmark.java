@@ -0,0 +1,58 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.PatternProcessor;
+import utils.RegexNode;
+import utils.RegexParser;
+
+/**
+ * Measures RegexParser.parse, and PatternProcessor.elongateRegularExpression
+ * as the baseline it has replaced in NFAGenerator. PatternProcessor is not
+ * used by the engine and is kept only for this comparison.
+ *
+ * <p>
+ * A new processor is created for every call, since the processor caches its
+ * results and would otherwise only be measured once. The parser has no
+ * cache.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class PreprocessingBenchmark {
+
+    @Param({"tricky-10", "tricky-25", "tricky-50", "negated-1-2", "negated-10-20", "frankenstein"})
+    public String workload;
+
+    private String pattern;
+
+    private final RegexParser parser = new RegexParser();
+
+    @Setup
+    public void setUp() {
+        pattern = Workload.of(workload).getPattern();
+    }
+
+    @Benchmark
+    public String elongateRegularExpression() {
+        return new PatternProcessor().elongateRegularExpression(pattern);
+    }
+
+    @Benchmark
+    public RegexNode parse() {
+        return parser.parse(pattern);
+    }
+}
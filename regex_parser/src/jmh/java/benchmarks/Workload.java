@@ -0,0 +1,127 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pattern and input pairs shared by the benchmarks.
+ *
+ * <p>
+ * Benchmarks are parameterized with a workload name, so that every stage of
+ * the engine is measured with the same patterns:</p>
+ * <ul>
+ * <li>"tricky-n": the pattern (a?)[n,n]a[n,n] matched with n a's, same as in
+ * TextUI.compareTricky</li>
+ * <li>"negated-min-max": the pattern !((a-z)[min,max]) matched with the
+ * lowercase alphabet</li>
+ * <li>"frankenstein": the search that TextUI performs on the bundled novel,
+ * .*((C|c)ountenance).* matched with the whole text</li>
+ * </ul>
+ */
+public class Workload {
+
+    /**
+     * The whole pattern, as a user would type it.
+     */
+    private final String pattern;
+
+    /**
+     * The pattern without its outermost negation. Used as the input of the
+     * complement DFA construction.
+     */
+    private final String negatedPart;
+
+    /**
+     * Test string that the compiled pattern is matched with.
+     */
+    private final String input;
+
+    private Workload(String pattern, String negatedPart, String input) {
+        this.pattern = pattern;
+        this.negatedPart = negatedPart;
+        this.input = input;
+    }
+
+    /**
+     * Builds the workload that corresponds to the name.
+     *
+     * @param name Name of the workload, e.g. "tricky-10" or "negated-1-2"
+     * @return The pattern and input described by the name
+     */
+    public static Workload of(String name) {
+        String[] parts = name.split("-");
+        if (parts[0].equals("tricky")) {
+            int n = Integer.parseInt(parts[1]);
+            String tricky = "(a?)[" + n + "," + n + "]a[" + n + "," + n + "]";
+            return new Workload(tricky, tricky, repeat('a', n));
+        }
+        if (parts[0].equals("negated")) {
+            String range = "(a-z)[" + parts[1] + "," + parts[2] + "]";
+            return new Workload("!(" + range + ")", range, "abcdefghijklmnopqrstuvwxyz");
+        }
+        if (parts[0].equals("frankenstein")) {
+            String phrase = "(C|c)ountenance";
+            return new Workload(".*(" + phrase + ").*", phrase, readResource("frankenstein.txt"));
+        }
+        throw new IllegalArgumentException("Unknown workload: " + name);
+    }
+
+    /**
+     *
+     * @return The whole pattern
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     *
+     * @return The pattern without its outermost negation
+     */
+    public String getNegatedPart() {
+        return negatedPart;
+    }
+
+    /**
+     *
+     * @return The test string
+     */
+    public String getInput() {
+        return input;
+    }
+
+    private static String repeat(char c, int n) {
+        StringBuilder sb = new StringBuilder(n);
+        for (int i = 0; i < n; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads a text file from the resources, keeping the line breaks.
+     *
+     * @param filename Name of the file in src/main/resources
+     * @return Contents of the file
+     */
+    private static String readResource(String filename) {
+        InputStream in = Workload.class.getClassLoader().getResourceAsStream(filename);
+        if (in == null) {
+            throw new IllegalStateException("Resource " + filename + " not found");
+        }
+        StringBuilder sb = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                sb.append(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return sb.toString();
+    }
+}
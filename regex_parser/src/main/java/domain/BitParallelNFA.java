@@ -0,0 +1,373 @@
+package domain;
+
+/**
+ * Simulates a compiled NFA with sets of states stored as bitsets.
+ *
+ * <p>
+ * A set of states is a long array in which bit i of word i / 64 tells
+ * whether the state with dense id i belongs to the set. For every symbol
+ * class there is a reader mask of the states that have a transition with the
+ * class or an any symbol transition, so the states that move on a character
+ * are found by AND-ing the current states with the mask of its class, 64
+ * states at a time. Nothing is allocated during the simulation.
+ * </p>
+ * <p>
+ * Small automata, whose sets fit into at most MAX_MASKED_WORDS longs,
+ * additionally get a successor mask for every state and symbol class: the
+ * states reachable by reading one symbol of the class and then following
+ * any number of empty transitions. A step then ORs together the successor
+ * masks of the moving states. For larger automata such masks would take
+ * memory quadratic in the number of states, and OR-ing a whole set for every
+ * moving state would cost more than following the transitions, so the
+ * targets of the moving states are added to the next set together with
+ * their empty transition closures, which CompiledNFA has precomputed if they
+ * are small. Each state is then visited at most once per character, as in
+ * the simulation with lists.
+ * </p>
+ */
+public class BitParallelNFA {
+
+    /**
+     * Largest number of longs in one bitset for which successor masks are
+     * precomputed.
+     */
+    public static final int MAX_MASKED_WORDS = 4;
+
+    /**
+     * Number of longs in one bitset.
+     */
+    private final int words;
+
+    /**
+     * Number of symbol classes in the compiled automaton.
+     */
+    private final int numberOfClasses;
+
+    /**
+     * The compiled automaton that is simulated.
+     */
+    private final CompiledNFA automaton;
+
+    /**
+     * States that move when reading each symbol class, words longs per
+     * class.
+     */
+    private final long[] readers;
+
+    /**
+     * Index of the successor mask of state * numberOfClasses + class in the
+     * masks array, or -1 if the state has no transitions with the class.
+     * Null if the successor masks are not precomputed.
+     */
+    private final int[] successorMasks;
+
+    /**
+     * All successor masks one after another, words longs each. Null if the
+     * successor masks are not precomputed.
+     */
+    private final long[] masks;
+
+    /**
+     * Starting state and the states reachable from it with empty transitions.
+     */
+    private final long[] startingMask;
+
+    /**
+     * States that make the automaton accept, taking inversion into account:
+     * the accepting states normally, the non-accepting states if the
+     * automaton is inverted.
+     */
+    private final long[] decisiveStates;
+
+    /**
+     * Precomputes the reader masks, and the successor masks if the bitsets
+     * have at most MAX_MASKED_WORDS longs.
+     *
+     * <p>
+     * For the successor masks, the targets of the transitions of each state
+     * are collected per symbol class, and the empty transition closure of
+     * each target is added to the mask of the class. The targets of any
+     * symbol transitions are added to the masks of every class.
+     * </p>
+     *
+     * @param automaton Compiled automaton
+     */
+    public BitParallelNFA(CompiledNFA automaton) {
+        this.automaton = automaton;
+        int n = automaton.getNumberOfStates();
+        words = (n + 63) / 64;
+        numberOfClasses = automaton.getNumberOfClasses();
+
+        int[] transitionOffsets = automaton.getTransitionOffsets();
+        int[] anyOffsets = automaton.getAnyOffsets();
+        int[] stack = new int[n];
+
+        readers = new long[numberOfClasses * words];
+        for (int s = 0; s < n; s++) {
+            boolean readsAny = anyOffsets[s] < anyOffsets[s + 1];
+            for (int c = 0; c < numberOfClasses; c++) {
+                int row = s * numberOfClasses + c;
+                if (readsAny || transitionOffsets[row] < transitionOffsets[row + 1]) {
+                    readers[c * words + (s >>> 6)] |= 1L << s;
+                }
+            }
+        }
+
+        if (words <= MAX_MASKED_WORDS) {
+            successorMasks = new int[n * numberOfClasses];
+            masks = precomputeSuccessorMasks(stack);
+        } else {
+            successorMasks = null;
+            masks = null;
+        }
+
+        startingMask = new long[words];
+        addClosure(automaton.getStartingState(), startingMask, 0, stack);
+
+        decisiveStates = new long[words];
+        for (int s = 0; s < n; s++) {
+            if (automaton.isAccepting(s) != automaton.isInverted()) {
+                decisiveStates[s >>> 6] |= 1L << s;
+            }
+        }
+    }
+
+    /**
+     * Numbers the successor masks into successorMasks and computes them.
+     *
+     * @param stack Work space of at least numberOfStates elements
+     * @return All successor masks one after another
+     */
+    private long[] precomputeSuccessorMasks(int[] stack) {
+        int n = automaton.getNumberOfStates();
+        int[] transitionOffsets = automaton.getTransitionOffsets();
+        int[] transitionTargets = automaton.getTransitionTargets();
+        int[] anyOffsets = automaton.getAnyOffsets();
+        int[] anyTargets = automaton.getAnyTargets();
+
+        int numberOfMasks = 0;
+        for (int s = 0; s < n; s++) {
+            boolean readsAny = anyOffsets[s] < anyOffsets[s + 1];
+            for (int c = 0; c < numberOfClasses; c++) {
+                int row = s * numberOfClasses + c;
+                boolean readsClass = transitionOffsets[row] < transitionOffsets[row + 1];
+                if (readsClass || (readsAny && c == 0)) {
+                    successorMasks[row] = numberOfMasks++;
+                } else {
+                    successorMasks[row] = -1;
+                }
+            }
+        }
+
+        long[] result = new long[numberOfMasks * words];
+        for (int s = 0; s < n; s++) {
+            boolean readsAny = anyOffsets[s] < anyOffsets[s + 1];
+            int anyMask = successorMasks[s * numberOfClasses];
+            if (readsAny) {
+                for (int j = anyOffsets[s]; j < anyOffsets[s + 1]; j++) {
+                    addClosure(anyTargets[j], result, anyMask * words, stack);
+                }
+            }
+            for (int c = 0; c < numberOfClasses; c++) {
+                int row = s * numberOfClasses + c;
+                int mask = successorMasks[row];
+                if (mask == -1) {
+                    if (readsAny) {
+                        // Only the any symbol transitions apply: share the mask
+                        successorMasks[row] = anyMask;
+                    }
+                    continue;
+                }
+                for (int j = transitionOffsets[row]; j < transitionOffsets[row + 1]; j++) {
+                    addClosure(transitionTargets[j], result, mask * words, stack);
+                }
+                if (readsAny && mask != anyMask) {
+                    for (int w = 0; w < words; w++) {
+                        result[mask * words + w] |= result[anyMask * words + w];
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sets the bits of the state and of all the states reachable from it
+     * with empty transitions, unless the bit of the state is already set.
+     *
+     * <p>
+     * The precomputed closure of the state is copied if CompiledNFA has one.
+     * Otherwise the closure is found with an iterative depth-first search
+     * that does not enter states that are already in the set.
+     * </p>
+     *
+     * @param state Dense id of the state
+     * @param bits Array containing the bitset
+     * @param offset Index of the first word of the bitset in the array
+     * @param stack Work space of at least numberOfStates elements
+     */
+    private void addClosure(int state, long[] bits, int offset, int[] stack) {
+        if (contains(bits, offset, state)) {
+            return;
+        }
+        int[] closureOffsets = automaton.getClosureOffsets();
+        if (closureOffsets != null) {
+            int[] closureTargets = automaton.getClosureTargets();
+            for (int j = closureOffsets[state]; j < closureOffsets[state + 1]; j++) {
+                int t = closureTargets[j];
+                bits[offset + (t >>> 6)] |= 1L << t;
+            }
+            return;
+        }
+        int[] epsilonOffsets = automaton.getEpsilonOffsets();
+        int[] epsilonTargets = automaton.getEpsilonTargets();
+        bits[offset + (state >>> 6)] |= 1L << state;
+        int top = 0;
+        stack[top++] = state;
+        while (top > 0) {
+            int s = stack[--top];
+            for (int j = epsilonOffsets[s]; j < epsilonOffsets[s + 1]; j++) {
+                int t = epsilonTargets[j];
+                if (!contains(bits, offset, t)) {
+                    bits[offset + (t >>> 6)] |= 1L << t;
+                    stack[top++] = t;
+                }
+            }
+        }
+    }
+
+    private static boolean contains(long[] bits, int offset, int state) {
+        return (bits[offset + (state >>> 6)] & (1L << state)) != 0;
+    }
+
+    /**
+     * Returns whether the automaton accepts the input string.
+     *
+     * <p>
+     * The current states begin as the starting mask, and every character
+     * replaces them with the next states computed by step. If the set becomes
+     * empty, the simulation ends as in NFA.accepts.
+     * </p>
+     *
+     * @param test Input string
+     * @return Whether processing the input ends in an accepting state
+     */
+    public boolean accepts(CharSequence test) {
+        long[] current = startingMask.clone();
+        long[] next = new long[words];
+        int[] stack = masks == null ? new int[automaton.getNumberOfStates()] : null;
+
+        for (int i = 0; i < test.length(); i++) {
+            if (!step(current, automaton.symbolClassOf(test.charAt(i)), next, stack)) {
+                return automaton.isInverted();
+            }
+            long[] swap = current;
+            current = next;
+            next = swap;
+        }
+        return isAccepting(current);
+    }
+
+    /**
+     * Computes the next states from the current states.
+     *
+     * <p>
+     * The current states are AND-ed with the reader mask of the symbol class.
+     * For each remaining state either its successor mask is OR-ed into the
+     * next states or, if there are no successor masks, the targets of its
+     * transitions are added with their closures.
+     * </p>
+     *
+     * @param current Current states
+     * @param symbolClass Symbol class of the read character
+     * @param next Bitset that is overwritten with the next states
+     * @param stack Work space of at least numberOfStates elements. Not used,
+     * and may be null, if the successor masks are precomputed.
+     * @return False if there are no next states, true otherwise
+     */
+    public boolean step(long[] current, int symbolClass, long[] next, int[] stack) {
+        for (int w = 0; w < words; w++) {
+            next[w] = 0;
+        }
+        int[] transitionOffsets = automaton.getTransitionOffsets();
+        int[] transitionTargets = automaton.getTransitionTargets();
+        int[] anyOffsets = automaton.getAnyOffsets();
+        int[] anyTargets = automaton.getAnyTargets();
+        int classOffset = symbolClass * words;
+        boolean any = false;
+        for (int w = 0; w < words; w++) {
+            long bits = current[w] & readers[classOffset + w];
+            if (bits != 0) {
+                any = true;
+            }
+            while (bits != 0) {
+                int s = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int row = s * numberOfClasses + symbolClass;
+                if (masks != null) {
+                    int offset = successorMasks[row] * words;
+                    for (int v = 0; v < words; v++) {
+                        next[v] |= masks[offset + v];
+                    }
+                    continue;
+                }
+                for (int j = transitionOffsets[row]; j < transitionOffsets[row + 1]; j++) {
+                    addClosure(transitionTargets[j], next, 0, stack);
+                }
+                for (int j = anyOffsets[s]; j < anyOffsets[s + 1]; j++) {
+                    addClosure(anyTargets[j], next, 0, stack);
+                }
+            }
+        }
+        return any;
+    }
+
+    /**
+     * Determines whether the final states lead to acceptance, in the same
+     * manner as NFA.containsAcceptingState.
+     *
+     * @param states Set of possible final states
+     * @return Does processing accept the input string
+     */
+    public boolean isAccepting(long[] states) {
+        for (int w = 0; w < words; w++) {
+            if ((states[w] & decisiveStates[w]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     *
+     * @return A copy of the set of starting states
+     */
+    public long[] startingStates() {
+        return startingMask.clone();
+    }
+
+    /**
+     *
+     * @return Number of longs in one bitset
+     */
+    public int getWords() {
+        return words;
+    }
+
+    /**
+     *
+     * @return Number of longs in the precomputed masks, which grows linearly
+     * with the number of states
+     */
+    public int getMaskSize() {
+        return readers.length + (masks == null ? 0 : masks.length);
+    }
+
+    /**
+     *
+     * @return The compiled automaton
+     */
+    public CompiledNFA getAutomaton() {
+        return automaton;
+    }
+}
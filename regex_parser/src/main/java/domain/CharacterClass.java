@@ -0,0 +1,205 @@
+package domain;
+
+/**
+ * A set of characters stored as sorted, disjoint ranges.
+ *
+ * <p>
+ * Labels a single transition of a State that can be taken with any character
+ * of the class. A range such as 'a-z' is thus one transition instead of a
+ * union of 26 symbol automata. Classes are immutable.
+ * </p>
+ */
+public final class CharacterClass {
+
+    /**
+     * Ranges of the class: the first and last character of range i are at
+     * indexes 2 * i and 2 * i + 1. The ranges are sorted, and there is at
+     * least one character between two consecutive ranges.
+     */
+    private final char[] ranges;
+
+    private CharacterClass(char[] ranges) {
+        this.ranges = ranges;
+    }
+
+    /**
+     *
+     * @param first First character of the range
+     * @param last Last character of the range
+     * @return Class that contains the characters from first to last,
+     * inclusive
+     * @throws IllegalArgumentException If first comes after last
+     */
+    public static CharacterClass range(char first, char last) {
+        if (first > last) {
+            throw new IllegalArgumentException("Range " + first + "-" + last + " is empty");
+        }
+        return new CharacterClass(new char[]{first, last});
+    }
+
+    /**
+     *
+     * @param symbol The only character of the class
+     * @return Class that contains only the symbol
+     */
+    public static CharacterClass of(char symbol) {
+        return range(symbol, symbol);
+    }
+
+    /**
+     * Combines the ranges of two classes, merging ranges that overlap or are
+     * adjacent.
+     *
+     * @param other Another class
+     * @return Class that contains the characters of both classes
+     */
+    public CharacterClass union(CharacterClass other) {
+        char[] merged = new char[ranges.length + other.ranges.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < ranges.length || j < other.ranges.length) {
+            char first;
+            char last;
+            if (j == other.ranges.length || (i < ranges.length && ranges[i] <= other.ranges[j])) {
+                first = ranges[i];
+                last = ranges[i + 1];
+                i += 2;
+            } else {
+                first = other.ranges[j];
+                last = other.ranges[j + 1];
+                j += 2;
+            }
+            if (size > 0 && first <= merged[size - 1] + 1) {
+                if (last > merged[size - 1]) {
+                    merged[size - 1] = last;
+                }
+            } else {
+                merged[size++] = first;
+                merged[size++] = last;
+            }
+        }
+        char[] result = new char[size];
+        System.arraycopy(merged, 0, result, 0, size);
+        return new CharacterClass(result);
+    }
+
+    /**
+     * Finds the range of the symbol with binary search.
+     *
+     * @param symbol Any character
+     * @return Whether the symbol belongs to the class
+     */
+    public boolean contains(char symbol) {
+        int low = 0;
+        int high = ranges.length / 2 - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (symbol < ranges[2 * middle]) {
+                high = middle - 1;
+            } else if (symbol > ranges[2 * middle + 1]) {
+                low = middle + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     *
+     * @return Number of ranges in the class
+     */
+    public int getNumberOfRanges() {
+        return ranges.length / 2;
+    }
+
+    /**
+     *
+     * @param i Index of a range
+     * @return First character of the range
+     */
+    public char getFirst(int i) {
+        return ranges[2 * i];
+    }
+
+    /**
+     *
+     * @param i Index of a range
+     * @return Last character of the range
+     */
+    public char getLast(int i) {
+        return ranges[2 * i + 1];
+    }
+
+    /**
+     *
+     * @return Last character of the last range
+     */
+    public char getMaximum() {
+        return ranges[ranges.length - 1];
+    }
+
+    /**
+     *
+     * @return Number of characters in the class
+     */
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            size += ranges[i + 1] - ranges[i] + 1;
+        }
+        return size;
+    }
+
+    /**
+     * Classes are equal if they contain the same characters.
+     *
+     * @param o Compared object
+     * @return True if the classes have the same ranges
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || o.getClass() != this.getClass()) {
+            return false;
+        }
+        CharacterClass other = (CharacterClass) o;
+        if (ranges.length != other.ranges.length) {
+            return false;
+        }
+        for (int i = 0; i < ranges.length; i++) {
+            if (ranges[i] != other.ranges[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int code = 7;
+        for (char c : ranges) {
+            code = 31 * code + c;
+        }
+        return code;
+    }
+
+    /**
+     *
+     * @return The ranges separated by '|', for example a-c|x
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (i > 0) {
+                sb.append('|');
+            }
+            sb.append(ranges[i]);
+            if (ranges[i + 1] != ranges[i]) {
+                sb.append('-').append(ranges[i + 1]);
+            }
+        }
+        return sb.toString();
+    }
+}
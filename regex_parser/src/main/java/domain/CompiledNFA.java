@@ -0,0 +1,745 @@
+package domain;
+
+import utils.structures.IntMap;
+import utils.structures.OwnSet;
+import utils.structures.SparseSet;
+
+/**
+ * A compact, array based representation of an NFA.
+ *
+ * <p>
+ * The states of the NFA are given dense ids 0, ..., n - 1 in the order they
+ * are reached from the starting state. Symbols are divided into symbol
+ * classes 1, ..., k so that two symbols are in the same class exactly when
+ * every symbol and character class transition treats them alike; class 0
+ * contains every symbol that no transition mentions. A character class such
+ * as 'a-z' or 'a|c|e' that no other transition splits is thus a single
+ * symbol class, and the tables of the simulations have one column per class
+ * instead of one per symbol. All the transition
+ * information is stored in flat int arrays instead of the maps and sets
+ * objects of each State.
+ * </p>
+ * <p>
+ * Transitions are stored in compressed sparse row (CSR) form: the targets of
+ * row r are transitionTargets[transitionOffsets[r]], ...,
+ * transitionTargets[transitionOffsets[r + 1] - 1]. For symbol transitions the
+ * row is state * numberOfClasses + class, for empty and any symbol
+ * transitions the row is simply the state.
+ * </p>
+ * <p>
+ * The empty transition closure of every state is precomputed into another
+ * CSR array, unless the closures would take too much memory. Reading a
+ * symbol then adds the closure of each target at once, so the cost per
+ * character does not depend on the length of the chains of empty
+ * transitions.
+ * </p>
+ * <p>
+ * The object does not change after construction. If the states of the
+ * original NFA are modified afterwards, a new CompiledNFA has to be created.
+ * </p>
+ */
+public class CompiledNFA {
+
+    /**
+     * Number of states reachable from the starting state.
+     */
+    private final int numberOfStates;
+
+    /**
+     * Dense id of the starting state. Always 0.
+     */
+    private final int startingState;
+
+    /**
+     * accepting[i] is true if the state with dense id i is an accepting state
+     * of the original NFA.
+     */
+    private final boolean[] accepting;
+
+    /**
+     * Whether the meaning of accepting states is inverted, as in NFA.
+     */
+    private final boolean inverted;
+
+    /**
+     * Symbol class of each character. Characters that are not covered by the
+     * array belong to class 0.
+     */
+    private final int[] symbolClasses;
+
+    /**
+     * Number of symbol classes, class 0 included.
+     */
+    private final int numberOfClasses;
+
+    /**
+     * Row offsets of the symbol transitions, indexed by state *
+     * numberOfClasses + class.
+     */
+    private final int[] transitionOffsets;
+
+    /**
+     * Targets of the symbol transitions.
+     */
+    private final int[] transitionTargets;
+
+    /**
+     * Row offsets of the empty transitions, indexed by state.
+     */
+    private final int[] epsilonOffsets;
+
+    /**
+     * Targets of the empty transitions.
+     */
+    private final int[] epsilonTargets;
+
+    /**
+     * Row offsets of the any symbol transitions, indexed by state.
+     */
+    private final int[] anyOffsets;
+
+    /**
+     * Targets of the any symbol transitions.
+     */
+    private final int[] anyTargets;
+
+    /**
+     * Row offsets of the empty transition closures, indexed by state, or null
+     * if the closures would not fit in the budget.
+     */
+    private final int[] closureOffsets;
+
+    /**
+     * The empty transition closure of each state: the state itself first,
+     * followed by the states reachable from it with empty transitions.
+     */
+    private final int[] closureTargets;
+
+    /**
+     * Smallest number of closure entries that is always allowed.
+     */
+    private static final int MIN_CLOSURE_BUDGET = 1 << 18;
+
+    /**
+     * Number of closure entries allowed per state above MIN_CLOSURE_BUDGET.
+     */
+    private static final int CLOSURE_BUDGET_PER_STATE = 64;
+
+    /**
+     * Compiles the states reachable from the starting state of the NFA.
+     *
+     * <p>
+     * First the states are discovered with a breadth-first search and given
+     * dense ids. Then the characters are divided into intervals at the
+     * boundaries of the symbols and character classes that label
+     * transitions, and intervals that belong to exactly the same labels are
+     * joined into one symbol class. Finally the
+     * transitions of each state are copied into the CSR arrays; a class
+     * transition is copied into the row of every symbol class it covers.
+     * </p>
+     *
+     * @param nfa Automaton to be compiled
+     */
+    public CompiledNFA(NFA nfa) {
+        IntMap denseIds = new IntMap();
+        State[] states = new State[16];
+        int count = 0;
+        int maxSymbol = -1;
+
+        states[count++] = nfa.getStartingState();
+        denseIds.put(nfa.getStartingState().getId(), 0);
+
+        for (int i = 0; i < count; i++) {
+            State s = states[i];
+            for (char symbol : s.getSymbols()) {
+                maxSymbol = Math.max(maxSymbol, symbol);
+                for (State next : s.getNextStatesForSymbol(symbol)) {
+                    states = discover(next, states, count, denseIds);
+                    count = denseIds.size();
+                }
+            }
+            for (int c = 0; c < s.getNumberOfClassTransitions(); c++) {
+                maxSymbol = Math.max(maxSymbol, s.getCharacterClass(c).getMaximum());
+                for (State next : s.getNextStatesForClass(c)) {
+                    states = discover(next, states, count, denseIds);
+                    count = denseIds.size();
+                }
+            }
+            for (State next : s.getNextStatesWithEmptyTransitions()) {
+                states = discover(next, states, count, denseIds);
+                count = denseIds.size();
+            }
+            for (State next : s.getNextStatesWithAnyCharacter()) {
+                states = discover(next, states, count, denseIds);
+                count = denseIds.size();
+            }
+        }
+
+        numberOfStates = count;
+        startingState = 0;
+        inverted = nfa.isInverted();
+
+        // Every label is a set of character ranges. The characters between
+        // two consecutive boundaries of the ranges form an interval, and the
+        // intervals that no label tells apart form a symbol class.
+        boolean[] boundary = new boolean[maxSymbol + 2];
+        int[] coverage = new int[maxSymbol + 2];
+        OwnSet<CharacterClass> labels = new OwnSet<>();
+        for (int i = 0; i < count; i++) {
+            for (char symbol : states[i].getSymbols()) {
+                mark(symbol, symbol, boundary, coverage);
+                labels.add(CharacterClass.of(symbol));
+            }
+            for (int c = 0; c < states[i].getNumberOfClassTransitions(); c++) {
+                CharacterClass characterClass = states[i].getCharacterClass(c);
+                for (int r = 0; r < characterClass.getNumberOfRanges(); r++) {
+                    mark(characterClass.getFirst(r), characterClass.getLast(r), boundary, coverage);
+                }
+                labels.add(characterClass);
+            }
+        }
+
+        int[] intervalOf = new int[maxSymbol + 1];
+        int intervals = 0;
+        for (int c = 0; c <= maxSymbol; c++) {
+            if (c == 0 || boundary[c]) {
+                intervals++;
+            }
+            intervalOf[c] = intervals - 1;
+        }
+        int[] block = new int[intervals];
+        int covered = 0;
+        for (int c = 0; c <= maxSymbol; c++) {
+            covered += coverage[c];
+            block[intervalOf[c]] = covered > 0 ? 1 : 0;
+        }
+        int blocks = refine(block, labels, intervalOf);
+
+        int[] intervalClass = new int[intervals];
+        int[] firstInterval = new int[intervals + 1];
+        int[] number = new int[blocks];
+        int classCount = 0;
+        for (int j = 0; j < intervals; j++) {
+            if (block[j] != 0) {
+                if (number[block[j]] == 0) {
+                    number[block[j]] = ++classCount;
+                    firstInterval[classCount] = j;
+                }
+                intervalClass[j] = number[block[j]];
+            }
+        }
+        numberOfClasses = classCount + 1;
+
+        symbolClasses = new int[maxSymbol + 1];
+        for (int c = 0; c <= maxSymbol; c++) {
+            symbolClasses[c] = intervalClass[intervalOf[c]];
+        }
+
+        accepting = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            accepting[i] = nfa.getAcceptingStates().contains(states[i]);
+        }
+
+        transitionOffsets = new int[count * numberOfClasses + 1];
+        epsilonOffsets = new int[count + 1];
+        anyOffsets = new int[count + 1];
+
+        for (int i = 0; i < count; i++) {
+            for (char symbol : states[i].getSymbols()) {
+                transitionOffsets[i * numberOfClasses + symbolClasses[symbol] + 1] += states[i].getNextStatesForSymbol(symbol).size();
+            }
+            for (int c = 0; c < states[i].getNumberOfClassTransitions(); c++) {
+                CharacterClass characterClass = states[i].getCharacterClass(c);
+                int targets = states[i].getNextStatesForClass(c).size();
+                for (int r = 0; r < characterClass.getNumberOfRanges(); r++) {
+                    for (int j = intervalOf[characterClass.getFirst(r)]; j <= intervalOf[characterClass.getLast(r)]; j++) {
+                        if (firstInterval[intervalClass[j]] == j) {
+                            transitionOffsets[i * numberOfClasses + intervalClass[j] + 1] += targets;
+                        }
+                    }
+                }
+            }
+            epsilonOffsets[i + 1] = states[i].getNextStatesWithEmptyTransitions().size();
+            anyOffsets[i + 1] = states[i].getNextStatesWithAnyCharacter().size();
+        }
+        toOffsets(transitionOffsets);
+        toOffsets(epsilonOffsets);
+        toOffsets(anyOffsets);
+
+        transitionTargets = new int[transitionOffsets[transitionOffsets.length - 1]];
+        epsilonTargets = new int[epsilonOffsets[count]];
+        anyTargets = new int[anyOffsets[count]];
+
+        int[] filled = transitionOffsets.clone();
+        for (int i = 0; i < count; i++) {
+            for (char symbol : states[i].getSymbols()) {
+                int row = i * numberOfClasses + symbolClasses[symbol];
+                for (State next : states[i].getNextStatesForSymbol(symbol)) {
+                    transitionTargets[filled[row]++] = denseIds.get(next.getId(), -1);
+                }
+            }
+            for (int c = 0; c < states[i].getNumberOfClassTransitions(); c++) {
+                CharacterClass characterClass = states[i].getCharacterClass(c);
+                for (int r = 0; r < characterClass.getNumberOfRanges(); r++) {
+                    for (int j = intervalOf[characterClass.getFirst(r)]; j <= intervalOf[characterClass.getLast(r)]; j++) {
+                        if (firstInterval[intervalClass[j]] != j) {
+                            continue;
+                        }
+                        int row = i * numberOfClasses + intervalClass[j];
+                        for (State next : states[i].getNextStatesForClass(c)) {
+                            transitionTargets[filled[row]++] = denseIds.get(next.getId(), -1);
+                        }
+                    }
+                }
+            }
+            int idx = epsilonOffsets[i];
+            for (State next : states[i].getNextStatesWithEmptyTransitions()) {
+                epsilonTargets[idx++] = denseIds.get(next.getId(), -1);
+            }
+            idx = anyOffsets[i];
+            for (State next : states[i].getNextStatesWithAnyCharacter()) {
+                anyTargets[idx++] = denseIds.get(next.getId(), -1);
+            }
+        }
+
+        int[][] closures = computeClosures(Math.max(MIN_CLOSURE_BUDGET, (long) CLOSURE_BUDGET_PER_STATE * count));
+        closureOffsets = closures == null ? null : closures[0];
+        closureTargets = closures == null ? null : closures[1];
+    }
+
+    /**
+     * Computes the empty transition closure of every state with a
+     * depth-first search from the state.
+     *
+     * <p>
+     * The closures of automata with long chains of optional parts, such as
+     * (a?)[n,n], have O(n^2) entries in total, so the computation stops if
+     * the number of entries exceeds the budget.
+     * </p>
+     *
+     * @param budget Largest allowed number of entries
+     * @return The offsets and the entries of the closures, or null if they
+     * did not fit in the budget
+     */
+    private int[][] computeClosures(long budget) {
+        int[] offsets = new int[numberOfStates + 1];
+        int[] targets = new int[Math.max(16, 2 * numberOfStates)];
+        int[] visited = new int[numberOfStates];
+        int[] stack = new int[numberOfStates];
+        int size = 0;
+        for (int s = 0; s < numberOfStates; s++) {
+            offsets[s] = size;
+            // visited[t] == s + 1 marks the states already in the closure of s
+            visited[s] = s + 1;
+            int top = 0;
+            stack[top++] = s;
+            while (top > 0) {
+                int u = stack[--top];
+                if (size == targets.length) {
+                    if (size >= budget) {
+                        return null;
+                    }
+                    int[] larger = new int[(int) Math.min(2L * size, budget)];
+                    System.arraycopy(targets, 0, larger, 0, size);
+                    targets = larger;
+                }
+                targets[size++] = u;
+                for (int j = epsilonOffsets[u]; j < epsilonOffsets[u + 1]; j++) {
+                    int t = epsilonTargets[j];
+                    if (visited[t] != s + 1) {
+                        visited[t] = s + 1;
+                        stack[top++] = t;
+                    }
+                }
+            }
+        }
+        offsets[numberOfStates] = size;
+        return new int[][]{offsets, targets};
+    }
+
+    /**
+     * Splits blocks of intervals until no label contains only a part of a
+     * block.
+     *
+     * <p>
+     * For each label, the intervals of the label are moved from their block
+     * into a new block, one new block per old block. Afterwards two intervals
+     * are in the same block exactly when every label contains both or neither
+     * of them. Block 0, the intervals that no label covers, is never split.
+     * </p>
+     *
+     * @param block Initial block of each interval, replaced with the final
+     * block
+     * @param labels Distinct labels of the transitions
+     * @param intervalOf Interval of each character
+     * @return Number of block ids used, some of which may be empty
+     */
+    private static int refine(int[] block, OwnSet<CharacterClass> labels, int[] intervalOf) {
+        int capacity = 2;
+        for (CharacterClass label : labels) {
+            for (int r = 0; r < label.getNumberOfRanges(); r++) {
+                capacity += intervalOf[label.getLast(r)] - intervalOf[label.getFirst(r)] + 1;
+            }
+        }
+        int[] seen = new int[capacity];
+        int[] split = new int[capacity];
+        int blocks = 2;
+        int stamp = 0;
+        for (CharacterClass label : labels) {
+            stamp++;
+            for (int r = 0; r < label.getNumberOfRanges(); r++) {
+                for (int j = intervalOf[label.getFirst(r)]; j <= intervalOf[label.getLast(r)]; j++) {
+                    int b = block[j];
+                    if (seen[b] != stamp) {
+                        seen[b] = stamp;
+                        split[b] = blocks++;
+                    }
+                    block[j] = split[b];
+                }
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Marks the range as covered by a label.
+     *
+     * @param first First character of the range
+     * @param last Last character of the range
+     * @param boundary Flags of the characters where a range begins or after
+     * which one ends
+     * @param coverage Differences of the number of labels covering each
+     * character and the previous one
+     */
+    private static void mark(char first, char last, boolean[] boundary, int[] coverage) {
+        boundary[first] = true;
+        boundary[last + 1] = true;
+        coverage[first]++;
+        coverage[last + 1]--;
+    }
+
+    /**
+     * Gives a dense id to the state if it has not been discovered yet.
+     *
+     * @param s Discovered state
+     * @param states States in the order of their dense ids
+     * @param count Number of discovered states
+     * @param denseIds Dense ids of the discovered states by their ids
+     * @return The array of states, possibly enlarged
+     */
+    private static State[] discover(State s, State[] states, int count, IntMap denseIds) {
+        if (denseIds.containsKey(s.getId())) {
+            return states;
+        }
+        if (count == states.length) {
+            State[] larger = new State[2 * count];
+            System.arraycopy(states, 0, larger, 0, count);
+            states = larger;
+        }
+        states[count] = s;
+        denseIds.put(s.getId(), count);
+        return states;
+    }
+
+    /**
+     * Turns an array of row lengths, stored at index row + 1, into row
+     * offsets.
+     *
+     * @param offsets Row lengths, replaced with the offsets
+     */
+    private static void toOffsets(int[] offsets) {
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+    }
+
+    /**
+     *
+     * @param symbol Any character
+     * @return The symbol class of the character
+     */
+    public int symbolClassOf(char symbol) {
+        return symbol < symbolClasses.length ? symbolClasses[symbol] : 0;
+    }
+
+    /**
+     * Returns whether the NFA accepts the input string.
+     *
+     * <p>
+     * Works like NFA.accepts without caching: the sets of current and next
+     * states are sparse sets of dense ids, so adding a state, checking
+     * whether it is already there and emptying the set for the next step
+     * all take constant time.
+     * </p>
+     *
+     * @param test Input string
+     * @return Whether processing the input ends in an accepting state
+     */
+    public boolean accepts(CharSequence test) {
+        SparseSet current = new SparseSet(numberOfStates);
+        SparseSet next = new SparseSet(numberOfStates);
+        int[] stack = new int[numberOfStates];
+        startingStates(current, stack);
+
+        for (int i = 0; i < test.length(); i++) {
+            step(current, test.charAt(i), next, stack);
+            SparseSet swap = current;
+            current = next;
+            next = swap;
+            if (current.isEmpty()) {
+                return inverted;
+            }
+        }
+        return containsAcceptingState(current);
+    }
+
+    /**
+     * Replaces the states of the set with the starting state and the states
+     * reachable from it with empty transitions.
+     *
+     * @param states Set of capacity numberOfStates to be filled
+     * @param stack Work space of at least numberOfStates elements
+     */
+    public void startingStates(SparseSet states, int[] stack) {
+        states.clear();
+        states.add(startingState);
+        addEpsilonClosure(states, stack);
+    }
+
+    /**
+     * Computes the states that can be reached from the current states by
+     * reading the symbol. The next states are listed in the order in which
+     * they are first reached.
+     *
+     * @param current Set of current states
+     * @param symbol Symbol that is read
+     * @param next Set whose states are replaced with the next states
+     * @param stack Work space of at least numberOfStates elements
+     */
+    public void step(SparseSet current, char symbol, SparseSet next, int[] stack) {
+        step(current, symbolClassOf(symbol), true, next, stack);
+    }
+
+    /**
+     * Computes the states that can be reached from the current states by
+     * reading any symbol of the symbol class.
+     *
+     * @param current Set of current states
+     * @param symbolClass Symbol class of the read symbol
+     * @param followAny Whether any symbol transitions are followed. If false,
+     * only the transitions labeled with symbols and character classes are,
+     * as in State.addNextStatesForSymbolTo.
+     * @param next Set whose states are replaced with the next states
+     * @param stack Work space of at least numberOfStates elements
+     */
+    public void step(SparseSet current, int symbolClass, boolean followAny, SparseSet next, int[] stack) {
+        next.clear();
+        int size = current.size();
+        if (closureOffsets != null) {
+            for (int i = 0; i < size; i++) {
+                int s = current.get(i);
+                int row = s * numberOfClasses + symbolClass;
+                for (int j = transitionOffsets[row]; j < transitionOffsets[row + 1]; j++) {
+                    addClosure(transitionTargets[j], next);
+                }
+                if (followAny) {
+                    for (int j = anyOffsets[s]; j < anyOffsets[s + 1]; j++) {
+                        addClosure(anyTargets[j], next);
+                    }
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            int s = current.get(i);
+            int row = s * numberOfClasses + symbolClass;
+            for (int j = transitionOffsets[row]; j < transitionOffsets[row + 1]; j++) {
+                next.add(transitionTargets[j]);
+            }
+            if (followAny) {
+                for (int j = anyOffsets[s]; j < anyOffsets[s + 1]; j++) {
+                    next.add(anyTargets[j]);
+                }
+            }
+        }
+        addEpsilonClosure(next, stack);
+    }
+
+    /**
+     * Adds the state and its precomputed closure to the set. If the state
+     * is already there, so is its closure.
+     */
+    private void addClosure(int s, SparseSet states) {
+        if (states.contains(s)) {
+            return;
+        }
+        for (int j = closureOffsets[s]; j < closureOffsets[s + 1]; j++) {
+            states.add(closureTargets[j]);
+        }
+    }
+
+    /**
+     * Expands the set with all states reachable from its states with empty
+     * transitions.
+     *
+     * <p>
+     * If the closures have been precomputed, the closure of each state of
+     * the set is copied to it. Otherwise the closure is found with a
+     * depth-first search that uses the stack.
+     * </p>
+     *
+     * @param states Set of states
+     * @param stack Work space of at least numberOfStates elements
+     */
+    public void addEpsilonClosure(SparseSet states, int[] stack) {
+        int size = states.size();
+        if (closureOffsets != null) {
+            for (int i = 0; i < size; i++) {
+                int s = states.get(i);
+                for (int j = closureOffsets[s] + 1; j < closureOffsets[s + 1]; j++) {
+                    states.add(closureTargets[j]);
+                }
+            }
+            return;
+        }
+        int top = 0;
+        for (int i = 0; i < size; i++) {
+            stack[top++] = states.get(i);
+        }
+        while (top > 0) {
+            int s = stack[--top];
+            for (int j = epsilonOffsets[s]; j < epsilonOffsets[s + 1]; j++) {
+                int t = epsilonTargets[j];
+                if (states.add(t)) {
+                    stack[top++] = t;
+                }
+            }
+        }
+    }
+
+    /**
+     * Determines whether the possible final states lead to acceptance, in
+     * the same manner as NFA.containsAcceptingState.
+     *
+     * @param states Set of possible final states
+     * @return Does processing accept the input string
+     */
+    public boolean containsAcceptingState(SparseSet states) {
+        if (states.isEmpty()) {
+            return inverted;
+        }
+        for (int i = 0; i < states.size(); i++) {
+            if (inverted != accepting[states.get(i)]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines whether the possible final states lead to acceptance, in
+     * the same manner as NFA.containsAcceptingState.
+     *
+     * @param states List of possible final states
+     * @param size Size of the list
+     * @return Does processing accept the input string
+     */
+    public boolean containsAcceptingState(int[] states, int size) {
+        if (size == 0) {
+            return inverted;
+        }
+        for (int i = 0; i < size; i++) {
+            if (inverted != accepting[states[i]]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Offsets of symbol transitions. Row state * numberOfClasses + class.
+     */
+    int[] getTransitionOffsets() {
+        return transitionOffsets;
+    }
+
+    int[] getTransitionTargets() {
+        return transitionTargets;
+    }
+
+    /**
+     * Offsets of empty transitions. Row is the state.
+     */
+    int[] getEpsilonOffsets() {
+        return epsilonOffsets;
+    }
+
+    int[] getEpsilonTargets() {
+        return epsilonTargets;
+    }
+
+    /**
+     * Offsets of the empty transition closures. Row is the state. Null if
+     * the closures have not been precomputed.
+     */
+    int[] getClosureOffsets() {
+        return closureOffsets;
+    }
+
+    int[] getClosureTargets() {
+        return closureTargets;
+    }
+
+    /**
+     * Offsets of any symbol transitions. Row is the state.
+     */
+    int[] getAnyOffsets() {
+        return anyOffsets;
+    }
+
+    int[] getAnyTargets() {
+        return anyTargets;
+    }
+
+    /**
+     *
+     * @return Number of states
+     */
+    public int getNumberOfStates() {
+        return numberOfStates;
+    }
+
+    /**
+     *
+     * @return Number of symbol classes, including the class of unused
+     * symbols
+     */
+    public int getNumberOfClasses() {
+        return numberOfClasses;
+    }
+
+    /**
+     *
+     * @return Dense id of the starting state
+     */
+    public int getStartingState() {
+        return startingState;
+    }
+
+    /**
+     *
+     * @param state Dense id of a state
+     * @return Whether the state is accepting in the original NFA
+     */
+    public boolean isAccepting(int state) {
+        return accepting[state];
+    }
+
+    /**
+     *
+     * @return Whether the meaning of accepting states is inverted
+     */
+    public boolean isInverted() {
+        return inverted;
+    }
+}
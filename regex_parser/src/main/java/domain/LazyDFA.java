@@ -0,0 +1,440 @@
+package domain;
+
+import utils.structures.SparseSet;
+
+/**
+ * A DFA that is constructed from a compiled NFA on demand, during simulation.
+ *
+ * <p>
+ * Each DFA state is a set of NFA states. The sets are interned: a set that
+ * has been seen before gets the same integer id, which is found through a
+ * hash table keyed by the set as a bitset. The transitions of the DFA are
+ * stored in one int array with a row of numberOfClasses entries per DFA
+ * state, so following a known transition is a single array access. A
+ * transition that has not been needed before is computed with the NFA and
+ * stored.
+ * </p>
+ * <p>
+ * The memory that the states and transitions take is estimated, and when a
+ * new state would exceed the memory budget, the whole DFA is thrown away and
+ * the construction starts again from the current set of states. Thus
+ * adversarial inputs that visit exponentially many sets of states cannot use
+ * more memory than the budget allows.
+ * </p>
+ * <p>
+ * An unanchored lazy DFA adds the starting state and its empty transition
+ * closure to every set of states. It then recognizes all the strings that
+ * end with a string of the language, which makes it possible to search for
+ * the language in a text character by character.
+ * </p>
+ * <p>
+ * The public methods are synchronized, so one lazy DFA can be shared by
+ * threads. The package-private methods for stepping through the DFA one
+ * character at a time are meant for a single owner, such as a Matcher.
+ * </p>
+ */
+public class LazyDFA {
+
+    /**
+     * Memory budget that is used by default, in bytes.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 2L << 20;
+
+    /**
+     * Estimated memory that a state takes in addition to its arrays.
+     */
+    private static final int STATE_OVERHEAD = 64;
+
+    /**
+     * The NFA whose sets of states are the states of this DFA.
+     */
+    private final CompiledNFA automaton;
+
+    /**
+     * Number of symbol classes, also the length of a transition row.
+     */
+    private final int numberOfClasses;
+
+    /**
+     * Number of longs in the bitset of one state.
+     */
+    private final int words;
+
+    /**
+     * Largest number of bytes the DFA may use before it is flushed.
+     */
+    private final long memoryBudget;
+
+    /**
+     * NFA states of each DFA state, as lists of dense ids.
+     */
+    private int[][] sets;
+
+    /**
+     * NFA states of each DFA state as bitsets; used as the interning keys.
+     */
+    private long[][] keys;
+
+    /**
+     * Hash codes of the keys.
+     */
+    private int[] hashes;
+
+    /**
+     * Whether each DFA state accepts.
+     */
+    private boolean[] accepting;
+
+    /**
+     * Transition rows of the DFA states. An entry is the id of the next state
+     * plus one, or 0 if the transition is not known yet.
+     */
+    private int[] transitions;
+
+    /**
+     * Open addressing hash table of state ids plus one, 0 meaning an empty
+     * slot.
+     */
+    private int[] slots;
+
+    /**
+     * Number of DFA states.
+     */
+    private int numberOfStates;
+
+    /**
+     * Id of the starting state, or -1 if it has not been created since the
+     * last flush.
+     */
+    private int startingState;
+
+    /**
+     * Whether the starting states are added to every set of states.
+     */
+    private final boolean unanchored;
+
+    /**
+     * The starting state and the states reachable from it with empty
+     * transitions, used when unanchored.
+     */
+    private final int[] startingStates;
+
+    /**
+     * Estimated memory use in bytes.
+     */
+    private long memoryUsed;
+
+    /**
+     * How many times the DFA has been thrown away.
+     */
+    private int flushes;
+
+    /**
+     * Work space for computing transitions.
+     */
+    private final SparseSet current;
+    private final SparseSet next;
+    private final int[] stack;
+
+    /**
+     * Creates a lazy DFA with the default memory budget.
+     *
+     * @param automaton Compiled NFA
+     */
+    public LazyDFA(CompiledNFA automaton) {
+        this(automaton, DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     *
+     * @param automaton Compiled NFA
+     * @param memoryBudget Largest number of bytes the states and transitions
+     * may use before the DFA is flushed
+     */
+    public LazyDFA(CompiledNFA automaton, long memoryBudget) {
+        this(automaton, memoryBudget, false);
+    }
+
+    /**
+     *
+     * @param automaton Compiled NFA
+     * @param memoryBudget Largest number of bytes the states and transitions
+     * may use before the DFA is flushed
+     * @param unanchored If true, the starting states are added to every set
+     * of states
+     */
+    public LazyDFA(CompiledNFA automaton, long memoryBudget, boolean unanchored) {
+        this.automaton = automaton;
+        this.unanchored = unanchored;
+        this.memoryBudget = memoryBudget;
+        numberOfClasses = automaton.getNumberOfClasses();
+        int n = automaton.getNumberOfStates();
+        words = (n + 63) / 64;
+        current = new SparseSet(n);
+        next = new SparseSet(n);
+        stack = new int[n];
+        automaton.startingStates(current, stack);
+        startingStates = current.toArray();
+        flush();
+        flushes = 0;
+    }
+
+    /**
+     * Returns whether the automaton accepts the input string.
+     *
+     * <p>
+     * Follows the transitions of the DFA from the starting state, computing
+     * the transitions that are not known yet. If the set of NFA states
+     * becomes empty, returns whether the NFA is inverted, like NFA.accepts.
+     * </p>
+     *
+     * @param test Input string
+     * @return Whether processing the input ends in an accepting state
+     */
+    public synchronized boolean accepts(CharSequence test) {
+        int state = start();
+        for (int i = 0; i < test.length(); i++) {
+            state = next(state, test.charAt(i));
+            if (isEmpty(state)) {
+                return automaton.isInverted();
+            }
+        }
+        return accepting[state];
+    }
+
+    /**
+     * Returns the id of the starting state, creating it if needed.
+     *
+     * @return Id of the starting state
+     */
+    int start() {
+        if (startingState == -1) {
+            current.clear();
+            for (int s : startingStates) {
+                current.add(s);
+            }
+            startingState = intern(current);
+        }
+        return startingState;
+    }
+
+    /**
+     * Follows the transition of the state with the symbol, computing it if
+     * it is not known. The ids of other states may become invalid, since
+     * the DFA may be flushed.
+     *
+     * @param state Id of the current state
+     * @param symbol Read symbol
+     * @return Id of the next state
+     */
+    int next(int state, char symbol) {
+        int target = transitions[state * numberOfClasses + automaton.symbolClassOf(symbol)] - 1;
+        if (target == -1) {
+            target = computeTransition(state, symbol);
+        }
+        return target;
+    }
+
+    /**
+     *
+     * @param state Id of a state
+     * @return Whether the state is accepting
+     */
+    boolean isAccepting(int state) {
+        return accepting[state];
+    }
+
+    /**
+     *
+     * @param state Id of a state
+     * @return Whether the state contains no NFA states
+     */
+    boolean isEmpty(int state) {
+        return sets[state].length == 0;
+    }
+
+    /**
+     * Computes the next state with the NFA and stores the transition, unless
+     * storing the next state caused a flush.
+     *
+     * @param state Id of the current state
+     * @param symbol Read symbol
+     * @return Id of the next state
+     */
+    private int computeTransition(int state, char symbol) {
+        current.clear();
+        for (int s : sets[state]) {
+            current.add(s);
+        }
+        automaton.step(current, symbol, next, stack);
+        if (unanchored) {
+            for (int s : startingStates) {
+                next.add(s);
+            }
+        }
+        int flushesBefore = flushes;
+        int target = intern(next);
+        if (flushes == flushesBefore) {
+            transitions[state * numberOfClasses + automaton.symbolClassOf(symbol)] = target + 1;
+        }
+        return target;
+    }
+
+    /**
+     * Returns the id of the DFA state with the given NFA states, creating the
+     * state if it does not exist. If the new state does not fit into the
+     * memory budget, the DFA is flushed first.
+     *
+     * @param states Set of NFA states
+     * @return Id of the DFA state
+     */
+    private int intern(SparseSet states) {
+        int size = states.size();
+        long[] key = new long[words];
+        for (int i = 0; i < size; i++) {
+            key[states.get(i) >>> 6] |= 1L << states.get(i);
+        }
+        int hash = hash(key);
+        int slot = find(key, hash);
+        if (slots[slot] != 0) {
+            return slots[slot] - 1;
+        }
+
+        long cost = STATE_OVERHEAD + 4L * size + 8L * words + 4L * numberOfClasses;
+        if (numberOfStates > 0 && memoryUsed + cost > memoryBudget) {
+            flush();
+            flushes++;
+            slot = find(key, hash);
+        }
+
+        int id = numberOfStates++;
+        if (id == sets.length) {
+            grow();
+        }
+        int[] set = states.toArray();
+        sets[id] = set;
+        keys[id] = key;
+        hashes[id] = hash;
+        accepting[id] = automaton.containsAcceptingState(set, size);
+        memoryUsed += cost;
+
+        slots[slot] = id + 1;
+        if (2 * numberOfStates > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private static int hash(long[] key) {
+        long h = 7;
+        for (long word : key) {
+            h = 31 * h + word;
+        }
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Finds the slot where the key is, or the empty slot where it would be
+     * inserted.
+     */
+    private int find(long[] key, int hash) {
+        int mask = slots.length - 1;
+        int slot = (hash * 0x9E3779B9) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && sameKey(keys[id], key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static boolean sameKey(long[] a, long[] b) {
+        for (int w = 0; w < a.length; w++) {
+            if (a[w] != b[w]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void grow() {
+        int capacity = 2 * sets.length;
+        int[][] newSets = new int[capacity][];
+        long[][] newKeys = new long[capacity][];
+        int[] newHashes = new int[capacity];
+        boolean[] newAccepting = new boolean[capacity];
+        int[] newTransitions = new int[capacity * numberOfClasses];
+        System.arraycopy(sets, 0, newSets, 0, sets.length);
+        System.arraycopy(keys, 0, newKeys, 0, keys.length);
+        System.arraycopy(hashes, 0, newHashes, 0, hashes.length);
+        System.arraycopy(accepting, 0, newAccepting, 0, accepting.length);
+        System.arraycopy(transitions, 0, newTransitions, 0, transitions.length);
+        sets = newSets;
+        keys = newKeys;
+        hashes = newHashes;
+        accepting = newAccepting;
+        transitions = newTransitions;
+    }
+
+    private void rehash() {
+        slots = new int[2 * slots.length];
+        int mask = slots.length - 1;
+        for (int id = 0; id < numberOfStates; id++) {
+            int slot = (hashes[id] * 0x9E3779B9) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    /**
+     * Throws away all states and transitions.
+     */
+    private void flush() {
+        int capacity = 16;
+        sets = new int[capacity][];
+        keys = new long[capacity][];
+        hashes = new int[capacity];
+        accepting = new boolean[capacity];
+        transitions = new int[capacity * numberOfClasses];
+        slots = new int[2 * capacity];
+        numberOfStates = 0;
+        startingState = -1;
+        memoryUsed = 0;
+    }
+
+    /**
+     *
+     * @return Number of DFA states created since the last flush
+     */
+    public synchronized int size() {
+        return numberOfStates;
+    }
+
+    /**
+     *
+     * @return Estimated memory use of the states and transitions in bytes
+     */
+    public synchronized long getMemoryUsed() {
+        return memoryUsed;
+    }
+
+    /**
+     *
+     * @return Largest number of bytes the DFA may use before it is flushed
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     *
+     * @return How many times the DFA has been flushed because of the budget
+     */
+    public synchronized int getFlushes() {
+        return flushes;
+    }
+}
@@ -0,0 +1,92 @@
+package domain;
+
+/**
+ * The position of a match in a text.
+ *
+ * <p>
+ * A match is mutable: the iterator of Matcher.findAll updates one match
+ * object for every hit instead of creating a new one, so enumerating the
+ * matches of a long text creates no garbage. A match that has to be kept
+ * after the iterator has moved on must be copied, for example with
+ * toString.
+ * </p>
+ */
+public final class Match {
+
+    /**
+     * The text in which the match was found.
+     */
+    private CharSequence text;
+
+    /**
+     * Index of the first character of the match.
+     */
+    private int start;
+
+    /**
+     * Index after the last character of the match.
+     */
+    private int end;
+
+    /**
+     * Creates a match that covers nothing.
+     */
+    public Match() {
+        this.start = -1;
+        this.end = -1;
+    }
+
+    /**
+     * Moves the match to a new position.
+     *
+     * @param text Text in which the match was found
+     * @param start Index of the first character
+     * @param end Index after the last character
+     */
+    void set(CharSequence text, int start, int end) {
+        this.text = text;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     *
+     * @return Index of the first character of the match
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     *
+     * @return Index after the last character of the match
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     *
+     * @return Number of characters in the match
+     */
+    public int length() {
+        return end - start;
+    }
+
+    /**
+     *
+     * @return The text in which the match was found
+     */
+    public CharSequence getText() {
+        return text;
+    }
+
+    /**
+     *
+     * @return The matched part of the text as a new string
+     */
+    @Override
+    public String toString() {
+        return text == null ? "" : text.subSequence(start, end).toString();
+    }
+}
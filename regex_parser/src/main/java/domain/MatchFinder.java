@@ -0,0 +1,215 @@
+package domain;
+
+import utils.structures.SparseSet;
+
+/**
+ * Finds the leftmost-longest part of a text that belongs to the language of
+ * a compiled NFA.
+ *
+ * <p>
+ * The NFA is simulated over the text once. At every position the starting
+ * state is injected into the set of current states, so no .* loops are
+ * needed around the pattern. Each current state remembers the position
+ * where the path leading to it started. The list of current states is kept
+ * in ascending order of these start positions: a state that is reached
+ * through several paths keeps the smallest start, because the paths of
+ * earlier starts are followed first.
+ * </p>
+ * <p>
+ * When an accepting state is reached, the states whose paths started later
+ * than the match are dropped and no more starts are injected. States whose
+ * paths started earlier are still followed, since they may lead to a match
+ * further to the left, and states with the same start may lead to a longer
+ * match. The search ends when no states remain or the text ends. Thus the
+ * time is linear in the length of the searched part of the text.
+ * </p>
+ * <p>
+ * Inverted automata cannot be simulated this way, because their acceptance
+ * depends on the whole set of states rather than on single paths.
+ * </p>
+ */
+public class MatchFinder {
+
+    /**
+     * The automaton that is simulated.
+     */
+    private final CompiledNFA automaton;
+
+    /**
+     * Current states and the start positions of their paths. The start of
+     * the state at position i of the set is currentStarts[i].
+     */
+    private SparseSet current;
+    private int[] currentStarts;
+
+    /**
+     * Work space for the next states and their start positions.
+     */
+    private SparseSet next;
+    private int[] nextStarts;
+
+    /**
+     * Work space for the empty transition closures.
+     */
+    private final int[] stack;
+
+    /**
+     * Start and end of the last match, or -1 if there was none.
+     */
+    private int start;
+    private int end;
+
+    /**
+     *
+     * @param automaton Compiled NFA that is not inverted
+     */
+    public MatchFinder(CompiledNFA automaton) {
+        if (automaton.isInverted()) {
+            throw new IllegalArgumentException("Inverted automata cannot be searched with start positions");
+        }
+        this.automaton = automaton;
+        int n = automaton.getNumberOfStates();
+        current = new SparseSet(n);
+        currentStarts = new int[n];
+        next = new SparseSet(n);
+        nextStarts = new int[n];
+        stack = new int[n];
+        start = -1;
+        end = -1;
+    }
+
+    /**
+     * Finds the leftmost-longest match that starts at or after the given
+     * index.
+     *
+     * @param text Text to be searched
+     * @param from Index where the search begins
+     * @param limit Index after which no match can start; the text length if
+     * nothing better is known
+     * @return True if a match was found
+     */
+    public boolean find(CharSequence text, int from, int limit) {
+        start = -1;
+        end = -1;
+        current.clear();
+        for (int p = from;; p++) {
+            if (start == -1 && p <= limit) {
+                add(automaton.getStartingState(), p, current, currentStarts);
+            }
+            for (int i = 0; i < current.size(); i++) {
+                if (automaton.isAccepting(current.get(i))) {
+                    start = currentStarts[i];
+                    end = p;
+                    dropLaterStarts();
+                    break;
+                }
+            }
+            if (p == text.length() || (current.isEmpty() && (start != -1 || p >= limit))) {
+                break;
+            }
+            step(text.charAt(p));
+        }
+        return start != -1;
+    }
+
+    /**
+     * Removes the current states whose paths started after the match. They
+     * are at the end of the list.
+     */
+    private void dropLaterStarts() {
+        int size = current.size();
+        while (size > 0 && currentStarts[size - 1] > start) {
+            size--;
+        }
+        current.truncate(size);
+    }
+
+    /**
+     * Reads one symbol. The next states are computed in the order of the
+     * current states, so the order of the start positions is preserved.
+     */
+    private void step(char symbol) {
+        next.clear();
+        int[] offsets = automaton.getTransitionOffsets();
+        int[] targets = automaton.getTransitionTargets();
+        int[] anyOffsets = automaton.getAnyOffsets();
+        int[] anyTargets = automaton.getAnyTargets();
+        int classes = automaton.getNumberOfClasses();
+        int symbolClass = automaton.symbolClassOf(symbol);
+        int size = current.size();
+        for (int i = 0; i < size; i++) {
+            int s = current.get(i);
+            int row = s * classes + symbolClass;
+            for (int j = offsets[row]; j < offsets[row + 1]; j++) {
+                add(targets[j], currentStarts[i], next, nextStarts);
+            }
+            for (int j = anyOffsets[s]; j < anyOffsets[s + 1]; j++) {
+                add(anyTargets[j], currentStarts[i], next, nextStarts);
+            }
+        }
+        SparseSet swap = current;
+        current = next;
+        next = swap;
+        int[] swapStarts = currentStarts;
+        currentStarts = nextStarts;
+        nextStarts = swapStarts;
+    }
+
+    /**
+     * Adds the state and the states reachable from it with empty transitions
+     * to the set, unless they are already there. Uses the precomputed
+     * closure of the state if there is one.
+     *
+     * @param s State to be added
+     * @param from Start position of the path to the state
+     * @param states Set of states
+     * @param starts Start positions of the states, by position in the set
+     */
+    private void add(int s, int from, SparseSet states, int[] starts) {
+        if (states.contains(s)) {
+            return;
+        }
+        int[] closureOffsets = automaton.getClosureOffsets();
+        if (closureOffsets != null) {
+            int[] closureTargets = automaton.getClosureTargets();
+            for (int j = closureOffsets[s]; j < closureOffsets[s + 1]; j++) {
+                if (states.add(closureTargets[j])) {
+                    starts[states.size() - 1] = from;
+                }
+            }
+            return;
+        }
+        int[] offsets = automaton.getEpsilonOffsets();
+        int[] targets = automaton.getEpsilonTargets();
+        states.add(s);
+        starts[states.size() - 1] = from;
+        int top = 0;
+        stack[top++] = s;
+        while (top > 0) {
+            int u = stack[--top];
+            for (int j = offsets[u]; j < offsets[u + 1]; j++) {
+                int t = targets[j];
+                if (states.add(t)) {
+                    starts[states.size() - 1] = from;
+                    stack[top++] = t;
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     * @return Start index of the last match, or -1
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     *
+     * @return Index after the end of the last match, or -1
+     */
+    public int getEnd() {
+        return end;
+    }
+}
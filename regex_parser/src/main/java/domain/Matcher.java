@@ -0,0 +1,516 @@
+package domain;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The mutable state of matching input against a Pattern.
+ *
+ * <p>
+ * A matcher owns the lazy DFA that remembers the sets of states it has
+ * visited, so repeated matching gets faster, and the lazy DFA is never
+ * shared with other threads. A matcher must be used by one thread at a
+ * time; threads that share a pattern should each create their own matcher.
+ * </p>
+ */
+public class Matcher {
+
+    /**
+     * The pattern whose automaton is simulated.
+     */
+    private final Pattern pattern;
+
+    /**
+     * The part of the DFA of the pattern that this matcher has visited.
+     * Created when first needed.
+     */
+    private LazyDFA dfa;
+
+    /**
+     * Unanchored lazy DFA of the search automaton of the pattern, used for
+     * searching. Created when first needed.
+     */
+    private LazyDFA searchDFA;
+
+    /**
+     * Largest number of bytes the lazy DFA may use before it is flushed.
+     */
+    private final long memoryBudget;
+
+    /**
+     * Size of the byte and character buffers of searches.
+     */
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Largest part of a file that is mapped into memory at once.
+     */
+    public static final long MAPPING_SIZE = 1L << 28;
+
+    /**
+     * Current state of the search DFA during a search.
+     */
+    private int searchState;
+
+    /**
+     * Number of characters read during a search.
+     */
+    private long searched;
+
+    /**
+     * Finds the start positions of matches. Created when first needed.
+     */
+    private MatchFinder finder;
+
+    /**
+     * Start and end of the last match found by find, or -1 if there is none.
+     */
+    private int matchStart;
+    private int matchEnd;
+
+    /**
+     * Creates a matcher whose lazy DFA has the default memory budget.
+     *
+     * @param pattern Compiled pattern
+     */
+    public Matcher(Pattern pattern) {
+        this(pattern, LazyDFA.DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     *
+     * @param pattern Compiled pattern
+     * @param memoryBudget Largest number of bytes the lazy DFA of this matcher
+     * may use before it is flushed
+     */
+    public Matcher(Pattern pattern, long memoryBudget) {
+        this.pattern = pattern;
+        this.memoryBudget = memoryBudget;
+        this.matchStart = -1;
+        this.matchEnd = -1;
+    }
+
+    /**
+     * Tells whether the whole input belongs to the language of the pattern.
+     *
+     * <p>
+     * Small automata are simulated with Shift-And, which needs no state
+     * between calls. Other automata are simulated with the lazy DFA of this
+     * matcher.
+     * </p>
+     *
+     * @param input Input string
+     * @return True if the input matches
+     */
+    public boolean matches(CharSequence input) {
+        ShiftAndNFA shiftAnd = pattern.getShiftAnd();
+        if (shiftAnd != null) {
+            return shiftAnd.accepts(input);
+        }
+        return lazyDFA().accepts(input);
+    }
+
+    private LazyDFA lazyDFA() {
+        if (dfa == null) {
+            dfa = new LazyDFA(pattern.getAutomaton(), memoryBudget);
+        }
+        return dfa;
+    }
+
+    /**
+     * Searches the text for the first part that matches the pattern.
+     *
+     * @param text Text to be searched
+     * @return The index right after the end of the earliest ending matching
+     * part, or -1 if no part of the text matches
+     */
+    public long search(CharSequence text) {
+        return earliestEnd(text, 0);
+    }
+
+    /**
+     * Finds the leftmost-longest part of the text that matches the pattern.
+     *
+     * @param text Text to be searched
+     * @return True if a match was found; its position is given by start and
+     * end
+     */
+    public boolean find(CharSequence text) {
+        return find(text, 0);
+    }
+
+    /**
+     * Finds the leftmost-longest part of the text that matches the pattern
+     * and starts at or after the given index.
+     *
+     * <p>
+     * First the search DFA finds the end of the earliest ending match, which
+     * quickly rules out texts without matches. The leftmost match cannot
+     * start after that index. Then the start positions are found with a
+     * MatchFinder, which simulates the automaton once over the text. If the
+     * automaton is inverted, each start up to that index is instead tried in
+     * turn with the anchored lazy DFA, which takes quadratic time in the
+     * worst case.
+     * </p>
+     *
+     * @param text Text to be searched
+     * @param from Index where the search begins
+     * @return True if a match was found; its position is given by start and
+     * end
+     */
+    public boolean find(CharSequence text, int from) {
+        if (from < 0 || from > text.length()) {
+            throw new IndexOutOfBoundsException("Index " + from + " is out of the text");
+        }
+        matchStart = -1;
+        matchEnd = -1;
+        int limit = earliestEnd(text, from);
+        if (limit == -1) {
+            return false;
+        }
+        if (pattern.getAutomaton().isInverted()) {
+            return findAnchored(text, from, limit);
+        }
+        if (finder == null) {
+            finder = new MatchFinder(pattern.getAutomaton());
+        }
+        if (finder.find(text, from, limit)) {
+            matchStart = finder.getStart();
+            matchEnd = finder.getEnd();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Tries each start from the given index up to the limit until the
+     * anchored lazy DFA finds a match.
+     */
+    private boolean findAnchored(CharSequence text, int from, int limit) {
+        for (int i = from; i <= limit; i++) {
+            int end = longestMatch(text, i);
+            if (end != -1) {
+                matchStart = i;
+                matchEnd = end;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the longest match that starts at the index with the anchored
+     * lazy DFA.
+     *
+     * @return Index after the end of the match, or -1 if there is none
+     */
+    private int longestMatch(CharSequence text, int from) {
+        LazyDFA anchored = lazyDFA();
+        int state = anchored.start();
+        int end = anchored.isAccepting(state) ? from : -1;
+        for (int i = from; i < text.length(); i++) {
+            state = anchored.next(state, text.charAt(i));
+            if (anchored.isEmpty(state)) {
+                return pattern.getAutomaton().isInverted() ? text.length() : end;
+            }
+            if (anchored.isAccepting(state)) {
+                end = i + 1;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Runs the search DFA from the index.
+     *
+     * @return Index after the end of the earliest ending match, or -1
+     */
+    private int earliestEnd(CharSequence text, int from) {
+        if (beginSearch()) {
+            return from;
+        }
+        for (int i = from; i < text.length(); i++) {
+            if (step(text.charAt(i))) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Enumerates the non-overlapping leftmost-longest matches in the text,
+     * from left to right.
+     *
+     * <p>
+     * The iterator returns the same Match object every time, moved to the
+     * next hit, so no objects are created per match. After an empty match
+     * the next search begins one character later. The matcher must not be
+     * used for anything else while an iterator is in use. A CharBuffer, for
+     * example one that decodes a mapped file, can be searched as it is.
+     * </p>
+     *
+     * @param text Text to be searched
+     * @return Iterable over the matches
+     */
+    public Iterable<Match> findAll(final CharSequence text) {
+        return new Iterable<Match>() {
+            @Override
+            public Iterator<Match> iterator() {
+                return new MatchIterator(text);
+            }
+        };
+    }
+
+    /**
+     * Iterator that finds the next match only when it is asked for.
+     */
+    private class MatchIterator implements Iterator<Match> {
+
+        private final CharSequence text;
+        private final Match match;
+
+        /**
+         * Index where the next search begins, or -1 if the text has no more
+         * matches.
+         */
+        private int position;
+
+        /**
+         * Whether the next match has been found but not returned.
+         */
+        private boolean found;
+
+        MatchIterator(CharSequence text) {
+            this.text = text;
+            this.match = new Match();
+            this.position = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!found && position != -1) {
+                if (position <= text.length() && find(text, position)) {
+                    found = true;
+                    position = matchEnd == matchStart ? matchEnd + 1 : matchEnd;
+                } else {
+                    position = -1;
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public Match next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            found = false;
+            match.set(text, matchStart, matchEnd);
+            return match;
+        }
+    }
+
+    /**
+     *
+     * @return Start index of the match found by the last find
+     * @throws IllegalStateException If the last find found no match
+     */
+    public int start() {
+        if (matchStart == -1) {
+            throw new IllegalStateException("No match available");
+        }
+        return matchStart;
+    }
+
+    /**
+     *
+     * @return Index after the end of the match found by the last find
+     * @throws IllegalStateException If the last find found no match
+     */
+    public int end() {
+        if (matchStart == -1) {
+            throw new IllegalStateException("No match available");
+        }
+        return matchEnd;
+    }
+
+    /**
+     * Searches the UTF-8 encoded stream for the first part that matches the
+     * pattern. Reading stops at the first match; the stream is not closed.
+     *
+     * @param in Stream to be searched
+     * @return The number of characters up to the end of the earliest ending
+     * matching part, or -1 if no part of the stream matches
+     * @throws IOException If reading the stream fails
+     */
+    public long search(InputStream in) throws IOException {
+        return search(in, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Searches the stream for the first part that matches the pattern.
+     * Reading stops at the first match; the stream is not closed.
+     *
+     * @param in Stream to be searched
+     * @param charset Encoding of the stream
+     * @return The number of characters up to the end of the earliest ending
+     * matching part, or -1 if no part of the stream matches
+     * @throws IOException If reading the stream fails
+     */
+    public long search(InputStream in, Charset charset) throws IOException {
+        if (beginSearch()) {
+            return 0;
+        }
+        CharsetDecoder decoder = newDecoder(charset);
+        ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+        CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        while (true) {
+            int read = in.read(bytes.array(), bytes.position(), bytes.remaining());
+            boolean end = read == -1;
+            if (!end) {
+                bytes.position(bytes.position() + read);
+            }
+            bytes.flip();
+            if (decode(decoder, bytes, chars, end)) {
+                return searched;
+            }
+            bytes.compact();
+            if (end) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Searches the UTF-8 encoded file for the first part that matches the
+     * pattern.
+     *
+     * <p>
+     * The file is mapped into memory MAPPING_SIZE bytes at a time. If a
+     * character is split between two mappings, the next mapping begins at
+     * the first byte of that character.
+     * </p>
+     *
+     * @param channel Channel of the file to be searched
+     * @return The number of characters up to the end of the earliest ending
+     * matching part, or -1 if no part of the file matches
+     * @throws IOException If reading the file fails
+     */
+    public long search(FileChannel channel) throws IOException {
+        if (beginSearch()) {
+            return 0;
+        }
+        CharsetDecoder decoder = newDecoder(StandardCharsets.UTF_8);
+        CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        long size = channel.size();
+        long offset = 0;
+        while (true) {
+            long length = Math.min(MAPPING_SIZE, size - offset);
+            boolean end = offset + length == size;
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            if (decode(decoder, bytes, chars, end)) {
+                return searched;
+            }
+            if (end) {
+                return -1;
+            }
+            offset += bytes.position();
+        }
+    }
+
+    private static CharsetDecoder newDecoder(Charset charset) {
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Decodes the bytes and feeds the characters to the search DFA. Bytes of
+     * an incomplete character at the end are left in the byte buffer, unless
+     * the input ends. At the end of the input the decoder is flushed once
+     * all the bytes have been decoded; after that only flush is called
+     * again, as long as its output does not fit into the character buffer.
+     *
+     * @return True if a match was found
+     */
+    private boolean decode(CharsetDecoder decoder, ByteBuffer bytes, CharBuffer chars, boolean end) {
+        CoderResult result;
+        do {
+            result = decoder.decode(bytes, chars, end);
+            if (consume(chars)) {
+                return true;
+            }
+        } while (result.isOverflow());
+        if (!end) {
+            return false;
+        }
+        do {
+            result = decoder.flush(chars);
+            if (consume(chars)) {
+                return true;
+            }
+        } while (result.isOverflow());
+        return false;
+    }
+
+    /**
+     * Feeds the decoded characters to the search DFA and empties the
+     * character buffer.
+     *
+     * @return True if a match was found
+     */
+    private boolean consume(CharBuffer chars) {
+        chars.flip();
+        while (chars.hasRemaining()) {
+            if (step(chars.get())) {
+                return true;
+            }
+        }
+        chars.clear();
+        return false;
+    }
+
+    /**
+     * Prepares the search DFA for a new search.
+     *
+     * @return True if the empty string at the beginning already matches
+     */
+    private boolean beginSearch() {
+        if (searchDFA == null) {
+            searchDFA = new LazyDFA(pattern.getSearchAutomaton(), memoryBudget, true);
+        }
+        searched = 0;
+        searchState = searchDFA.start();
+        return searchDFA.isAccepting(searchState);
+    }
+
+    /**
+     * Reads one character of the searched text.
+     *
+     * @return True if a part of the text ending at this character matches
+     */
+    private boolean step(char symbol) {
+        searchState = searchDFA.next(searchState, symbol);
+        searched++;
+        return searchDFA.isAccepting(searchState);
+    }
+
+    /**
+     *
+     * @return The pattern of this matcher
+     */
+    public Pattern getPattern() {
+        return pattern;
+    }
+}
@@ -1,7 +1,7 @@
 package domain;
 
 import utils.structures.OwnSet;
-import utils.structures.OwnMap;
+import utils.structures.OwnStack;
 
 /**
  * A representation of a nondeterministic finite automaton.
@@ -27,8 +27,48 @@ public class NFA {
      * to that of DFA: O(mn) -> O(n) where m is the number of states in the
      * automaton.
      *
+     * <p>
+     * Created from the compiled automaton when first needed. Its memory use
+     * is bounded by cacheMemoryBudget.
+     * </p>
+     *
+     */
+    private LazyDFA cache;
+
+    /**
+     * Largest number of bytes that the cache may use before it is flushed.
+     */
+    private long cacheMemoryBudget;
+
+    /**
+     * Array based form of the automaton that the simulation runs on. Created
+     * when first needed, and discarded whenever the starting state, accepting
+     * states or inversion changes.
+     */
+    private CompiledNFA compiled;
+
+    /**
+     * Bitset based simulation of the compiled automaton. Created when first
+     * needed if bit-parallel simulation is enabled.
+     */
+    private BitParallelNFA bitParallel;
+
+    /**
+     * Whether sets of states are simulated as bitsets instead of lists.
      */
-    private OwnMap<OwnSet<State>, OwnMap<Character, OwnSet<State>>> cache;
+    private boolean bitParallelEnabled;
+
+    /**
+     * Shift-And simulation of the positions of the automaton. Created when
+     * first needed if Shift-And simulation is enabled and the automaton is
+     * small enough.
+     */
+    private ShiftAndNFA shiftAnd;
+
+    /**
+     * Whether small automata are simulated with the Shift-And algorithm.
+     */
+    private boolean shiftAndEnabled;
 
     /**
      * Whether simulated parts of the implicit DFA are stored and retrieved when
@@ -101,7 +141,7 @@ public class NFA {
         this.acceptingStates = acceptingStates;
         this.isDFA = isDFA;
         this.cacheEnabled = cacheEnabled;
-        cache = new OwnMap();
+        cacheMemoryBudget = LazyDFA.DEFAULT_MEMORY_BUDGET;
         inverted = false; 
     }
 
@@ -113,6 +153,7 @@ public class NFA {
      */
     public void setStartingState(State state) {
         this.startingState = state;
+        discardCompiled();
     }
 
     /**
@@ -138,14 +179,140 @@ public class NFA {
     
     }
     
+    /**
+     * Simulate sets of states as bitsets. Takes precedence over caching.
+     */
+    public void enableBitParallelSimulation() {
+        this.bitParallelEnabled = true;
+    }
+
+    /**
+     * Simulate sets of states as lists of state ids.
+     */
+    public void disableBitParallelSimulation() {
+        this.bitParallelEnabled = false;
+    }
+
+    /**
+     *
+     * @return Whether sets of states are simulated as bitsets
+     */
+    public boolean usesBitParallelSimulation() {
+        return this.bitParallelEnabled;
+    }
+
+    /**
+     * Simulate the automaton with the Shift-And algorithm whenever it has
+     * few enough positions. Takes precedence over caching, but not over
+     * bit-parallel simulation.
+     */
+    public void enableShiftAndSimulation() {
+        this.shiftAndEnabled = true;
+    }
+
+    /**
+     * Stop using the Shift-And algorithm.
+     */
+    public void disableShiftAndSimulation() {
+        this.shiftAndEnabled = false;
+    }
+
+    /**
+     *
+     * @return Whether small automata are simulated with Shift-And
+     */
+    public boolean usesShiftAndSimulation() {
+        return this.shiftAndEnabled;
+    }
+
     /** 
      * 
      * @return Cache containing transition information between sets of states
      */
-    public OwnMap<OwnSet<State>, OwnMap<Character, OwnSet<State>>> getCache(){
+    public synchronized LazyDFA getCache(){
+        if (cache == null) {
+            cache = new LazyDFA(compile(), cacheMemoryBudget);
+        }
         return this.cache; 
     }
 
+    /**
+     * Returns the bit-parallel simulation of the current compiled form,
+     * creating it if needed.
+     *
+     * @return Bitset based simulation of this automaton
+     */
+    private synchronized BitParallelNFA getBitParallel() {
+        CompiledNFA automaton = compile();
+        if (bitParallel == null || bitParallel.getAutomaton() != automaton) {
+            bitParallel = new BitParallelNFA(automaton);
+        }
+        return bitParallel;
+    }
+
+    /**
+     * Returns the Shift-And simulation of the current compiled form, creating
+     * it if needed.
+     *
+     * @return Shift-And simulation of this automaton, or null if ShiftAndNFA
+     * does not fit the automaton
+     */
+    private synchronized ShiftAndNFA getShiftAnd() {
+        CompiledNFA automaton = compile();
+        if (shiftAnd == null || shiftAnd.getAutomaton() != automaton) {
+            shiftAnd = ShiftAndNFA.fits(automaton) ? new ShiftAndNFA(automaton) : null;
+        }
+        return shiftAnd;
+    }
+
+    /**
+     * Changes the memory budget of the cache. The current cache is thrown
+     * away.
+     *
+     * @param bytes Largest number of bytes the cache may use before it is
+     * flushed
+     */
+    public synchronized void setCacheMemoryBudget(long bytes) {
+        this.cacheMemoryBudget = bytes;
+        cache = null;
+    }
+
+    /**
+     *
+     * @return Largest number of bytes the cache may use before it is flushed
+     */
+    public long getCacheMemoryBudget() {
+        return cacheMemoryBudget;
+    }
+
+    /**
+     * Returns the array based form of this automaton, creating it if needed.
+     *
+     * <p>
+     * The states of the automaton should not be modified after the compiled
+     * form has been created, except through the setters of this class.
+     * </p>
+     *
+     * @return Compiled form of this automaton
+     */
+    public synchronized CompiledNFA compile() {
+        if (compiled == null) {
+            compiled = new CompiledNFA(this);
+        }
+        return compiled;
+    }
+
+    /**
+     * Forgets the compiled forms and the simulation results that refer to its
+     * dense state ids.
+     */
+    private synchronized void discardCompiled() {
+        compiled = null;
+        bitParallel = null;
+        shiftAnd = null;
+        cache = null;
+    }
+
     /**
      *
      * Changes the accepting states to the given set
@@ -154,6 +321,7 @@ public class NFA {
      */
     public void setAcceptingStates(OwnSet<State> states) {
         this.acceptingStates = states;
+        discardCompiled();
     }
 
     /**
@@ -171,16 +339,19 @@ public class NFA {
      *
      * <p>
      * Simulates the operation of the NFA step by step when given the test
-     * string as input. The method keeps track of all the possible states that
+     * string as input. The simulation runs on the compiled form of the
+     * automaton, where states are dense ids and transitions are stored in
+     * arrays. The method keeps track of all the possible states that
      * the NFA could be in at any given step. At first the method initializes
      * the set of currents states to include only the starting state of the NFA.
      * </p>
      * <p>
-     * For every character the method checks if the next set of states has already
-     * been calculated from the current set with the current symbol. If not, 
-     * the method queries each current state for the set of states that can be
-     * accessed with the input symbol. These sets of states from each current
-     * state are combined to form the set of all the states that the automaton
+     * With caching enabled, the sets of states are the states of a LazyDFA,
+     * which remembers the next set of every set and symbol it has already
+     * calculated, within a memory budget. Otherwise, or if the next set is not
+     * known, the states that can be accessed from the current states with the input
+     * symbol are looked up from the transition arrays. They form the set
+     * of all the states that the automaton
      * can be in after it has processed the next symbol character. This 
      * set is expanded with all the states that are reachable from its states
      * with only empty transitions. Then the
@@ -193,6 +364,12 @@ public class NFA {
      * immediately returns a boolean that depends on whether the automaton has been
      * inverted.
      * </p>
+     * <p>
+     * If bit-parallel simulation is enabled, the sets of states are bitsets
+     * and the simulation is delegated to BitParallelNFA, without caching.
+     * Otherwise, if Shift-And simulation is enabled and ShiftAndNFA fits the
+     * automaton, the simulation is delegated to ShiftAndNFA.
+     * </p>
      *
      * @param test Input string which is to be processed. If the string is
      * empty, it is replaced with character '#', which represents the empty symbol.
@@ -200,50 +377,20 @@ public class NFA {
      * @return Whether any of the possible final states is an accepting one. 
      */
     public boolean accepts(String test) {
-        OwnSet<State> currentStates = new OwnSet();
-        currentStates.add(startingState);
-        addEpsilonTransitionsOfStates(currentStates);
-        OwnSet<State> nextStates = new OwnSet();
-        //Used to momentarily store the pointer to the current set, so that current set and next set point to different sets
-        //at the end of each cycle
-        OwnSet<State> empty;
-
-        for (int i = 0; i < test.length(); i++) {
-            char symbol = test.charAt(i);
-            
-           
-            
-            if (cacheEnabled) {
-                if (cache.containsKey(currentStates) && cache.get(currentStates).containsKey(symbol)) {
-                    currentStates = cache.get(currentStates).get(symbol).copy();
-                    continue;
-                }
-            }
-
-            for (State currentState : currentStates) {
-                nextStates.addAll(currentState.getNextStatesForSymbol(symbol));
-                nextStates.addAll(currentState.getNextStatesWithAnyCharacter());
-            }
-
-            addEpsilonTransitionsOfStates(nextStates);
-
-            if (cacheEnabled) {
-                if (!cache.containsKey(currentStates)) {
-                    cache.put(currentStates.copy(), new OwnMap());
-                }
-                cache.get(currentStates).put(symbol, nextStates.copy());
-            }
-            empty = currentStates;
-            currentStates = nextStates;
-            nextStates = empty;
-            nextStates.clear();
-
-            if (currentStates.isEmpty()) {
-                return inverted;
+        if (bitParallelEnabled) {
+            return getBitParallel().accepts(test);
+        }
+        if (shiftAndEnabled) {
+            ShiftAndNFA simulation = getShiftAnd();
+            if (simulation != null) {
+                return simulation.accepts(test);
             }
         }
+        if (!cacheEnabled) {
+            return compile().accepts(test);
+        }
 
-        return containsAcceptingState(currentStates);
+        return getCache().accepts(test);
     }
 
     /**
@@ -253,50 +400,63 @@ public class NFA {
      *
      * <p>
      * If a state can be reached by a number of epsilon/# transitions from any
-     * of the states of the set, is is added to the same set. Uses a helper
-     * method to discover transitions of different lengths.
+     * of the states of the set, is is added to the same set. The set itself
+     * serves as the set of visited states.
      * </p>
      *
      *
      * @param states Set of states to be possible expanded
      */
     public void addEpsilonTransitionsOfStates(OwnSet<State> states) {
-        addEpsilonTransitionsOfStates(states, new OwnSet());
+        OwnStack<State> unexpanded = new OwnStack();
+        for (State s : states) {
+            unexpanded.push(s);
+        }
+        expand(states, unexpanded, states);
     }
 
     /**
-     * Adds to the given states the unvisited states that are reachable with one
-     * epsilon transition
+     * Adds to the given states all the states that are reachable from the
+     * unvisited ones with empty transitions.
      *
      * <p>
-     * Forms a new empty set. By going through the given states, the method then
-     * adds to this set of new states all the states that are reachable with one
-     * epsilon transition and that are not in the visitedStates set. This
-     * decreases some extra work and prevents infinite loops in cases where two
-     * states have an epsilon transition to and from each other.
-     * </p>
-     * <p>
-     * If new states are found, the method calls itself recursively with the set
-     * of new states and the same set of visited states. This continues for as
-     * long as new states are discovered. Each call expands the chain of 
-     * empty transitions by one.
+     * The states that are not in the visitedStates set are pushed on a stack.
+     * A state popped from the stack is expanded: the states reachable from it
+     * with one epsilon transition that have not been visited yet are marked
+     * visited, added to the given states and pushed on the stack. Checking the
+     * visited states prevents infinite loops in cases where two states have an
+     * epsilon transition to and from each other. Since the chains of empty
+     * transitions are followed with an explicit stack instead of recursion,
+     * long chains cannot overflow the call stack, and no sets are created
+     * besides the stack.
      * </p>
      *
      * @param states Set of states that caller wants to expand.
-     * @param visitedStates States that have already been considered.
+     * @param visitedStates States that have already been considered. Their
+     * empty transitions are not followed. The states found are added.
      */
     public void addEpsilonTransitionsOfStates(OwnSet<State> states, OwnSet<State> visitedStates) {
-        OwnSet<State> newStates = new OwnSet();
+        OwnStack<State> unexpanded = new OwnStack();
         for (State s : states) {
             if (!visitedStates.contains(s)) {
-                newStates.addAll(s.getNextStatesWithEmptyTransitions());
                 visitedStates.add(s);
+                unexpanded.push(s);
             }
         }
-        if (newStates.size() > 0) {
-            addEpsilonTransitionsOfStates(newStates, visitedStates);
+        expand(states, unexpanded, visitedStates);
+    }
+
+    private static void expand(OwnSet<State> states, OwnStack<State> unexpanded, OwnSet<State> visitedStates) {
+        while (!unexpanded.isEmpty()) {
+            State s = unexpanded.pop();
+            for (State next : s.getNextStatesWithEmptyTransitions()) {
+                if (!visitedStates.contains(next)) {
+                    visitedStates.add(next);
+                    states.add(next);
+                    unexpanded.push(next);
+                }
+            }
         }
-        states.addAll(newStates);
     }
 
     /**
@@ -335,6 +495,7 @@ public class NFA {
      */
     public void invert() {
         this.inverted = !this.inverted;
+        discardCompiled();
     }
 
     /**
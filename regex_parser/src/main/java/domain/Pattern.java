@@ -0,0 +1,127 @@
+package domain;
+
+import utils.generators.DFAGenerator;
+import utils.generators.NFAGenerator;
+
+/**
+ * An immutable, compiled regular expression.
+ *
+ * <p>
+ * Unlike NFA, a pattern contains nothing that changes when it is used: only
+ * the compiled automaton and, if the automaton is small enough, its Shift-And
+ * tables. Matching is done with Matcher objects, which hold all the mutable
+ * state of a simulation. One pattern can thus be shared by any number of
+ * threads, each of which uses its own matcher.
+ * </p>
+ */
+public final class Pattern {
+
+    /**
+     * The regular expression as it was given.
+     */
+    private final String regex;
+
+    /**
+     * The automaton that recognizes the language of the regular expression.
+     */
+    private final CompiledNFA automaton;
+
+    /**
+     * Automaton that is simulated unanchored when searching. The automaton
+     * itself if it is not inverted, otherwise a DFA of the same language
+     * that is not inverted.
+     */
+    private final CompiledNFA searchAutomaton;
+
+    /**
+     * Shift-And simulation of the automaton, or null if the automaton does
+     * not fit into it.
+     */
+    private final ShiftAndNFA shiftAnd;
+
+    /**
+     * Creates the pattern of an automaton. Later changes to the NFA do not
+     * affect the pattern. An inverted automaton is also determinized for
+     * searching.
+     *
+     * @param regex The regular expression that the NFA was generated from
+     * @param nfa Automaton recognizing the language of the expression
+     */
+    public Pattern(String regex, NFA nfa) {
+        this.regex = regex;
+        this.automaton = new CompiledNFA(nfa);
+        this.searchAutomaton = nfa.isInverted()
+                ? new CompiledNFA(new DFAGenerator(-1).generateDFA(nfa))
+                : automaton;
+        this.shiftAnd = ShiftAndNFA.fits(automaton) ? new ShiftAndNFA(automaton) : null;
+    }
+
+    /**
+     * Generates the automaton of the regular expression and creates its
+     * pattern.
+     *
+     * @param regex Regular expression
+     * @return Compiled pattern
+     */
+    public static Pattern compile(String regex) {
+        return new Pattern(regex, new NFAGenerator(false).generateNFA(regex));
+    }
+
+    /**
+     * Creates a matcher for this pattern. Matchers are cheap to create but
+     * should not be shared by threads.
+     *
+     * @return New matcher
+     */
+    public Matcher matcher() {
+        return new Matcher(this);
+    }
+
+    /**
+     * Tells whether the input matches the pattern, using a new matcher.
+     *
+     * @param input Input string
+     * @return True if the whole input belongs to the language of the pattern
+     */
+    public boolean matches(CharSequence input) {
+        return matcher().matches(input);
+    }
+
+    /**
+     *
+     * @return The regular expression as it was given
+     */
+    public String getRegex() {
+        return regex;
+    }
+
+    /**
+     *
+     * @return The compiled automaton
+     */
+    public CompiledNFA getAutomaton() {
+        return automaton;
+    }
+
+    /**
+     *
+     * @return The automaton that is simulated unanchored when searching,
+     * which is never inverted
+     */
+    CompiledNFA getSearchAutomaton() {
+        return searchAutomaton;
+    }
+
+    /**
+     *
+     * @return Shift-And simulation of the automaton, or null
+     */
+    ShiftAndNFA getShiftAnd() {
+        return shiftAnd;
+    }
+
+    @Override
+    public String toString() {
+        return regex;
+    }
+}
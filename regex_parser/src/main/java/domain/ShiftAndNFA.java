@@ -0,0 +1,238 @@
+package domain;
+
+import utils.structures.SparseSet;
+
+/**
+ * Shift-And simulation of small automata over the positions of Glushkov's
+ * construction.
+ *
+ * <p>
+ * Every symbol transition and every any symbol transition of the compiled
+ * automaton is a position, which corresponds to one occurrence of a symbol in
+ * the regular expression. Bit 0 of a state set stands for the starting state
+ * and bit i for position i. Because all the transitions into a position read
+ * the same symbol, the step from one set to the next is
+ * </p>
+ * <pre>
+ * next = follow(current) &amp; symbolMask[symbol class]
+ * </pre>
+ * <p>
+ * where follow(current) is the union of the positions that may come right
+ * after the positions of the current set. The union is looked up from tables
+ * indexed by the bytes of the set, so one step costs eight table lookups and
+ * a few OR and AND operations per 64 bits. Empty transitions have been
+ * followed while building the tables.
+ * </p>
+ * <p>
+ * Automata with at most 127 positions fit into two longs and are simulated by
+ * this class. Inverted automata are not, since their acceptance depends on
+ * the states of the original automaton rather than on the language.
+ * </p>
+ */
+public class ShiftAndNFA {
+
+    /**
+     * Largest number of positions that can be simulated.
+     */
+    public static final int MAX_POSITIONS = 127;
+
+    /**
+     * Number of longs in one set of positions: 1 or 2.
+     */
+    private final int words;
+
+    /**
+     * The compiled automaton whose positions are simulated.
+     */
+    private final CompiledNFA automaton;
+
+    /**
+     * Follow tables: the entry for word v, byte k of the word and byte value b
+     * starts at ((v * 8 + k) * 256 + b) * words.
+     */
+    private final long[] follow;
+
+    /**
+     * Positions reading each symbol class, words longs per class.
+     */
+    private final long[] symbolMasks;
+
+    /**
+     * Positions after which the automaton may be in an accepting state. Bit 0
+     * is set if the empty string is accepted.
+     */
+    private final long[] lastPositions;
+
+    /**
+     * Tells whether the compiled automaton can be simulated with this class.
+     *
+     * @param automaton Compiled automaton
+     * @return True if the automaton is not inverted and has at most
+     * MAX_POSITIONS symbol transitions
+     */
+    public static boolean fits(CompiledNFA automaton) {
+        return !automaton.isInverted()
+                && automaton.getTransitionTargets().length + automaton.getAnyTargets().length <= MAX_POSITIONS;
+    }
+
+    /**
+     * Builds the follow tables, symbol masks and last positions.
+     *
+     * <p>
+     * The positions are numbered state by state. For each position, and for
+     * the starting state, the empty transition closure of the state where the
+     * transition leads is computed; the positions leaving the states of the
+     * closure are the positions that follow it, and if the closure contains
+     * an accepting state the position is a last position.
+     * </p>
+     *
+     * @param automaton Compiled automaton for which fits returns true
+     */
+    public ShiftAndNFA(CompiledNFA automaton) {
+        if (!fits(automaton)) {
+            throw new IllegalArgumentException("Automaton cannot be simulated with Shift-And");
+        }
+        this.automaton = automaton;
+        int n = automaton.getNumberOfStates();
+        int classes = automaton.getNumberOfClasses();
+        int[] transitionOffsets = automaton.getTransitionOffsets();
+        int[] transitionTargets = automaton.getTransitionTargets();
+        int[] anyOffsets = automaton.getAnyOffsets();
+        int[] anyTargets = automaton.getAnyTargets();
+        int positions = transitionTargets.length + anyTargets.length;
+        words = positions < 64 ? 1 : 2;
+
+        // Positions leaving each state are firstPosition[s] ... firstPosition[s + 1] - 1
+        int[] firstPosition = new int[n + 1];
+        int[] targets = new int[positions + 1];
+        symbolMasks = new long[classes * words];
+        int p = 1;
+        for (int s = 0; s < n; s++) {
+            firstPosition[s] = p;
+            for (int c = 0; c < classes; c++) {
+                int row = s * classes + c;
+                for (int j = transitionOffsets[row]; j < transitionOffsets[row + 1]; j++) {
+                    targets[p] = transitionTargets[j];
+                    symbolMasks[c * words + (p >>> 6)] |= 1L << p;
+                    p++;
+                }
+            }
+            for (int j = anyOffsets[s]; j < anyOffsets[s + 1]; j++) {
+                targets[p] = anyTargets[j];
+                for (int c = 0; c < classes; c++) {
+                    symbolMasks[c * words + (p >>> 6)] |= 1L << p;
+                }
+                p++;
+            }
+        }
+        firstPosition[n] = p;
+        targets[0] = automaton.getStartingState();
+
+        long[] followOf = new long[(positions + 1) * words];
+        lastPositions = new long[words];
+        SparseSet closure = new SparseSet(n);
+        int[] stack = new int[n];
+        for (p = 0; p <= positions; p++) {
+            closure.clear();
+            closure.add(targets[p]);
+            automaton.addEpsilonClosure(closure, stack);
+            for (int i = 0; i < closure.size(); i++) {
+                int s = closure.get(i);
+                if (automaton.isAccepting(s)) {
+                    lastPositions[p >>> 6] |= 1L << p;
+                }
+                for (int q = firstPosition[s]; q < firstPosition[s + 1]; q++) {
+                    followOf[p * words + (q >>> 6)] |= 1L << q;
+                }
+            }
+        }
+
+        follow = new long[words * 8 * 256 * words];
+        for (int v = 0; v < words; v++) {
+            for (int k = 0; k < 8; k++) {
+                int table = (v * 8 + k) * 256;
+                for (int b = 1; b < 256; b++) {
+                    int position = v * 64 + k * 8 + Integer.numberOfTrailingZeros(b);
+                    int entry = (table + b) * words;
+                    int rest = (table + (b & (b - 1))) * words;
+                    for (int u = 0; u < words; u++) {
+                        follow[entry + u] = follow[rest + u];
+                        if (position <= positions) {
+                            follow[entry + u] |= followOf[position * words + u];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether the automaton accepts the input string.
+     *
+     * @param test Input string
+     * @return Whether processing the input ends in an accepting state
+     */
+    public boolean accepts(CharSequence test) {
+        if (words == 1) {
+            return acceptsOneWord(test);
+        }
+        long low = 1L;
+        long high = 0L;
+        for (int i = 0; i < test.length(); i++) {
+            long nextLow = 0L;
+            long nextHigh = 0L;
+            for (int k = 0; k < 8; k++) {
+                int entry = ((k << 8) | (int) ((low >>> (k << 3)) & 0xFF)) << 1;
+                nextLow |= follow[entry];
+                nextHigh |= follow[entry + 1];
+                entry = (((8 + k) << 8) | (int) ((high >>> (k << 3)) & 0xFF)) << 1;
+                nextLow |= follow[entry];
+                nextHigh |= follow[entry + 1];
+            }
+            int symbolClass = automaton.symbolClassOf(test.charAt(i)) << 1;
+            low = nextLow & symbolMasks[symbolClass];
+            high = nextHigh & symbolMasks[symbolClass + 1];
+            if ((low | high) == 0) {
+                return false;
+            }
+        }
+        return (low & lastPositions[0]) != 0 || (high & lastPositions[1]) != 0;
+    }
+
+    /**
+     * Simulation when all positions fit into one long.
+     *
+     * @param test Input string
+     * @return Whether processing the input ends in an accepting state
+     */
+    private boolean acceptsOneWord(CharSequence test) {
+        long current = 1L;
+        for (int i = 0; i < test.length(); i++) {
+            long next = 0L;
+            for (int k = 0; k < 8; k++) {
+                next |= follow[(k << 8) | (int) ((current >>> (k << 3)) & 0xFF)];
+            }
+            current = next & symbolMasks[automaton.symbolClassOf(test.charAt(i))];
+            if (current == 0) {
+                return false;
+            }
+        }
+        return (current & lastPositions[0]) != 0;
+    }
+
+    /**
+     *
+     * @return Number of longs in one set of positions
+     */
+    public int getWords() {
+        return words;
+    }
+
+    /**
+     *
+     * @return The compiled automaton
+     */
+    public CompiledNFA getAutomaton() {
+        return automaton;
+    }
+}
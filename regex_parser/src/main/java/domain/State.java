@@ -2,6 +2,7 @@ package domain;
 
 import utils.structures.OwnSet;
 import utils.structures.OwnMap;
+import utils.structures.CharMap;
 
 /**
  *
@@ -26,8 +27,13 @@ public class State {
      * about all symbols that may lead to next states, and also the
      * specific states that a given symbol can lead to.
      * </p>
+     * <p>
+     * The map has open addressing and char keys, so looking up the states
+     * of a symbol neither boxes the symbol nor allocates a table of 100
+     * slots for a state that has one or two symbols.
+     * </p>
      */
-    private OwnMap<Character, OwnSet<State>> transitions;
+    private CharMap<OwnSet<State>> transitions;
 
     /**
      * 
@@ -50,6 +56,21 @@ public class State {
      */
     private OwnSet<State> anySymbolTransitions;
 
+    /**
+     * Character classes that label transitions of this state. The states
+     * reachable with a character of classes[i] are classTargets[i].
+     *
+     * <p>
+     * Kept in arrays rather than in a map, since most states have no class
+     * transitions and the rest usually have only one.
+     * </p>
+     */
+    private CharacterClass[] classes;
+
+    private OwnSet<State>[] classTargets;
+
+    private static final CharacterClass[] NO_CLASSES = new CharacterClass[0];
+
     /**
      * Creates an instance of the class with predetermined transitions.
      *
@@ -58,10 +79,8 @@ public class State {
      * states.
      */
     public State(int id, OwnMap<Character, OwnSet<State>> transitions) {
-        this.id = id;
-        this.transitions = transitions;
-        emptyTransitions = new OwnSet(); 
-        anySymbolTransitions = new OwnSet(); 
+        this(id);
+        setTransitions(transitions);
     }
 
     /**
@@ -72,16 +91,35 @@ public class State {
      *
      */
     public State(int id) {
-        this(id, new OwnMap());
+        this.id = id;
+        transitions = new CharMap<>();
+        emptyTransitions = new OwnSet(); 
+        anySymbolTransitions = new OwnSet(); 
+        classes = NO_CLASSES;
+        classTargets = new OwnSet[0];
     }
 
     /**
      *
      * @return Transition info for all the symbols that might lead to next
-     * states
+     * states. The map is a copy, but the sets of states are the ones of this
+     * state.
      */
     public OwnMap<Character, OwnSet<State>> getAllTransitions() {
-        return this.transitions;
+        OwnMap<Character, OwnSet<State>> result = new OwnMap();
+        for (char symbol : transitions.keys()) {
+            result.put(symbol, transitions.get(symbol));
+        }
+        return result;
+    }
+
+    /**
+     *
+     * @return The symbols that have a symbol transition, in no particular
+     * order
+     */
+    public char[] getSymbols() {
+        return transitions.keys();
     }
 
     /**
@@ -91,7 +129,8 @@ public class State {
      * @param transitions New transitions.
      */
     public void setTransitions(OwnMap<Character, OwnSet<State>> transitions) {
-        this.transitions = transitions;
+        this.transitions = new CharMap<>(transitions.size());
+        addTransitions(transitions);
     }
 
     /**
@@ -102,7 +141,9 @@ public class State {
      * @param transitions New information to be added.
      */
     public void addTransitions(OwnMap<Character, OwnSet<State>> transitions) {
-        this.transitions.putAll(transitions);
+        for (Character symbol : transitions.keySet()) {
+            this.transitions.put(symbol, transitions.get(symbol));
+        }
     }
 
     /**
@@ -113,7 +154,7 @@ public class State {
      * @param next The only state reachable with the symbol
      */
     public void setNextStateForSymbol(Character symbol, State next) {
-        transitions.put(symbol, new OwnSet());
+        transitions.put(symbol, new OwnSet<>());
         transitions.get(symbol).add(next);
     }
 
@@ -126,7 +167,7 @@ public class State {
      */
     public void addNextStateForSymbol(Character symbol, State next) {
         if (!transitions.containsKey(symbol)) {
-            transitions.put(symbol, new OwnSet());
+            transitions.put(symbol, new OwnSet<>());
         }
         transitions.get(symbol).add(next);
     }
@@ -153,7 +194,7 @@ public class State {
      */
     public void addNextStatesForSymbol(Character symbol, OwnSet<State> next_states) {
         if (!transitions.containsKey(symbol)) {
-            transitions.put(symbol, new OwnSet());
+            transitions.put(symbol, new OwnSet<>());
         }
 
         transitions.get(symbol).addAll(next_states);
@@ -246,6 +287,78 @@ public class State {
         return anySymbolTransitions;
     }
 
+    /**
+     *
+     * Adds the state to the states reachable with any character of the
+     * class.
+     *
+     * @param characterClass Class that labels the transition
+     * @param next State to be added
+     */
+    public void addNextStateForClass(CharacterClass characterClass, State next) {
+        for (int i = 0; i < classes.length; i++) {
+            if (classes[i].equals(characterClass)) {
+                classTargets[i].add(next);
+                return;
+            }
+        }
+        CharacterClass[] largerClasses = new CharacterClass[classes.length + 1];
+        OwnSet<State>[] largerTargets = new OwnSet[classes.length + 1];
+        System.arraycopy(classes, 0, largerClasses, 0, classes.length);
+        System.arraycopy(classTargets, 0, largerTargets, 0, classes.length);
+        largerClasses[classes.length] = characterClass;
+        largerTargets[classes.length] = new OwnSet<>();
+        largerTargets[classes.length].add(next);
+        classes = largerClasses;
+        classTargets = largerTargets;
+    }
+
+    /**
+     *
+     * @return Number of distinct classes that label transitions of this state
+     */
+    public int getNumberOfClassTransitions() {
+        return classes.length;
+    }
+
+    /**
+     *
+     * @param i Index of a class transition
+     * @return Class that labels the transition
+     */
+    public CharacterClass getCharacterClass(int i) {
+        return classes[i];
+    }
+
+    /**
+     *
+     * @param i Index of a class transition
+     * @return States reachable with any character of the class
+     */
+    public OwnSet<State> getNextStatesForClass(int i) {
+        return classTargets[i];
+    }
+
+    /**
+     * Adds to the set every state that is reachable from this one with the
+     * symbol, either with a symbol transition or a class transition. Any
+     * character transitions are not included.
+     *
+     * @param symbol Symbol that is read
+     * @param states Set to which the states are added
+     */
+    public void addNextStatesForSymbolTo(char symbol, OwnSet<State> states) {
+        OwnSet<State> result = transitions.get(symbol);
+        if (result != null) {
+            states.addAll(result);
+        }
+        for (int i = 0; i < classes.length; i++) {
+            if (classes[i].contains(symbol)) {
+                states.addAll(classTargets[i]);
+            }
+        }
+    }
+
     /**
      *
      * @return The id of the state.
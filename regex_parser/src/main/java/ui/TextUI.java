@@ -1,6 +1,8 @@
 package ui;
 
 import domain.NFA;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Scanner;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -275,28 +277,32 @@ public class TextUI {
      *
      * <p>
      * Does not try to match the whole text file's contents with the given
-     * regular expression. It wraps the regex whith .* in the beginning and
-     * beginning, so the contents match the expression if any part of the
-     * contents matches the regular expression. Only prints whether there is a
+     * regular expression. The file is streamed through a Matcher, which
+     * searches for the first part of the contents that matches the regular
+     * expression and stops reading there. Only prints whether there is a
      * mathching part. </p>
      */
     protected void searchLongText() {
 
-        String[] fileInfo = buildStringFromUserSelectedFile();
-        String filename = fileInfo[0];
-        String text = fileInfo[1];
+        String filename = queryFileName();
 
         while (true) {
             System.out.println("Give a search phrase (regular expression that will be searched for):");
             String input = scanner.nextLine();
-            NFA nfa = nfaGenerator.generateNFA(".*(" + input + ").*");
+            domain.Pattern pattern = new domain.Pattern(input, nfaGenerator.generateNFA(input));
             long start = System.nanoTime();
-            boolean found = nfa.accepts(text);
+            boolean found;
+            try (InputStream in = getClass().getClassLoader().getResourceAsStream(filename)) {
+                found = pattern.matcher().search(in) != -1;
+            } catch (IOException e) {
+                System.out.println("File resources/" + filename + " could not be read.");
+                return;
+            }
             long delta = System.nanoTime() - start;
             String contain = found ? "contains" : "does not contain";
             System.out.println(filename + " " + contain
                     + " a part that matches the given regular expression '" + input + "'.");
-            System.out.println("Testing after generating a suitable automaton took " + delta / 1000000 + " milliseconds.");
+            System.out.println("Searching after generating a suitable automaton took " + delta / 1000000 + " milliseconds.");
             System.out.println("Try a new regular expression? (y/n)");
             System.out.print(" >");
             input = scanner.nextLine();
@@ -308,42 +314,59 @@ public class TextUI {
     }
 
     /**
-     *
-     * Queries user for file name and tries to read that file into a string.
+     * Queries user for the name of a file that can be read.
      *
      * <p>
      * The file must be in the src/main/resources/ folder for the program to
      * find it. If running the .jar only the files packed into it can be
      * chosen.</p>
      * <p>
-     * If left blank, the choice defaults to the novel Frankenstein. If there is
-     * a problem with reading from the specified file, the user is prompted
-     * again for input for as long as it takes to correctly read a text
-     * file.</p>
+     * If left blank, the choice defaults to the novel Frankenstein. If the
+     * specified file does not exist, the user is prompted again for as long
+     * as it takes to name an existing file.</p>
      *
-     * @return An array of two strings: the name of the file and the contents of
-     * the file, respectively.
+     * @return The name of the file
      */
-    protected String[] buildStringFromUserSelectedFile() {
-        String filename;
+    protected String queryFileName() {
         ClassLoader cl = getClass().getClassLoader();
         while (true) {
             System.out.print("Give the name of the file or leave empty for default file (Frankenstein)\n"
                     + ">");
-            filename = scanner.nextLine();
+            String filename = scanner.nextLine();
 
             if (filename.isEmpty()) {
                 filename = "frankenstein.txt";
             }
+            if (cl.getResource(filename) != null) {
+                return filename;
+            }
+            System.out.println("File resources/" + filename + " does not exist or some other error occured.");
+        }
+    }
 
-            String text = "";
+    /**
+     *
+     * Queries user for file name and tries to read that file into a string.
+     *
+     * <p>
+     * The file is chosen with queryFileName. Its lines are appended to a
+     * StringBuilder and the line breaks are kept.</p>
+     *
+     * @return An array of two strings: the name of the file and the contents of
+     * the file, respectively.
+     */
+    protected String[] buildStringFromUserSelectedFile() {
+        ClassLoader cl = getClass().getClassLoader();
+        while (true) {
+            String filename = queryFileName();
+            StringBuilder text = new StringBuilder();
             try (Scanner s = new Scanner(cl.getResourceAsStream(filename), "UTF-8")) {
                 System.out.println("Reading...");
-                while (s.hasNext()) {
-                    text += s.nextLine();
+                while (s.hasNextLine()) {
+                    text.append(s.nextLine()).append('\n');
                 }
                 System.out.println("Done!");
-                String[] info = new String[]{filename, text};
+                String[] info = new String[]{filename, text.toString()};
                 return info;
             } catch (Exception e) {
                 System.out.println("File resources/" + filename + " does not exist or some other error occured.");
@@ -2,124 +2,259 @@ package utils;
 
 
 /**
- * 
+ *
  * Stores a string and modifies it in more ways that the string class offers.
- * 
+ *
+ * <p>
+ * The characters are kept in a gap buffer: a char array with an unused gap
+ * at the position of the latest edit. Inserting or deleting at the gap only
+ * writes the inserted characters or widens the gap; editing elsewhere first
+ * moves the gap there, which copies only the characters between the old and
+ * the new position. Edits that stay close to each other, as in the
+ * preprocessing of patterns, thus take amortized constant time per
+ * character instead of copying the whole string. When the gap runs out, the
+ * array is doubled.
+ * </p>
+ *
  */
-public class OwnStringBuilder {
+public class OwnStringBuilder implements CharSequence {
 
     /**
-     * The contents to be stored and modified.
-     * 
+     * The contents to be stored and modified, with the gap in between.
+     *
+     */
+    private char[] buffer;
+
+    /**
+     * Index of the first character of the gap.
+     */
+    private int gapStart;
+
+    /**
+     * Index of the first character after the gap.
+     */
+    private int gapEnd;
+
+    /**
+     * The stored string, or null if it has been modified since toString was
+     * last called.
      */
     private String string;
 
     /**
-     * 
+     *
      * @param string Initial string that is stored in OwnStringBuilder.
      */
     public OwnStringBuilder(String string) {
+        int capacity = Math.max(16, 2 * string.length());
+        buffer = new char[capacity];
+        string.getChars(0, string.length(), buffer, 0);
+        gapStart = string.length();
+        gapEnd = capacity;
         this.string = string;
     }
 
     /**
-     * 
+     *
      * Deletes the character at the index in the stored string.
-     * 
+     *
      * @param idx Index of the character to be deleted.
      * @return Reference to this object.
      */
     public OwnStringBuilder deleteCharAt(int idx) {
-        string = string.substring(0, idx) + string.substring(idx+1);
-        return this;
+        return delete(idx, idx + 1);
     }
 
     /**
      * Deletes all the characters in the indexes i1, ... , i2 - 1.
-     * 
+     *
      * @param i1 Index of first character to be deleted.
      * @param i2 Index of the first character after i2 not to be deleted.
      * @return Reference to this object.
-     * 
+     *
      */
     public OwnStringBuilder delete(int i1, int i2) {
-        string =  string.substring(0, i1) +  string.substring(i2);
+        if (i1 < 0 || i2 > length() || i1 > i2) {
+            throw new StringIndexOutOfBoundsException("Cannot delete " + i1 + "-" + i2 + " from length " + length());
+        }
+        moveGap(i1);
+        gapEnd += i2 - i1;
+        string = null;
         return this;
     }
 
-    /** 
-     * 
-     * Stored string is extended by inserting the parameter string. 
-     * 
-     * 
+    /**
+     *
+     * Stored string is extended by inserting the parameter string.
+     *
+     *
      * @param idx The index where the inserted part is placed. The character
      * originally in this position moves to a greater index.
      * @param inserted String to be inserted into the stored string.
      * @return Reference to this object.
      */
     public OwnStringBuilder insert(int idx, String inserted) {
-        if (idx == 0) {
-            string = inserted + string;
-        } else {
-            string = string.substring(0, idx) + inserted + string.substring(idx);
+        if (idx < 0 || idx > length()) {
+            throw new StringIndexOutOfBoundsException("Cannot insert at " + idx + " into length " + length());
+        }
+        if (gapEnd - gapStart < inserted.length()) {
+            grow(inserted.length());
         }
+        moveGap(idx);
+        inserted.getChars(0, inserted.length(), buffer, gapStart);
+        gapStart += inserted.length();
+        string = null;
         return this;
     }
-    
+
+    /**
+     * Adds the parameter string to the end of the stored string.
+     *
+     * @param appended String to be added
+     * @return Reference to this object.
+     */
+    public OwnStringBuilder append(String appended) {
+        return insert(length(), appended);
+    }
+
+    /**
+     * Adds the character to the end of the stored string.
+     *
+     * @param c Character to be added
+     * @return Reference to this object.
+     */
+    public OwnStringBuilder append(char c) {
+        if (gapEnd == gapStart) {
+            grow(1);
+        }
+        moveGap(length());
+        buffer[gapStart] = c;
+        gapStart++;
+        string = null;
+        return this;
+    }
+
+    /**
+     * Moves the gap so that it begins at the index.
+     */
+    private void moveGap(int idx) {
+        if (idx < gapStart) {
+            int count = gapStart - idx;
+            System.arraycopy(buffer, idx, buffer, gapEnd - count, count);
+            gapStart = idx;
+            gapEnd -= count;
+        } else if (idx > gapStart) {
+            int count = idx - gapStart;
+            System.arraycopy(buffer, gapEnd, buffer, gapStart, count);
+            gapStart = idx;
+            gapEnd += count;
+        }
+    }
+
+    /**
+     * Enlarges the array so that the gap has room for at least the given
+     * number of characters.
+     */
+    private void grow(int needed) {
+        int length = length();
+        int capacity = Math.max(2 * buffer.length, length + needed + 16);
+        char[] larger = new char[capacity];
+        int tail = buffer.length - gapEnd;
+        System.arraycopy(buffer, 0, larger, 0, gapStart);
+        System.arraycopy(buffer, gapEnd, larger, capacity - tail, tail);
+        gapEnd = capacity - tail;
+        buffer = larger;
+    }
+
     /**
      * Used to determine the length of the stored string.
-     * 
+     *
      * @return The number of characters in the stored string.
      */
+    @Override
     public int length(){
-        return string.length(); 
+        return buffer.length - (gapEnd - gapStart);
     }
-    
+
     /**
      * Used to inspect which character is at the index.
-     * 
-     * @param i The index of interest. 
+     *
+     * @param i The index of interest.
      * @return The character at the parameter index of the stored string.
      */
+    @Override
     public char charAt(int i){
-        return string.charAt(i);
+        if (i < 0 || i >= length()) {
+            throw new StringIndexOutOfBoundsException("Index " + i + " out of length " + length());
+        }
+        return i < gapStart ? buffer[i] : buffer[i + gapEnd - gapStart];
     }
-    
+
     /**
-     * 
-     * Searches for the parameter string in the indicated part of the stored string. 
-     * 
-     * Considers only the part of the stored string beginning and after i. 
+     *
+     * Searches for the parameter string in the indicated part of the stored string.
+     *
+     * Considers only the part of the stored string beginning and after i.
      * Returns the first index where the str is found - the returned index is
-     * the index of the first character of the first occurrence of str in 
-     * the specified part. 
-     * 
+     * the index of the first character of the first occurrence of str in
+     * the specified part.
+     *
      * @param str String to be searched for.
      * @param i Index before which the characters are not considered.
-     * @return 
+     * @return Index of the occurrence, or -1 if there is none
      */
     public int indexOf(String str, int i){
-        return string.indexOf(str, i);
+        int last = length() - str.length();
+        for (int start = Math.max(i, 0); start <= last; start++) {
+            int j = 0;
+            while (j < str.length() && charAt(start + j) == str.charAt(j)) {
+                j++;
+            }
+            if (j == str.length()) {
+                return start;
+            }
+        }
+        return -1;
     }
-    
+
     /**
-     * 
-     * Returns a part of the stored string without modifying it. 
-     * 
+     *
+     * Returns a part of the stored string without modifying it.
+     *
      * @param i Index of the first character to be included.
      * @param j Index of the first character to be excluded after i.
      * @return The string consisting of the characters between i and j.
      */
     public String substring(int i, int j){
-        return string.substring(i, j);
+        if (i < 0 || j > length() || i > j) {
+            throw new StringIndexOutOfBoundsException("Cannot take " + i + "-" + j + " from length " + length());
+        }
+        if (j <= gapStart) {
+            return new String(buffer, i, j - i);
+        }
+        if (i >= gapStart) {
+            return new String(buffer, i + gapEnd - gapStart, j - i);
+        }
+        char[] part = new char[j - i];
+        System.arraycopy(buffer, i, part, 0, gapStart - i);
+        System.arraycopy(buffer, gapEnd, part, gapStart - i, j - gapStart);
+        return new String(part);
+    }
+
+    @Override
+    public CharSequence subSequence(int i, int j) {
+        return substring(i, j);
     }
 
     /**
-     * 
+     *
      * @return The stored string.
      */
     @Override
     public String toString() {
+        if (string == null) {
+            string = substring(0, length());
+        }
         return string;
     }
 }
@@ -2,13 +2,21 @@ package utils;
 
 import utils.structures.OwnSet;
 import utils.structures.OwnStack;
-import utils.structures.OwnMap;
+import utils.structures.LRUCache;
 
 /**
  *
  * Contains methods for unpacking shorthands and preparing a pattern string for
  * NFAGenerator to more easily construct an automaton based on.
  *
+ * <p>
+ * Legacy baseline: NFAGenerator parses patterns with RegexParser, and this
+ * class is no longer used by the engine. It is kept only so that
+ * PreprocessingBenchmark can compare the old string rewriting with the
+ * parser. Changes to the pattern grammar are made in RegexParser and are not
+ * carried over here.
+ * </p>
+ *
  */
 public class PatternProcessor {
 
@@ -32,11 +40,17 @@ public class PatternProcessor {
     private final OwnSet<Character> shorthandSymbols;
 
     /**
-     * Stores information about all the strings that have been processed, so if
+     * Largest total length of the processed patterns kept in the cache.
+     */
+    public static final long CACHE_WEIGHT = 1 << 20;
+
+    /**
+     * Stores information about the strings that have been processed, so if
      * a string is processed multiple times, the performance increases after the
-     * first processing.
+     * first processing. Bounded by CACHE_WEIGHT characters, the least recently
+     * used strings are evicted first.
      */
-    private final OwnMap<String, String> cache;
+    private final LRUCache<String, String> cache;
 
     /**
      * Initializes the supported symbols and cache
@@ -44,7 +58,12 @@ public class PatternProcessor {
     public PatternProcessor() {
         this.alphabet = Utilities.defaultAlphabet();
         this.shorthandSymbols = Utilities.defaultShorthands();
-        cache = new OwnMap();
+        cache = new LRUCache<>(Integer.MAX_VALUE, CACHE_WEIGHT, new LRUCache.Weigher<String>() {
+            @Override
+            public long weigh(String processed) {
+                return processed.length();
+            }
+        });
     }
 
     /**
@@ -65,20 +84,18 @@ public class PatternProcessor {
      * construct an NFA
      */
     public String elongateRegularExpression(String pattern) {
-        String original = pattern;
-        if (cache.containsKey(pattern)) {
-            return cache.get(pattern);
-        }
-
         if (pattern.isEmpty()) {
             pattern = "#";
             return pattern;
         }
-        pattern = replaceShorthands(pattern);
-        pattern = removeUnnecessaryNegations(pattern);
-        pattern = addConcatenationSymbols(pattern);
-        cache.put(original, pattern);
-        return pattern;
+        return cache.get(pattern, new LRUCache.Loader<String, String>() {
+            @Override
+            public String load(String original) {
+                String processed = replaceShorthands(original);
+                processed = removeUnnecessaryNegations(processed);
+                return addConcatenationSymbols(processed);
+            }
+        });
     }
 
     /**
@@ -104,7 +121,7 @@ public class PatternProcessor {
 
             if (shorthandSymbols.contains(currentSymbol)) {
 
-                String affectedPart = determineAffectedPart(sb.toString(), i - 1);
+                String affectedPart = determineAffectedPart(sb, i - 1);
 
                 if (currentSymbol == '+') {
                     i = replacePlus(sb, i, affectedPart);
@@ -184,8 +201,9 @@ public class PatternProcessor {
      *
      * <p>
      * If both min and max are the same, only that number of repetitions is
-     * inserted. If both are otherwise specified, the different allowed numbers
-     * are separated with union and the created string is parenthesized.
+     * inserted. If both are otherwise specified, the optional repetitions
+     * after the first min are nested unions with the empty symbol, and the
+     * created string is parenthesized (see boundedRepetition).
      * </p>
      * <p>
      * If min is missing, it is interpreted to be 0. In that case empty string
@@ -229,39 +247,53 @@ public class PatternProcessor {
         sb.delete(i - affectedPart.length(), i);
         i -= affectedPart.length();
 
+        String replacement;
         if (max == -1) {
-            sb.insert(i, "()");
-            i++;
-            sb.insert(i, "*");
-
-            sb.insert(i, affectedPart);
-
-            for (int j = 0; j < min; j++) {
-                sb.insert(i, affectedPart);
+            OwnStringBuilder unbounded = new OwnStringBuilder("(");
+            for (int j = 0; j <= min; j++) {
+                unbounded.append(affectedPart);
             }
-
-            return i;
+            replacement = unbounded.append("*)").toString();
+        } else {
+            replacement = boundedRepetition(affectedPart, min, max);
         }
+        sb.insert(i, replacement);
 
-        sb.insert(i, "()");
-        i++;
-
-        for (int len = min; len <= max; len++) {
-            if (len == 0) {
-                sb.insert(i, "|#");
-                continue;
-            }
+        return i + replacement.length() - 1;
+    }
 
-            String option = "";
-            for (int j = 0; j < len; j++) {
-                option += affectedPart;
-            }
-            sb.insert(i, "|" + option);
+    /**
+     * Builds the parenthesized string that repeats the affected part at
+     * least min and at most max times.
+     *
+     * <p>
+     * The part is first repeated min times. The max - min optional
+     * repetitions are nested so that they share their suffixes: for example
+     * a[2,4] becomes (aa(a(a|#)|#)). The length of the result is thus linear
+     * in max, whereas listing every allowed number of repetitions as its own
+     * alternative would be quadratic.
+     * </p>
+     *
+     * @param affectedPart The part that is repeated
+     * @param min Smallest number of repetitions
+     * @param max Largest number of repetitions
+     * @return The repetition written with basic operations
+     */
+    private String boundedRepetition(String affectedPart, int min, int max) {
+        if (max == 0) {
+            return "(#)";
         }
-
-        sb.deleteCharAt(i);
-
-        return i;
+        OwnStringBuilder result = new OwnStringBuilder("(");
+        for (int j = 0; j < min; j++) {
+            result.append(affectedPart);
+        }
+        for (int j = min; j < max; j++) {
+            result.append('(').append(affectedPart);
+        }
+        for (int j = min; j < max; j++) {
+            result.append("|#)");
+        }
+        return result.append(')').toString();
     }
 
     /**
@@ -310,11 +342,11 @@ public class PatternProcessor {
      *
      *
      *
-     * @param pattern String that affected part is part of.
+     * @param pattern String or string builder that affected part is part of.
      * @param idx Index of the last character of the affected part.
      * @return The substring that is the affected part.
      */
-    public String determineAffectedPart(String pattern, int idx) {
+    public String determineAffectedPart(CharSequence pattern, int idx) {
 
         if (idx > 0 && pattern.charAt(idx - 1) == '/') {
             
@@ -325,7 +357,7 @@ public class PatternProcessor {
                 i++;
             }
             if (numberOfPrecedingEscapes % 2 == 1) {
-                return "" + pattern.charAt(idx - 1) + pattern.charAt(idx);
+                return pattern.subSequence(idx - 1, idx + 1).toString();
             }
         }
 
@@ -333,7 +365,7 @@ public class PatternProcessor {
             return "" + pattern.charAt(idx);
         }
 
-        String result = ")";
+        int end = idx + 1;
         OwnStack<Character> parStack = new OwnStack();
         parStack.push(')');
         idx--;
@@ -349,11 +381,10 @@ public class PatternProcessor {
                     parStack.pop();
                 }
             }
-            result = "" + pattern.charAt(idx) + result;
             idx--;
         }
 
-        return result;
+        return pattern.subSequence(idx + 1, end).toString();
     }
 
     /**
@@ -416,19 +447,19 @@ public class PatternProcessor {
      * @return same pattern, with every two neighboring ! symbols removed
      */
     public String removeUnnecessaryNegations(String pattern) {
-        String result = "";
+        OwnStringBuilder result = new OwnStringBuilder("");
 
         char c1, c2;
         for (int i = 0; i < pattern.length(); i++) {
             c1 = pattern.charAt(i);
             if (i + 1 == pattern.length()) {
-                result += "" + c1;
+                result.append(c1);
                 break;
             }
             c2 = pattern.charAt(i + 1);
 
             if (c1 == '/') {
-                result += ("" + c1 + c2);
+                result.append(c1).append(c2);
                 i++;
                 continue;
             }
@@ -436,10 +467,10 @@ public class PatternProcessor {
                 i++;
                 continue;
             }
-            result += "" + c1;
+            result.append(c1);
         }
 
-        pattern = result;
+        pattern = result.toString();
         return pattern;
     }
 
@@ -0,0 +1,278 @@
+package utils;
+
+import domain.CharacterClass;
+
+/**
+ *
+ * A node of the abstract syntax tree of a regular expression.
+ *
+ * <p>
+ * Concatenation and union have any number of children, so that a long
+ * sequence of symbols or alternatives is one flat node instead of a deep
+ * chain of binary nodes. Bounded and unbounded repetition is a node of its
+ * own: the subtree is stored once, however many times it is repeated, and
+ * NFAGenerator builds the copies directly from it.
+ * </p>
+ *
+ */
+public class RegexNode {
+
+    /**
+     * The kinds of nodes.
+     */
+    public enum Type {
+        /**
+         * A single symbol.
+         */
+        SYMBOL,
+        /**
+         * A single symbol of a character class, for example a range such as
+         * 'a-z'.
+         */
+        CLASS,
+        /**
+         * Any single symbol ('.').
+         */
+        ANY,
+        /**
+         * The empty string ('#').
+         */
+        EMPTY,
+        /**
+         * No string at all, for example an empty range such as 'c-a'.
+         */
+        NOTHING,
+        CONCATENATION,
+        UNION,
+        STAR,
+        COMPLEMENT,
+        /**
+         * At least min and at most max repetitions of the child; max is -1
+         * if there is no upper limit.
+         */
+        REPETITION
+    }
+
+    private final Type type;
+
+    /**
+     * The symbol of a SYMBOL node.
+     */
+    private final char symbol;
+
+    /**
+     * The character class of a CLASS node.
+     */
+    private final CharacterClass characterClass;
+
+    /**
+     * Children of the node; empty for leaves.
+     */
+    private final RegexNode[] children;
+
+    /**
+     * Limits of a REPETITION node.
+     */
+    private final int min;
+    private final int max;
+
+    private RegexNode(Type type, char symbol, RegexNode[] children, int min, int max) {
+        this(type, symbol, null, children, min, max);
+    }
+
+    private RegexNode(Type type, char symbol, CharacterClass characterClass, RegexNode[] children, int min, int max) {
+        this.type = type;
+        this.symbol = symbol;
+        this.characterClass = characterClass;
+        this.children = children;
+        this.min = min;
+        this.max = max;
+    }
+
+    private static final RegexNode[] NO_CHILDREN = new RegexNode[0];
+
+    /**
+     *
+     * @param symbol Symbol that the node matches
+     * @return Leaf that matches the symbol
+     */
+    public static RegexNode symbol(char symbol) {
+        return new RegexNode(Type.SYMBOL, symbol, NO_CHILDREN, 0, 0);
+    }
+
+    /**
+     *
+     * @param characterClass Symbols that the node matches
+     * @return Leaf that matches any single symbol of the class
+     */
+    public static RegexNode characterClass(CharacterClass characterClass) {
+        return new RegexNode(Type.CLASS, ' ', characterClass, NO_CHILDREN, 0, 0);
+    }
+
+    /**
+     *
+     * @return Leaf that matches any single symbol
+     */
+    public static RegexNode any() {
+        return new RegexNode(Type.ANY, '.', NO_CHILDREN, 0, 0);
+    }
+
+    /**
+     *
+     * @return Leaf that matches the empty string
+     */
+    public static RegexNode empty() {
+        return new RegexNode(Type.EMPTY, '#', NO_CHILDREN, 0, 0);
+    }
+
+    /**
+     *
+     * @return Leaf that matches nothing
+     */
+    public static RegexNode nothing() {
+        return new RegexNode(Type.NOTHING, ' ', NO_CHILDREN, 0, 0);
+    }
+
+    /**
+     *
+     * @param children Parts in the order they are matched
+     * @return The only child if there is one, otherwise their concatenation
+     */
+    public static RegexNode concatenation(RegexNode... children) {
+        return children.length == 1 ? children[0] : new RegexNode(Type.CONCATENATION, ' ', children, 0, 0);
+    }
+
+    /**
+     *
+     * @param children Alternatives
+     * @return The only child if there is one, otherwise their union
+     */
+    public static RegexNode union(RegexNode... children) {
+        return children.length == 1 ? children[0] : new RegexNode(Type.UNION, ' ', children, 0, 0);
+    }
+
+    /**
+     *
+     * @param child Repeated part
+     * @return Kleene star of the child
+     */
+    public static RegexNode star(RegexNode child) {
+        return new RegexNode(Type.STAR, ' ', new RegexNode[]{child}, 0, 0);
+    }
+
+    /**
+     *
+     * @param child Negated part
+     * @return Complement of the child
+     */
+    public static RegexNode complement(RegexNode child) {
+        return new RegexNode(Type.COMPLEMENT, ' ', new RegexNode[]{child}, 0, 0);
+    }
+
+    /**
+     *
+     * @param child Repeated part
+     * @param min Smallest number of repetitions
+     * @param max Largest number of repetitions, or -1 for no limit
+     * @return Repetition of the child
+     */
+    public static RegexNode repetition(RegexNode child, int min, int max) {
+        return new RegexNode(Type.REPETITION, ' ', new RegexNode[]{child}, min, max);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public char getSymbol() {
+        return symbol;
+    }
+
+    public CharacterClass getCharacterClass() {
+        return characterClass;
+    }
+
+    public RegexNode[] getChildren() {
+        return children;
+    }
+
+    /**
+     *
+     * @return The first child
+     */
+    public RegexNode getChild() {
+        return children[0];
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * Writes the tree with explicit operations and full parentheses, for
+     * example (a&(b|c)*), (!(a))[2,3] or (a-f|x). Symbols are escaped with '/' unless they are
+     * letters or digits.
+     *
+     * @return The tree as a pattern string
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        append(sb);
+        return sb.toString();
+    }
+
+    private void append(StringBuilder sb) {
+        switch (type) {
+            case SYMBOL:
+                if (!Character.isLetterOrDigit(symbol)) {
+                    sb.append('/');
+                }
+                sb.append(symbol);
+                break;
+            case CLASS:
+                sb.append('(').append(characterClass).append(')');
+                break;
+            case ANY:
+                sb.append('.');
+                break;
+            case EMPTY:
+                sb.append('#');
+                break;
+            case NOTHING:
+                sb.append("(b-a)");
+                break;
+            case CONCATENATION:
+            case UNION:
+                sb.append('(');
+                for (int i = 0; i < children.length; i++) {
+                    if (i > 0) {
+                        sb.append(type == Type.UNION ? '|' : '&');
+                    }
+                    children[i].append(sb);
+                }
+                sb.append(')');
+                break;
+            case STAR:
+                children[0].append(sb);
+                sb.append('*');
+                break;
+            case COMPLEMENT:
+                sb.append("(!(");
+                children[0].append(sb);
+                sb.append("))");
+                break;
+            default:
+                children[0].append(sb);
+                sb.append('[').append(min).append(',');
+                if (max != -1) {
+                    sb.append(max);
+                }
+                sb.append(']');
+        }
+    }
+}
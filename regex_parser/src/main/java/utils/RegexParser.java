@@ -0,0 +1,309 @@
+package utils;
+
+import domain.CharacterClass;
+import utils.structures.OwnSet;
+
+/**
+ *
+ * Parses a pattern into an abstract syntax tree in one pass.
+ *
+ * <p>
+ * The parser is a recursive descent parser. It understands the same syntax
+ * as PatternProcessor, shorthands included, but produces the tree directly
+ * from the pattern, without rewriting the pattern string. Each character is
+ * looked at once, so parsing takes O(m) time for a pattern of length m. The
+ * recursion goes only as deep as parentheses and negations are nested.
+ * </p>
+ * <p>
+ * The grammar, from the loosest to the tightest binding:
+ * </p>
+ * <pre>
+ * union         := concatenation ('|' concatenation)*
+ * concatenation := starred ('&amp;'? starred)*
+ * starred       := negated ('*' | shorthand)*
+ * negated       := '!'* repeated
+ * repeated      := atom shorthand*
+ * shorthand     := '+' | '?' | '[' min? ',' max? ']'
+ * atom          := '(' union ')' | '/' any | '.' | '#' | symbol ('-' symbol)?
+ * </pre>
+ * <p>
+ * As in PatternProcessor, the shorthands bind tighter than '!' but '*' binds
+ * looser: '!a+' is the complement of 'a+', whereas '!a*' is the star of
+ * '!a'. An even number of '!' in a row cancels out. An empty pattern means
+ * the empty string. A range becomes one character class node, and a range
+ * whose first symbol comes after the last one matches nothing. Characters
+ * that are neither in the alphabet nor part of the syntax are skipped
+ * between the parts of a concatenation, and groups that are still open at
+ * the end of the pattern are closed there.
+ * </p>
+ *
+ */
+public class RegexParser {
+
+    /**
+     * Characters that have a meaning of their own in a pattern.
+     */
+    private static final String SYNTAX = "()|&*!+?[/.#";
+
+    /**
+     * Characters that may appear in a pattern without escaping.
+     */
+    private OwnSet<Character> alphabet;
+
+    /**
+     * The pattern being parsed.
+     */
+    private String pattern;
+
+    /**
+     * Index of the next unread character of the pattern.
+     */
+    private int position;
+
+    /**
+     * Creates a parser that uses the default alphabet.
+     */
+    public RegexParser() {
+        this(Utilities.defaultAlphabet());
+    }
+
+    /**
+     *
+     * @param alphabet Characters that may appear in a pattern without
+     * escaping
+     */
+    public RegexParser(OwnSet<Character> alphabet) {
+        this.alphabet = alphabet;
+    }
+
+    /**
+     * Parses the pattern.
+     *
+     * @param pattern Human-written pattern
+     * @return Root of the syntax tree
+     * @throws IllegalArgumentException If the pattern is not valid
+     */
+    public synchronized RegexNode parse(String pattern) {
+        if (pattern.isEmpty()) {
+            return RegexNode.empty();
+        }
+        this.pattern = pattern;
+        this.position = 0;
+        try {
+            RegexNode root = parseUnion();
+            if (position < pattern.length()) {
+                throw error("Unmatched ')'");
+            }
+            return root;
+        } finally {
+            this.pattern = null;
+        }
+    }
+
+    private RegexNode parseUnion() {
+        RegexNode first = parseConcatenation();
+        if (peek() != '|') {
+            return first;
+        }
+        RegexNode[] alternatives = new RegexNode[4];
+        alternatives[0] = first;
+        int count = 1;
+        while (peek() == '|') {
+            position++;
+            alternatives = append(alternatives, count++, parseConcatenation());
+        }
+        return RegexNode.union(trim(alternatives, count));
+    }
+
+    private RegexNode parseConcatenation() {
+        RegexNode[] parts = new RegexNode[4];
+        int count = 0;
+        skipIgnored();
+        while (position < pattern.length() && peek() != '|' && peek() != ')') {
+            if (peek() == '&' && count > 0) {
+                position++;
+                skipIgnored();
+            }
+            parts = append(parts, count++, parseStarred());
+            skipIgnored();
+        }
+        if (count == 0) {
+            throw error("Missing operand");
+        }
+        return RegexNode.concatenation(trim(parts, count));
+    }
+
+    private RegexNode parseStarred() {
+        RegexNode node = parseNegated();
+        while (true) {
+            if (peek() == '*') {
+                position++;
+                node = RegexNode.star(node);
+            } else if (isShorthand(peek())) {
+                node = parseShorthand(node);
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private RegexNode parseNegated() {
+        int negations = 0;
+        while (peek() == '!') {
+            position++;
+            negations++;
+        }
+        RegexNode node = parseAtom();
+        while (isShorthand(peek())) {
+            node = parseShorthand(node);
+        }
+        return negations % 2 == 1 ? RegexNode.complement(node) : node;
+    }
+
+    /**
+     * Skips characters that are neither in the alphabet nor part of the
+     * syntax, such as a stray ']'. The generator has always ignored them.
+     */
+    private void skipIgnored() {
+        while (position < pattern.length()) {
+            char c = pattern.charAt(position);
+            if (alphabet.contains(c) || SYNTAX.indexOf(c) != -1) {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private static boolean isShorthand(char c) {
+        return c == '+' || c == '?' || c == '[';
+    }
+
+    /**
+     * Applies the shorthand at the current position to the node.
+     */
+    private RegexNode parseShorthand(RegexNode node) {
+        char shorthand = pattern.charAt(position++);
+        if (shorthand == '+') {
+            return RegexNode.repetition(node, 1, -1);
+        }
+        if (shorthand == '?') {
+            return RegexNode.repetition(node, 0, 1);
+        }
+        int closing = pattern.indexOf(']', position);
+        int comma = pattern.indexOf(',', position);
+        if (closing == -1 || comma == -1 || comma > closing) {
+            throw error("Repetition must be of the form [min,max]");
+        }
+        int min = parseLimit(pattern.substring(position, comma), 0);
+        int max = parseLimit(pattern.substring(comma + 1, closing), -1);
+        if (max != -1 && min > max) {
+            throw error("Minimum of repetition is greater than maximum");
+        }
+        position = closing + 1;
+        return RegexNode.repetition(node, min, max);
+    }
+
+    private int parseLimit(String value, int missing) {
+        value = value.trim();
+        if (value.isEmpty()) {
+            return missing;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw error("Invalid limit '" + value + "'");
+        }
+    }
+
+    private RegexNode parseAtom() {
+        if (position == pattern.length()) {
+            throw error("Missing operand");
+        }
+        char c = pattern.charAt(position++);
+        if (c == '(') {
+            RegexNode group = parseUnion();
+            if (position < pattern.length()) {
+                position++;
+            }
+            return group;
+        }
+        if (c == '/') {
+            if (position == pattern.length()) {
+                throw error("Nothing to escape");
+            }
+            return RegexNode.symbol(pattern.charAt(position++));
+        }
+        if (c == '.') {
+            return RegexNode.any();
+        }
+        if (c == '#') {
+            return RegexNode.empty();
+        }
+        if (!alphabet.contains(c)) {
+            position--;
+            throw error("Unexpected '" + c + "'");
+        }
+        if (peek() == '-' && position + 1 < pattern.length()) {
+            char last = pattern.charAt(position + 1);
+            position += 2;
+            return range(c, last);
+        }
+        return RegexNode.symbol(c);
+    }
+
+    /**
+     *
+     * @return Character class of the symbols from first to last, inclusive
+     */
+    private static RegexNode range(char first, char last) {
+        if (first > last) {
+            return RegexNode.nothing();
+        }
+        return RegexNode.characterClass(CharacterClass.range(first, last));
+    }
+
+    /**
+     *
+     * @return The next unread character, or 0 at the end of the pattern
+     */
+    private char peek() {
+        return position < pattern.length() ? pattern.charAt(position) : 0;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at index " + position + " of pattern '" + pattern + "'");
+    }
+
+    private static RegexNode[] append(RegexNode[] nodes, int count, RegexNode node) {
+        if (count == nodes.length) {
+            RegexNode[] larger = new RegexNode[2 * count];
+            System.arraycopy(nodes, 0, larger, 0, count);
+            nodes = larger;
+        }
+        nodes[count] = node;
+        return nodes;
+    }
+
+    private static RegexNode[] trim(RegexNode[] nodes, int count) {
+        RegexNode[] result = new RegexNode[count];
+        System.arraycopy(nodes, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     *
+     * @return Characters that may appear in a pattern without escaping
+     */
+    public OwnSet<Character> getAlphabet() {
+        return alphabet;
+    }
+
+    /**
+     *
+     * @param alphabet Characters that may appear in a pattern without
+     * escaping
+     */
+    public void setAlphabet(OwnSet<Character> alphabet) {
+        this.alphabet = alphabet;
+    }
+}
@@ -1,101 +1,116 @@
 package utils;
 
+import utils.structures.HashTable;
 import utils.structures.OwnLinkedList;
 import utils.structures.PairNode;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 /**
- * 
+ *
  * Iterator for going through the values of a HashSet.
- * 
+ *
+ * <p>
+ * The iterator is a cursor into the table of the set: it remembers the
+ * node that will be returned next and the index of the collision list that
+ * node is on. Nothing is copied or allocated, so iterating a set inside the
+ * simulation loops creates no garbage. The set must not be modified while it
+ * is iterated: next throws a ConcurrentModificationException if elements
+ * have been added or removed since the iterator was created.
+ * </p>
+ *
  * @param <T> Type of element that the iterator produces.
  */
-public class SetIterator<T> implements Iterator{
+public class SetIterator<T> implements Iterator<T> {
 
     /**
-     * List containing all the elements that the iterator can produce.
+     * The table that is iterated.
      */
-    private OwnLinkedList<T, T> elements;
-    
+    private final HashTable<T, ?> set;
+
     /**
-     * The element that the iterator will return next.
+     * The array of collision lists of the set at the creation of the
+     * iterator.
      */
-    private PairNode<T, T> current;
-    
-    
-    private int currentIdx; 
+    private final OwnLinkedList<T, ?>[] table;
 
     /**
-     * 
-     * Creates a single list from all the PairNodes in the parameter array.
-     * 
-     * <p>
-     * Goes through every cell of the table. If there is a linked list 
-     * in there, the method goes through its PairNodes one by one. 
-     * A copy with the same key is made, and that is inserted into the 
-     * elements list of this iterator.
-     * </p>
-     * 
-     * <p>
-     * The operation can take some time, but the following hasNext and next
-     * methods will be very fast. If next is called until there is no next 
-     * element to return, there is no hit to performance. On the other hand, 
-     * if there is a possibility that all the values of the set are not inspected, 
-     * it is wasted effort to go through all the elements of the table in 
-     * the constructor...  C
-     * </p>
-     * <p>Changing implementation would boost performance.</p>
-     * 
-     * @param table Array containing all the elements of a set.
+     * Index of the collision list after the one that current is on.
      */
-    public SetIterator(OwnLinkedList<T, T>[] table) {
-        currentIdx = 0; 
-        elements = new OwnLinkedList();
-        
+    private int nextIdx;
 
-        for (int i = 0; i < table.length; i++) {
-            if (table[i] == null) {
-                continue;
-            }
+    /**
+     * The node whose key the iterator will return next, or null.
+     */
+    private PairNode<T, ?> current;
 
-            PairNode<T, T> node = table[i].getFirstNode();
-            while (node != null) {
-                PairNode<T, T> copy = new PairNode(node.getKey(), null);
-                elements.insert(copy);
-                node = node.getNext();
-            }
-        }
+    /**
+     * Modification count of the set when the iterator was created.
+     */
+    private final int expectedModCount;
 
-        current = elements.getFirstNode();
+    /**
+     *
+     * Places the cursor on the first node of the first nonempty collision
+     * list.
+     *
+     * @param set The set whose elements, or the table whose keys, are
+     * iterated.
+     */
+    public SetIterator(HashTable<T, ?> set) {
+        this.set = set;
+        this.table = (OwnLinkedList<T, ?>[]) set.getTable();
+        this.expectedModCount = set.getModCount();
+        nextIdx = 0;
+        current = null;
+        advanceToNextList();
+    }
 
+    /**
+     * Moves the cursor to the first node of the next nonempty collision
+     * list, or to null if there is none.
+     */
+    private void advanceToNextList() {
+        while (current == null && nextIdx < table.length) {
+            if (table[nextIdx] != null) {
+                current = table[nextIdx].getFirstNode();
+            }
+            nextIdx++;
+        }
     }
 
     /**
-     * 
+     *
      * @return True if there is an element to return. False otherwise.
      */
     @Override
     public boolean hasNext() {
-        return current != null; 
+        return current != null;
     }
 
     /**
-     * Returns the next element after the previous return value of next. 
-     * 
-     * <p>Returns the current node and updates the current to reference
-     * the next PairNode of previous current. If there are no more elements to 
-     * return throws an exception.</p>
-     * 
+     * Returns the next element after the previous return value of next.
+     *
+     * <p>Returns the key of the current node and moves the cursor to the
+     * next node of the same collision list, or to the next nonempty list.
+     * If there are no more elements to return throws an exception.</p>
+     *
      * @return Current element.
+     * @throws ConcurrentModificationException If the set has been modified
+     * after the iterator was created
      */
     @Override
     public T next() {
+        if (set.getModCount() != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
         if (!hasNext()) {
             throw new NoSuchElementException();
         }
-        T result = current.getKey(); 
-        current = current.getNext(); 
+        T result = current.getKey();
+        current = current.getNext();
+        advanceToNextList();
         return result;
     }
 
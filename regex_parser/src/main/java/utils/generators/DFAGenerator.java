@@ -1,7 +1,10 @@
 package utils.generators;
 
 import utils.structures.OwnSet;
-import utils.structures.OwnMap;
+import utils.structures.IntSetTable;
+import utils.structures.SparseSet;
+import domain.CharacterClass;
+import domain.CompiledNFA;
 import domain.NFA;
 import domain.State;
 import utils.Utilities;
@@ -20,17 +23,6 @@ public class DFAGenerator {
      */
     private OwnSet<Character> allPossibleSymbols;
 
-    /**
-     * Stores negations based on the NFA key.
-     *
-     */
-    private OwnMap<NFA, NFA> cache;
-
-    /**
-     * Boolean that indicates whether cache is used to boost performance.
-     */
-    private boolean cacheEnabled;
-
     /**
      * Highest available negative integer for creating unique states.
      */
@@ -42,15 +34,7 @@ public class DFAGenerator {
      * new states.
      */
     public DFAGenerator(int highestAvailable) {
-        this(highestAvailable, true);
-    }
-
-    public DFAGenerator(int highestAvailable, boolean cacheEnabled) {
         this.highestAvailable = highestAvailable;
-        this.cacheEnabled = cacheEnabled;
-        if (cacheEnabled) {
-            cache = new OwnMap();
-        }
         allPossibleSymbols = Utilities.defaultAlphabet();
         allPossibleSymbols.addAll(Utilities.defaultShorthands());
         allPossibleSymbols.addAll(Utilities.defaultBasicOperations());
@@ -62,13 +46,27 @@ public class DFAGenerator {
      * Generates a DFA that recognizes the complement language of the input NFA.
      *
      * <p>
-     * If the answer is already in the cache, it is returned from there. If the 
-     * input NFA is DFA, it is simply inverted.
+     * If the input NFA is DFA, an inverted NFA that shares its states is
+     * returned. The input NFA is never modified by this method, but the
+     * caller must not embed the result into a larger automaton if the input
+     * is used elsewhere, since that adds transitions to the shared states.
+     * Complements are not cached: the ids of the states of the automata that
+     * NFAGenerator builds start from zero for every pattern, so automata of
+     * different patterns may be equal, and a cached complement would be
+     * modified by every pattern that embeds it.
      * Otherwise the method begins constructing a new DFA. The states of this
      * DFA each represent one subset of the states of the parameter NFA; these
-     * states are referred to as subset states in the method. There are two maps
-     * to help with conversions from a subset state to the corresponding set of
-     * NFA states and vice versa.
+     * states are referred to as subset states in the method. Subset states are
+     * numbered in the order they are found, and the transitions between
+     * subset states are stored in a table.
+     * </p>
+     * <p>
+     * The construction runs on the compiled form of the NFA, where the states
+     * are dense ids. Each set of NFA states is interned in an IntSetTable as
+     * a sorted array, whose id is the number of its subset state: a set is
+     * stored once no matter how often it is reached, and the next states
+     * are computed into one reused sparse set instead of a new set per
+     * subset state and symbol.
      * </p>
      * <p>
      * The NFA is simulated and new subset states are created only when needed.
@@ -77,6 +75,14 @@ public class DFAGenerator {
      * considered with every letter of the alphabet, the DFA has been created.
      * </p>
      * <p>
+     * The letters are not considered one by one. Symbols that the NFA treats
+     * alike, such as all the symbols it never mentions, are grouped by the
+     * symbol classes of its compiled form, and only one symbol of each group
+     * is followed. Each subset state gets one transition per distinct next
+     * subset state, labeled with a character class of all the symbols that
+     * lead there.
+     * </p>
+     * <p>
      * Once all the reachable NFA states have been determined from one subset,
      * the method checks if any of them is included in the NFA's accepting
      * states. If that is the case, the creted subset state is NOT added to the
@@ -85,6 +91,10 @@ public class DFAGenerator {
      * DFA. In this way the DFA will accept exactly those input strings that
      * will not end the operation of the input NFA in an accepting state.
      * </p>
+     * <p>
+     * Finally the table is minimized with DFAMinimizer, and only one state is
+     * created for each block of equivalent subset states.
+     * </p>
      *
      * @param nfa Automaton that is to be negated.
      * @return Deterministic (also non-deterministic) finite automaton that
@@ -92,119 +102,264 @@ public class DFAGenerator {
      */
     public NFA generateComplementDFA(NFA nfa) {
 
-        if (cacheEnabled && cache.containsKey(nfa)) {
-            return cache.get(nfa);
-        }
-
         if (nfa.isDFA()) {
-            nfa.invert();
-            return nfa;
+            NFA complement = new NFA(nfa.getStartingState(), nfa.getAcceptingStates(), true, false);
+            if (!nfa.isInverted()) {
+                complement.invert();
+            }
+            return complement;
         }
 
-        NFA dfa = new NFA();
-
-        OwnMap<OwnSet<State>, State> subsetStatesBySetsOfStates = new OwnMap();
-        OwnMap<State, OwnSet<State>> setsOfStatesBySubsetStates = new OwnMap();
-
-        State startingSubsetState = new State(highestAvailable);
-        highestAvailable--;
-        dfa.setStartingState(startingSubsetState);
-
-        OwnSet<State> NFAStartingStates = new OwnSet();
-        NFAStartingStates.add(nfa.getStartingState());
-        nfa.addEpsilonTransitionsOfStates(NFAStartingStates);
-        subsetStatesBySetsOfStates.put(NFAStartingStates, startingSubsetState);
-        setsOfStatesBySubsetStates.put(startingSubsetState, NFAStartingStates);
+        CompiledNFA compiled = new CompiledNFA(nfa);
+        return determinize(compiled, groupSymbols(compiled), true);
+    }
 
-        boolean accepts = true;
-        for (State s : NFAStartingStates) {
-            if (nfa.getAcceptingStates().contains(s)) {
-                accepts = false;
-                break;
-            }
-        }
+    /**
+     * Generates a DFA that recognizes the same language as the input NFA and
+     * is not inverted.
+     *
+     * <p>
+     * An inverted automaton accepts when its set of states is empty or
+     * contains a non-accepting state, so it cannot be simulated unanchored:
+     * there the starting state is added to the set at every position, and
+     * the set never becomes empty. In the DFA each subset state is accepting
+     * if its set of NFA states leads to acceptance, so the DFA can be
+     * searched like any other automaton. The construction is the same as in
+     * generateComplementDFA, except that the symbol groups cover every
+     * character and not only the possible symbols: an inverted automaton
+     * accepts a string with a character that none of its states can read,
+     * and the DFA must read such characters too.
+     * </p>
+     *
+     * @param nfa Automaton that is to be determinized. Not modified.
+     * @return Deterministic finite automaton that recognizes the language of
+     * the parameter nfa
+     */
+    public NFA generateDFA(NFA nfa) {
+        CompiledNFA compiled = new CompiledNFA(nfa);
+        return determinize(compiled, groupAllSymbols(compiled), false);
+    }
 
-        if (accepts) {
-            dfa.getAcceptingStates().add(startingSubsetState);
+    /**
+     * Runs the subset construction on the compiled automaton and minimizes
+     * the result.
+     *
+     * @param compiled Compiled automaton
+     * @param symbolGroups Symbols of each symbol class that the DFA reads
+     * @param complement If true, a subset state is accepting when none of
+     * its NFA states is, and only the transitions labeled with symbols and
+     * character classes are followed. If false, a subset state is accepting
+     * when its NFA states lead to acceptance, and any symbol transitions are
+     * followed too.
+     * @return The minimal DFA
+     */
+    private NFA determinize(CompiledNFA compiled, CharacterClass[] symbolGroups, boolean complement) {
+        int[] symbolClasses = new int[symbolGroups.length];
+        for (int k = 0; k < symbolGroups.length; k++) {
+            symbolClasses[k] = compiled.symbolClassOf(symbolGroups[k].getFirst(0));
         }
 
-        OwnSet<State> subsetStatesToBeInvestigated = new OwnSet();
-        subsetStatesToBeInvestigated.add(startingSubsetState);
-        OwnSet<State> investigatedSubsetStates = new OwnSet();
-
-        while (!subsetStatesToBeInvestigated.isEmpty()) {
-            State currentSubsetState = subsetStatesToBeInvestigated.any();
-            investigatedSubsetStates.add(currentSubsetState);
-            subsetStatesToBeInvestigated.remove(currentSubsetState);
-            OwnSet<State> NFAStates = setsOfStatesBySubsetStates.get(currentSubsetState);
+        IntSetTable setsOfStates = new IntSetTable();
+        int[][] transitions = new int[16][];
+        boolean[] accepting = new boolean[16];
+        SparseSet NFAStates = new SparseSet(compiled.getNumberOfStates());
+        SparseSet reachable = new SparseSet(compiled.getNumberOfStates());
+        int[] stack = new int[compiled.getNumberOfStates()];
 
-            for (Character symbol : allPossibleSymbols) {
+        compiled.startingStates(NFAStates, stack);
+        setsOfStates.intern(NFAStates);
+        accepting[0] = isAccepting(compiled, setsOfStates.get(0), complement);
 
-                OwnSet<State> reachableFromAny = new OwnSet();
+        // Subset states are numbered in the order they are discovered, so
+        // the ones not investigated yet are those after the current one.
+        for (int current = 0; current < setsOfStates.size(); current++) {
+            NFAStates.clear();
+            for (int s : setsOfStates.get(current)) {
+                NFAStates.add(s);
+            }
+            transitions[current] = new int[symbolGroups.length];
 
-                for (State NFAState : NFAStates) {
-                    OwnSet<State> reachableFromState = NFAState.getNextStatesForSymbol(symbol);
-                    dfa.addEpsilonTransitionsOfStates(reachableFromState);
-                    reachableFromAny.addAll(reachableFromState);
-                }
+            for (int k = 0; k < symbolGroups.length; k++) {
+                compiled.step(NFAStates, symbolClasses[k], !complement, reachable, stack);
 
                 //turn into one subset state
-                State nextSubsetState;
-
-                if (subsetStatesBySetsOfStates.containsKey(reachableFromAny)) {
-                    nextSubsetState = subsetStatesBySetsOfStates.get(reachableFromAny);
-                } else {
-                    nextSubsetState = new State(highestAvailable);
-                    highestAvailable--;
-                    subsetStatesBySetsOfStates.put(reachableFromAny, nextSubsetState);
-                    setsOfStatesBySubsetStates.put(nextSubsetState, reachableFromAny);
-                }
-                currentSubsetState.addNextStateForSymbol(symbol, nextSubsetState);
-
-                boolean acceptingState = true;
-                for (State s : reachableFromAny) {
-                    if (nfa.getAcceptingStates().contains(s)) {
-                        acceptingState = false;
-                        break;
+                int numberOfSubsetStates = setsOfStates.size();
+                int next = setsOfStates.intern(reachable);
+                if (next == numberOfSubsetStates) {
+                    if (next == transitions.length) {
+                        int[][] largerTransitions = new int[2 * next][];
+                        boolean[] largerAccepting = new boolean[2 * next];
+                        System.arraycopy(transitions, 0, largerTransitions, 0, next);
+                        System.arraycopy(accepting, 0, largerAccepting, 0, next);
+                        transitions = largerTransitions;
+                        accepting = largerAccepting;
                     }
+                    accepting[next] = isAccepting(compiled, setsOfStates.get(next), complement);
                 }
-                if (acceptingState) {
-                    dfa.getAcceptingStates().add(nextSubsetState);
-                }
-                if (!investigatedSubsetStates.contains(nextSubsetState)) {
-                    subsetStatesToBeInvestigated.add(nextSubsetState);
-                }
+                transitions[current][k] = next;
             }
         }
 
-        if (cacheEnabled) {
-            cache.put(nfa, dfa);
+        int numberOfSubsetStates = setsOfStates.size();
+        int[] blocks = DFAMinimizer.minimize(transitions, accepting, numberOfSubsetStates, symbolGroups.length);
+        NFA dfa = createDFA(transitions, accepting, blocks, symbolGroups);
+
+        return dfa;
+    }
+
+    /**
+     *
+     * @param complement Whether the DFA recognizes the complement language
+     * @return True if the subset state of the states is accepting
+     */
+    private static boolean isAccepting(CompiledNFA compiled, int[] states, boolean complement) {
+        if (complement) {
+            return acceptsNone(compiled, states);
+        }
+        return compiled.containsAcceptingState(states, states.length);
+    }
+
+    /**
+     *
+     * @return True if none of the states is an accepting state of the NFA
+     */
+    private static boolean acceptsNone(CompiledNFA compiled, int[] states) {
+        for (int s : states) {
+            if (compiled.isAccepting(s)) {
+                return false;
+            }
         }
+        return true;
+    }
 
+    /**
+     * Creates one state for each block of equivalent subset states.
+     *
+     * @param transitions Next subset state of each subset state and symbol
+     * group
+     * @param accepting Whether each subset state is accepting
+     * @param blocks Block of each subset state; the starting subset state is
+     * in block 0
+     * @param symbolGroups Symbols of each symbol group
+     * @return The minimal DFA
+     */
+    private NFA createDFA(int[][] transitions, boolean[] accepting, int[] blocks, CharacterClass[] symbolGroups) {
+        int numberOfBlocks = 0;
+        for (int block : blocks) {
+            numberOfBlocks = Math.max(numberOfBlocks, block + 1);
+        }
+        State[] states = new State[numberOfBlocks];
+        for (int i = 0; i < numberOfBlocks; i++) {
+            states[i] = new State(highestAvailable);
+            highestAvailable--;
+        }
+
+        NFA dfa = new NFA(states[0], new OwnSet());
+        boolean[] created = new boolean[numberOfBlocks];
+        for (int s = 0; s < blocks.length; s++) {
+            int block = blocks[s];
+            if (created[block]) {
+                continue;
+            }
+            created[block] = true;
+            State[] next = new State[symbolGroups.length];
+            for (int k = 0; k < symbolGroups.length; k++) {
+                next[k] = states[blocks[transitions[s][k]]];
+            }
+            addTransitions(states[block], symbolGroups, next);
+            if (accepting[s]) {
+                dfa.getAcceptingStates().add(states[block]);
+            }
+        }
         dfa.setIsDFA(true);
         return dfa;
     }
 
-    /** 
-     * 
-     * Begins caching
-     * 
+    /**
+     * Groups the possible symbols by their symbol class in the compiled
+     * automaton. The automaton treats the symbols of a group alike, so the
+     * subset construction needs to follow only one symbol of each group.
+     *
+     * @param compiled Compiled form of the automaton to be negated
+     * @return The symbols of each symbol class that has some of the possible
+     * symbols
      */
-    public void enableCaching() {
-        cacheEnabled = true;
-        if (cache == null) {
-            cache = new OwnMap();
+    private CharacterClass[] groupSymbols(CompiledNFA compiled) {
+        CharacterClass[] groups = new CharacterClass[compiled.getNumberOfClasses()];
+        int numberOfGroups = 0;
+        for (Character symbol : allPossibleSymbols) {
+            int k = compiled.symbolClassOf(symbol);
+            CharacterClass single = CharacterClass.of(symbol);
+            if (groups[k] == null) {
+                numberOfGroups++;
+            }
+            groups[k] = groups[k] == null ? single : groups[k].union(single);
+        }
+        CharacterClass[] result = new CharacterClass[numberOfGroups];
+        int i = 0;
+        for (CharacterClass group : groups) {
+            if (group != null) {
+                result[i++] = group;
+            }
         }
+        return result;
+    }
 
+    /**
+     * Groups every character by its symbol class in the compiled automaton.
+     *
+     * @param compiled Compiled automaton
+     * @return The characters of each symbol class that has any
+     */
+    private static CharacterClass[] groupAllSymbols(CompiledNFA compiled) {
+        CharacterClass[] groups = new CharacterClass[compiled.getNumberOfClasses()];
+        int numberOfGroups = 0;
+        int first = Character.MIN_VALUE;
+        while (first <= Character.MAX_VALUE) {
+            int k = compiled.symbolClassOf((char) first);
+            int last = first;
+            while (last < Character.MAX_VALUE && compiled.symbolClassOf((char) (last + 1)) == k) {
+                last++;
+            }
+            CharacterClass range = CharacterClass.range((char) first, (char) last);
+            if (groups[k] == null) {
+                numberOfGroups++;
+            }
+            groups[k] = groups[k] == null ? range : groups[k].union(range);
+            first = last + 1;
+        }
+        CharacterClass[] result = new CharacterClass[numberOfGroups];
+        int i = 0;
+        for (CharacterClass group : groups) {
+            if (group != null) {
+                result[i++] = group;
+            }
+        }
+        return result;
     }
 
-    /** 
-     * 
-     * Ends caching
-     * 
+    /**
+     * Adds one class transition for each distinct next subset state,
+     * labeled with the symbols of all the groups that lead there.
+     *
+     * @param subsetState State whose transitions are added
+     * @param symbolGroups Symbols of each symbol class
+     * @param nextSubsetStates Next subset state of each symbol group
      */
-    public void disableCaching() {
-        cacheEnabled = false;
+    private static void addTransitions(State subsetState, CharacterClass[] symbolGroups, State[] nextSubsetStates) {
+        for (int k = 0; k < nextSubsetStates.length; k++) {
+            if (nextSubsetStates[k] == null) {
+                continue;
+            }
+            CharacterClass label = symbolGroups[k];
+            for (int m = k + 1; m < nextSubsetStates.length; m++) {
+                if (nextSubsetStates[k].equals(nextSubsetStates[m])) {
+                    label = label.union(symbolGroups[m]);
+                    nextSubsetStates[m] = null;
+                }
+            }
+            subsetState.addNextStateForClass(label, nextSubsetStates[k]);
+        }
     }
 
 }
@@ -0,0 +1,192 @@
+package utils.generators;
+
+/**
+ *
+ * Minimizes deterministic finite automata with Hopcroft's partition
+ * refinement algorithm.
+ *
+ * <p>
+ * The states are first divided into two blocks, accepting and non-accepting.
+ * A block is split whenever some of its states move into a given block with
+ * some symbol and the others do not. Once no block can be split, the states
+ * of a block are equivalent: they accept exactly the same strings, and the
+ * block can be replaced with a single state. Each time a block is split, only
+ * the smaller half has to be used as a splitter for the symbols whose
+ * splitters are not pending already, which gives the time complexity
+ * O(kn log n) for n states and k symbols.
+ * </p>
+ * <p>
+ * The partition is stored as in the refinable partition structure of Valmari
+ * and Lehtinen: the states of each block are consecutive in one array, and
+ * the states of a block that have been marked are moved to its beginning.
+ * Splitting a block thus only changes the bounds of the blocks.
+ * </p>
+ *
+ */
+public class DFAMinimizer {
+
+    private DFAMinimizer() {
+    }
+
+    /**
+     * Finds the blocks of equivalent states.
+     *
+     * @param transitions transitions[s][a] is the state reached from the state
+     * s with the symbol a. Every state has a transition with every symbol.
+     * @param accepting Whether each state is accepting
+     * @param numberOfStates Number of states; every state should be reachable
+     * from state 0
+     * @param numberOfSymbols Number of symbols
+     * @return The block of each state. Blocks are numbered in the order of
+     * their first states, so state 0 is in block 0.
+     */
+    public static int[] minimize(int[][] transitions, boolean[] accepting, int numberOfStates, int numberOfSymbols) {
+        int n = numberOfStates;
+
+        // Predecessors of state t with symbol a are
+        // predecessors[predecessorOffsets[a * (n + 1) + t]], ...
+        int[] predecessorOffsets = new int[numberOfSymbols * (n + 1) + 1];
+        for (int s = 0; s < n; s++) {
+            for (int a = 0; a < numberOfSymbols; a++) {
+                predecessorOffsets[a * (n + 1) + transitions[s][a] + 1]++;
+            }
+        }
+        for (int i = 1; i < predecessorOffsets.length; i++) {
+            predecessorOffsets[i] += predecessorOffsets[i - 1];
+        }
+        int[] predecessors = new int[n * numberOfSymbols];
+        int[] filled = predecessorOffsets.clone();
+        for (int s = 0; s < n; s++) {
+            for (int a = 0; a < numberOfSymbols; a++) {
+                predecessors[filled[a * (n + 1) + transitions[s][a]]++] = s;
+            }
+        }
+
+        // The states of block b are elements[first[b]], ...,
+        // elements[end[b] - 1], and the marked ones come first.
+        int[] elements = new int[n];
+        int[] location = new int[n];
+        int[] block = new int[n];
+        int[] first = new int[n];
+        int[] end = new int[n];
+        int[] marked = new int[n];
+        int numberOfBlocks = 0;
+
+        int acceptingCount = 0;
+        for (int s = 0; s < n; s++) {
+            if (accepting[s]) {
+                acceptingCount++;
+            }
+        }
+        int nextAccepting = 0;
+        int nextRejecting = acceptingCount;
+        for (int s = 0; s < n; s++) {
+            int idx = accepting[s] ? nextAccepting++ : nextRejecting++;
+            elements[idx] = s;
+            location[s] = idx;
+        }
+        if (acceptingCount > 0) {
+            first[numberOfBlocks] = 0;
+            end[numberOfBlocks] = acceptingCount;
+            numberOfBlocks++;
+        }
+        if (acceptingCount < n) {
+            first[numberOfBlocks] = acceptingCount;
+            end[numberOfBlocks] = n;
+            numberOfBlocks++;
+        }
+        for (int b = 0; b < numberOfBlocks; b++) {
+            for (int i = first[b]; i < end[b]; i++) {
+                block[elements[i]] = b;
+            }
+        }
+
+        // Pending splitters (block, symbol)
+        boolean[] pending = new boolean[n * numberOfSymbols];
+        int[] worklist = new int[n * numberOfSymbols];
+        int pendingCount = 0;
+        if (numberOfBlocks == 2) {
+            int smaller = end[0] - first[0] <= end[1] - first[1] ? 0 : 1;
+            for (int a = 0; a < numberOfSymbols; a++) {
+                pending[smaller * numberOfSymbols + a] = true;
+                worklist[pendingCount++] = smaller * numberOfSymbols + a;
+            }
+        }
+
+        int[] splitter = new int[n];
+        int[] touched = new int[n];
+        while (pendingCount > 0) {
+            int pair = worklist[--pendingCount];
+            pending[pair] = false;
+            int b = pair / numberOfSymbols;
+            int a = pair % numberOfSymbols;
+
+            // Marking may reorder the splitter itself, so copy it first
+            int splitterSize = end[b] - first[b];
+            System.arraycopy(elements, first[b], splitter, 0, splitterSize);
+            int touchedCount = 0;
+            for (int i = 0; i < splitterSize; i++) {
+                int t = splitter[i];
+                int row = a * (n + 1) + t;
+                for (int j = predecessorOffsets[row]; j < predecessorOffsets[row + 1]; j++) {
+                    int s = predecessors[j];
+                    int c = block[s];
+                    int firstUnmarked = first[c] + marked[c];
+                    if (location[s] < firstUnmarked) {
+                        continue;
+                    }
+                    if (marked[c] == 0) {
+                        touched[touchedCount++] = c;
+                    }
+                    int other = elements[firstUnmarked];
+                    elements[location[s]] = other;
+                    location[other] = location[s];
+                    elements[firstUnmarked] = s;
+                    location[s] = firstUnmarked;
+                    marked[c]++;
+                }
+            }
+
+            for (int i = 0; i < touchedCount; i++) {
+                int c = touched[i];
+                int size = end[c] - first[c];
+                if (marked[c] == size) {
+                    marked[c] = 0;
+                    continue;
+                }
+                // The marked states form a new block
+                int d = numberOfBlocks++;
+                first[d] = first[c];
+                end[d] = first[c] + marked[c];
+                first[c] = end[d];
+                marked[c] = 0;
+                for (int j = first[d]; j < end[d]; j++) {
+                    block[elements[j]] = d;
+                }
+                int smaller = end[d] - first[d] <= end[c] - first[c] ? d : c;
+                for (int x = 0; x < numberOfSymbols; x++) {
+                    int added = pending[c * numberOfSymbols + x] ? d : smaller;
+                    if (!pending[added * numberOfSymbols + x]) {
+                        pending[added * numberOfSymbols + x] = true;
+                        worklist[pendingCount++] = added * numberOfSymbols + x;
+                    }
+                }
+            }
+        }
+
+        // Renumber the blocks in the order of their first states
+        int[] number = new int[numberOfBlocks];
+        for (int b = 0; b < numberOfBlocks; b++) {
+            number[b] = -1;
+        }
+        int[] result = new int[n];
+        int count = 0;
+        for (int s = 0; s < n; s++) {
+            if (number[block[s]] == -1) {
+                number[block[s]] = count++;
+            }
+            result[s] = number[block[s]];
+        }
+        return result;
+    }
+}
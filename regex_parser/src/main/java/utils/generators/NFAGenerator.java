@@ -1,11 +1,13 @@
 package utils.generators;
 
 import utils.structures.OwnSet;
-import utils.structures.OwnMap;
+import utils.structures.LRUCache;
+import domain.CharacterClass;
 import domain.NFA;
+import domain.ShiftAndNFA;
 import domain.State;
-import utils.structures.OwnStack;
-import utils.PatternProcessor;
+import utils.RegexNode;
+import utils.RegexParser;
 import utils.Utilities;
 
 /**
@@ -16,13 +18,26 @@ import utils.Utilities;
  */
 public class NFAGenerator {
 
+    /**
+     * Largest number of automata kept in the cache by default.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 256;
+
+    /**
+     * Largest total number of compiled states of the automata kept in the
+     * cache by default.
+     */
+    public static final long DEFAULT_CACHE_WEIGHT = 1000000;
+
     /**
      *
      * Store for already constructed automata. If the same regular expression is
-     * used more than once, the resulting NFA is quickly accessible.
+     * used more than once, the resulting NFA is quickly accessible. The least
+     * recently used automata are evicted when there are too many of them or
+     * they have too many states in total.
      *
      */
-    private OwnMap<String, NFA> cache;
+    private final LRUCache<String, NFA> cache;
 
     /**
      * Tells whether cache is used to potentially speed up generation.
@@ -34,26 +49,17 @@ public class NFAGenerator {
      * The allowed symbols in the input that are not control characters.
      *
      */
-    private OwnSet<Character> alphabet;
+    private volatile OwnSet<Character> alphabet;
 
     /**
      * Set containing supported operations symbols.
      */
     private OwnSet<Character> operations;
     /**
-     * Lowest positive integer that is not the id of any created state.
+     * Whether automata are built with Glushkov's construction instead of
+     * Thompson's, whenever the pattern has no negations.
      */
-    private int lowestAvailableId;
-    /**
-     * Utility class for preprocessing input patterns
-     */
-    private PatternProcessor patternProcessor;
-
-    /**
-     * A generator that offers tools for creating automata for the complement
-     * languages of other automata.
-     */
-    private DFAGenerator dfaGenerator;
+    private volatile boolean glushkovEnabled;
 
     /**
      * Sets cache on by as the default.
@@ -69,327 +75,672 @@ public class NFAGenerator {
      * @param cache_enabled Whether cache should be used or not.
      */
     public NFAGenerator(boolean cache_enabled) {
+        this(cache_enabled, DEFAULT_CACHE_SIZE, DEFAULT_CACHE_WEIGHT);
+    }
 
-        this.cache = new OwnMap();
+    /**
+     *
+     * Initializes all the necessary constructs with the given cache limits.
+     *
+     * @param cache_enabled Whether cache should be used or not.
+     * @param maxCachedAutomata Largest number of automata in the cache
+     * @param maxCachedStates Largest total number of compiled states of the
+     * automata in the cache
+     */
+    public NFAGenerator(boolean cache_enabled, int maxCachedAutomata, long maxCachedStates) {
+
+        this.cache = new LRUCache<>(maxCachedAutomata, maxCachedStates, new LRUCache.Weigher<NFA>() {
+            @Override
+            public long weigh(NFA nfa) {
+                return nfa.compile().getNumberOfStates();
+            }
+        });
         this.cacheEnabled = cache_enabled;
 
         this.alphabet = Utilities.defaultAlphabet();
 
         this.operations = Utilities.defaultBasicOperations();
-        this.patternProcessor = new PatternProcessor();
-        dfaGenerator = new DFAGenerator(-1);
     }
 
     /**
      *
      * Constructs an automaton from a regular expression expressed as string
      * 
-     * <p>First preprocesses the pattern to contain only a few operations and
-     * alphabet symbols. Then the string is scanned once. Each alphabet symbol
-     * puts a simple NFA onto the automaton stack, and each operational symbol 
-     * puts an operation symbol to the operation stack. The contents of the
-     * operation stack are evaluated in the order of their priority and recency.</p>
+     * <p>First the pattern is parsed into a syntax tree with RegexParser.
+     * Then the automaton is built from the tree bottom-up with Thompson's
+     * construction: each symbol becomes a simple NFA, and each operation
+     * unites or otherwise modifies the automata of its children into a more
+     * complex one. A range, or a union of single symbols and ranges, becomes
+     * one transition labeled with a character class, so that a-z has two
+     * states instead of 54.</p>
+     * 
+     * <p>If Glushkov's construction is enabled and the pattern has no
+     * negations, the automaton is built with buildGlushkov instead.</p>
      * 
-     * <p>Each operation unites or otherwise modifies simpler automata in the
-     * automaton stack into more complex ones, and places them back on the top of the stack.
-     * After the whole string has been scanned, the rest of the operations
-     * in the operation stack are evaluated. Only the automaton equal to the
-     * whole regular expression lies in the automaton stack afterwards.</p>
+     * <p>If the resulting automaton has at most ShiftAndNFA.MAX_POSITIONS
+     * symbol transitions, Shift-And simulation is enabled for it.</p>
      * 
      * @param pattern Pattern that guides the construction of the automaton.
      * @return NFA that recognizes the correct language.
+     * @throws IllegalArgumentException If the pattern is not valid
      */
     public NFA generateNFA(String pattern) {
-        pattern = patternProcessor.elongateRegularExpression(pattern);   
-        if (cacheEnabled && cache.containsKey(pattern)) {
-            return cache.get(pattern);
+        if (!cacheEnabled) {
+            return construct(pattern);
         }
+        return cache.get(pattern, new LRUCache.Loader<String, NFA>() {
+            @Override
+            public NFA load(String original) {
+                return construct(original);
+            }
+        });
+    }
 
-        lowestAvailableId = 0;
-        OwnStack<Character> operationStack = new OwnStack();
-        OwnStack<NFA> NFAStack = new OwnStack();
+    /**
+     * Parses a pattern and constructs its automaton.
+     *
+     * <p>Every call gets a parser and a Construction of its own, so threads
+     * that share the generator construct different patterns at the same
+     * time.</p>
+     *
+     * @param pattern Pattern
+     * @return NFA that recognizes the correct language.
+     */
+    private NFA construct(String pattern) {
+        RegexNode root = new RegexParser(alphabet).parse(pattern);
+        Construction construction = new Construction();
+        NFA result = glushkovEnabled && !containsComplement(root)
+                ? construction.buildGlushkov(root) : construction.build(root);
+        if (ShiftAndNFA.fits(result.compile())) {
+            result.enableShiftAndSimulation();
+        }
+        return result;
+    }
+
+    /**
+     * Builds the automaton of a syntax tree with Thompson's construction.
+     *
+     * @param node Root of the tree
+     * @return NFA that recognizes the language of the tree
+     */
+    public NFA build(RegexNode node) {
+        return new Construction().build(node);
+    }
 
-        for (int i = 0; i < pattern.length(); i++) {
-            char currentSymbol = pattern.charAt(i);
+    /**
+     * Builds the automaton of a syntax tree with Glushkov's construction.
+     *
+     * @param node Root of the tree, without complement nodes
+     * @return NFA that recognizes the language of the tree
+     */
+    public NFA buildGlushkov(RegexNode node) {
+        return new Construction().buildGlushkov(node);
+    }
 
-            if (currentSymbol == '/') {
-                NFAStack.push(generateNFAFromOneSymbol(pattern.charAt(i + 1)));
-                i++;
-                continue;
+    /**
+     * Creates a simple NFA that recognizes only the input symbol.
+     *
+     * @param symbol Character that the NFA must accept
+     * @return NFA that has two states: starting state, and accepting state,
+     * which can be reached only by the input symbol.
+     */
+    public NFA generateNFAFromOneSymbol(char symbol) {
+        return new Construction().generateNFAFromOneSymbol(symbol);
+    }
+
+    /**
+     * Creates a simple NFA that recognizes any single symbol of the class.
+     *
+     * @param characterClass Characters that the NFA must accept
+     * @return NFA that has two states: starting state, and accepting state,
+     * which can be reached with one transition labeled by the class.
+     */
+    public NFA generateNFAFromCharacterClass(CharacterClass characterClass) {
+        return new Construction().generateNFAFromCharacterClass(characterClass);
+    }
+
+    /**
+     * Creates the simplest NFA that accepts only empty string.
+     *
+     * @return NFA that has its accepting state as starting state. There is only
+     * one state in total.
+     */
+    public NFA generateNFAFromEmptyString() {
+        return new Construction().generateNFAFromEmptyString();
+    }
+
+    /**
+     * The mutable state of building one automaton: the id counter of the
+     * states and the generator of complement automata.
+     *
+     * <p>A new Construction is used for every pattern, so the ids of the
+     * states of one automaton are unique, and constructions in different
+     * threads share nothing.</p>
+     */
+    private static final class Construction {
+
+        /**
+         * Lowest positive integer that is not the id of any created state.
+         */
+        private int lowestAvailableId;
+
+        /**
+         * A generator that offers tools for creating automata for the
+         * complement languages of other automata. Created when the first
+         * complement is built.
+         */
+        private DFAGenerator dfaGenerator;
+
+        /**
+         *
+         * @return A new state with the lowest available id
+         */
+        private State newState() {
+            State state = new State(lowestAvailableId);
+            lowestAvailableId++;
+            return state;
+        }
+
+        /**
+         *
+         * @param nfa Automaton that is to be negated
+         * @return Automaton of the complement language
+         */
+        private NFA complement(NFA nfa) {
+            if (dfaGenerator == null) {
+                dfaGenerator = new DFAGenerator(-1);
             }
+            return dfaGenerator.generateComplementDFA(nfa);
+        }
 
-            if (currentSymbol == '#') {
-                NFAStack.push(generateNFAFromEmptySymbol());
+        /**
+         * Builds the automaton of a syntax tree.
+         *
+         * <p>The recursion goes as deep as the tree; concatenations and unions
+         * of many parts are single nodes, and the copies of a repeated part are
+         * built in a loop.</p>
+         *
+         * @param node Root of the tree
+         * @return NFA that recognizes the language of the tree
+         */
+        NFA build(RegexNode node) {
+            switch (node.getType()) {
+                case SYMBOL:
+                    return generateNFAFromOneSymbol(node.getSymbol());
+                case CLASS:
+                    return generateNFAFromCharacterClass(node.getCharacterClass());
+                case ANY:
+                    return generateNFAFromAnySingleSymbol();
+                case EMPTY:
+                    return generateNFAFromEmptySymbol();
+                case NOTHING:
+                    return generateNFAFromNothing();
+                case CONCATENATION: {
+                    RegexNode[] children = node.getChildren();
+                    NFA result = build(children[0]);
+                    for (int i = 1; i < children.length; i++) {
+                        result = concatenate(result, build(children[i]));
+                    }
+                    return result;
+                }
+                case UNION: {
+                    RegexNode[] children = node.getChildren();
+                    CharacterClass characterClass = unionOfSymbols(children);
+                    if (characterClass != null) {
+                        return generateNFAFromCharacterClass(characterClass);
+                    }
+                    NFA[] alternatives = new NFA[children.length];
+                    for (int i = 0; i < children.length; i++) {
+                        alternatives[i] = build(children[i]);
+                    }
+                    return unite(alternatives);
+                }
+                case STAR:
+                    return star(build(node.getChild()));
+                case COMPLEMENT:
+                    return complement(build(node.getChild()));
+                default:
+                    return repeat(node.getChild(), node.getMin(), node.getMax());
             }
+        }
 
-            if (currentSymbol == '.') {
-                NFAStack.push(generateNFAFromAnySingleSymbol());
+        /**
+         * Builds the automaton of a syntax tree with Glushkov's construction.
+         *
+         * <p>Every symbol, character class and '.' of the pattern is a position,
+         * and the automaton has one state for each position and a starting
+         * state. The transitions into the state of a position read the symbol
+         * of the position, and they come from the positions that can precede it:
+         * the last positions of a part lead to the first positions of the part
+         * that follows it, and the last positions of a starred part lead back to
+         * its first positions. The automaton has no empty transitions, so the
+         * simulation never has to compute epsilon closures. On the other hand a
+         * starred union of n alternatives has n * n transitions, where Thompson's
+         * construction has a linear number.</p>
+         *
+         * <p>Negation has no counterpart in the construction; trees with
+         * complement nodes must be built with build.</p>
+         *
+         * @param node Root of the tree, without complement nodes
+         * @return NFA that recognizes the language of the tree
+         */
+        NFA buildGlushkov(RegexNode node) {
+            Fragment root = glushkov(node);
+            State start = newState();
+            connect(new State[]{start}, root.first);
+            OwnSet<State> acceptingStates = new OwnSet();
+            for (State s : root.last) {
+                acceptingStates.add(s);
             }
+            if (root.nullable) {
+                acceptingStates.add(start);
+            }
+            return new NFA(start, acceptingStates);
+        }
 
-            if (alphabet.contains(currentSymbol)) {
-                NFAStack.push(generateNFAFromOneSymbol(currentSymbol));
+        private Fragment glushkov(RegexNode node) {
+            switch (node.getType()) {
+                case SYMBOL:
+                case CLASS:
+                case ANY: {
+                    State s = newState();
+                    return new Fragment(false, new Position[]{new Position(s, node)}, new State[]{s});
+                }
+                case EMPTY:
+                    return new Fragment(true, Fragment.NO_POSITIONS, Fragment.NO_STATES);
+                case NOTHING:
+                    return new Fragment(false, Fragment.NO_POSITIONS, Fragment.NO_STATES);
+                case CONCATENATION: {
+                    RegexNode[] children = node.getChildren();
+                    Fragment result = glushkov(children[0]);
+                    for (int i = 1; i < children.length; i++) {
+                        result = follow(result, glushkov(children[i]));
+                    }
+                    return result;
+                }
+                case UNION: {
+                    CharacterClass characterClass = unionOfSymbols(node.getChildren());
+                    if (characterClass != null) {
+                        return glushkov(RegexNode.characterClass(characterClass));
+                    }
+                    RegexNode[] children = node.getChildren();
+                    Fragment result = glushkov(children[0]);
+                    for (int i = 1; i < children.length; i++) {
+                        Fragment alternative = glushkov(children[i]);
+                        result = new Fragment(result.nullable || alternative.nullable,
+                                join(result.first, alternative.first), join(result.last, alternative.last));
+                    }
+                    return result;
+                }
+                case STAR:
+                    return loop(glushkov(node.getChild()));
+                case COMPLEMENT:
+                    throw new IllegalArgumentException("Glushkov's construction does not support negation");
+                default:
+                    return repeatGlushkov(node.getChild(), node.getMin(), node.getMax());
             }
+        }
 
-            if (operations.contains(currentSymbol)) {
+        /**
+         * Repetition in the same shape as in repeat: min copies, followed by a
+         * starred copy or by max - min nested optional copies.
+         */
+        private Fragment repeatGlushkov(RegexNode child, int min, int max) {
+            Fragment result = null;
+            for (int i = 0; i < min; i++) {
+                result = result == null ? glushkov(child) : follow(result, glushkov(child));
+            }
+            Fragment rest;
+            if (max == -1) {
+                rest = loop(glushkov(child));
+            } else if (max > min) {
+                rest = optional(glushkov(child));
+                for (int i = min + 1; i < max; i++) {
+                    rest = optional(follow(glushkov(child), rest));
+                }
+            } else {
+                return result == null ? new Fragment(true, Fragment.NO_POSITIONS, Fragment.NO_STATES) : result;
+            }
+            return result == null ? rest : follow(result, rest);
+        }
 
-                while (operationStack.peek() != null && hasPrecedence(operationStack.peek(), currentSymbol)) {
-                    evaluate(operationStack, NFAStack);
+        /**
+         * Builds the automaton of a repetition.
+         *
+         * <p>The child is built min times and concatenated. If there is no
+         * upper limit, one more copy with Kleene star follows. Otherwise the max
+         * - min optional copies are nested so that they share their ends: a[2,4]
+         * becomes aa(a(a|#)|#). The automaton thus grows linearly in max.</p>
+         *
+         * @param child Repeated part
+         * @param min Smallest number of repetitions
+         * @param max Largest number of repetitions, or -1 for no limit
+         * @return NFA that recognizes the repetition
+         */
+        private NFA repeat(RegexNode child, int min, int max) {
+            NFA result = null;
+            for (int i = 0; i < min; i++) {
+                result = result == null ? build(child) : concatenate(result, build(child));
+            }
+            NFA rest;
+            if (max == -1) {
+                rest = star(build(child));
+            } else if (max > min) {
+                rest = unite(build(child), generateNFAFromEmptySymbol());
+                for (int i = min + 1; i < max; i++) {
+                    rest = unite(concatenate(build(child), rest), generateNFAFromEmptySymbol());
                 }
+            } else {
+                return result == null ? generateNFAFromEmptySymbol() : result;
+            }
+            return result == null ? rest : concatenate(result, rest);
+        }
 
-                operationStack.push(currentSymbol);
+        /**
+         * Kleene star: a new starting state and a new accepting state, with
+         * empty transitions around and back over the automaton.
+         *
+         * @param nfa Automaton to be repeated
+         * @return The modified automaton
+         */
+        private NFA star(NFA nfa) {
+            State newStart = newState();
+            State newFinish = newState();
+            OwnSet<State> newAcceptingStates = new OwnSet();
+            newAcceptingStates.add(newFinish);
+            newStart.addStatesReachableWithoutSymbols(nfa.getStartingState());
+            newStart.addStatesReachableWithoutSymbols(newFinish);
+            
+            for (State fState : nfa.getAcceptingStates()) {
+                fState.addStatesReachableWithoutSymbols(nfa.getStartingState());
+                fState.addStatesReachableWithoutSymbols(newFinish);
+            }
+            nfa.setStartingState(newStart);
+            nfa.setAcceptingStates(newAcceptingStates);
+            return nfa;
+        }
 
+        /**
+         * Union: a new starting state with empty transitions to the starting
+         * states of the alternatives, and a new accepting state reached with
+         * empty transitions from their accepting states.
+         *
+         * @param alternatives Automata of the alternatives
+         * @return NFA that recognizes the union
+         */
+        private NFA unite(NFA... alternatives) {
+            State start = newState();
+            State finish = newState();
+
+            for (NFA alternative : alternatives) {
+                start.addStatesReachableWithoutSymbols(alternative.getStartingState());
+                for (State s : alternative.getAcceptingStates()) {
+                    s.addStatesReachableWithoutSymbols(finish);
+                }
             }
 
+            OwnSet<State> acceptingStates = new OwnSet();
+            acceptingStates.add(finish);
+            return new NFA(start, acceptingStates);
         }
 
-        while (!operationStack.isEmpty()) {
-            evaluate(operationStack, NFAStack);
-        }
-        NFA result = NFAStack.pop();
-        if (cacheEnabled) {
-            cache.put(pattern, result);
+        /**
+         * Concatenation: empty transitions from the accepting states of the
+         * first automaton to the starting state of the second.
+         *
+         * @param first Automaton of the first part
+         * @param second Automaton of the second part
+         * @return NFA that recognizes the concatenation
+         */
+        private NFA concatenate(NFA first, NFA second) {
+            for (State s : first.getAcceptingStates()) {
+                s.addStatesReachableWithoutSymbols(second.getStartingState());
+            }
+            return new NFA(first.getStartingState(), second.getAcceptingStates());
         }
-        return result;
 
-    }
-
-    /**
-     *
-     * Processes the topmost operation of the stack
-     *
-     * <p>
-     * Depending on the operation one or more operands are popped off the stack.
-     * From them a new NFA is created according to the rules of the popped
-     * operation symbol. The created NFA is then pushed onto the NFA stack.
-     * </p>
-     *
-     * @param operationStack stack of operations
-     * @param automatonStack stack of operands for the operations
-     * @return true if the operation symbol is valid and there are enough
-     * operands to be popped. False if a failure is encountered.
-     */
-    public boolean evaluate(OwnStack<Character> operationStack, OwnStack<NFA> automatonStack) {
-        if (operationStack.peek() == null) {
-            return false;
+        /**
+         * Creates a simple NFA that recognizes only the input symbol.
+         *
+         * @param symbol Character that the NFA must accept
+         * @return NFA that has two states: starting state, and accepting state,
+         * which can be reached only by the input symbol.
+         */
+        NFA generateNFAFromOneSymbol(char symbol) {
+            State s0 = newState();
+            State s1 = newState();
+            OwnSet<State> finishingStates = new OwnSet();
+            finishingStates.add(s1);
+            s0.addNextStateForSymbol(symbol, s1);
+            NFA result = new NFA(s0, finishingStates);
+            return result;
         }
-        char operation = operationStack.pop();
-        NFA result = new NFA();
 
-        if (operation == '&') {
-            evaluateConcatenation(automatonStack, result);
+        /**
+         * Creates a simple NFA that recognizes any single symbol of the class.
+         *
+         * @param characterClass Characters that the NFA must accept
+         * @return NFA that has two states: starting state, and accepting state,
+         * which can be reached with one transition labeled by the class.
+         */
+        NFA generateNFAFromCharacterClass(CharacterClass characterClass) {
+            State s0 = newState();
+            State s1 = newState();
+            OwnSet<State> finishingStates = new OwnSet();
+            finishingStates.add(s1);
+            s0.addNextStateForClass(characterClass, s1);
+            return new NFA(s0, finishingStates);
         }
-        if (operation == '|') {
-            evaluateUnion(automatonStack, result);
-        }
-        if (operation == '*') {
-            result = evaluateKleeneStar(result, automatonStack);
+
+        /**
+         * Creates a simple NFA that recognizes only empty input
+         * 
+         * @return Simple NFA
+         */
+        private NFA generateNFAFromEmptySymbol(){
+            State s0 = newState();
+            State s1 = newState();
+            OwnSet<State> finishingStates = new OwnSet();
+            finishingStates.add(s1);
+            s0.addStatesReachableWithoutSymbols(s1);
+            NFA result = new NFA(s0, finishingStates);
+            return result;
         }
-        if (operation == ')') {
-            evaluateParentheses(operationStack, automatonStack);
-            return true;
+
+        /**
+         * Creates a simple NFA that recognizes nothing: its accepting state
+         * cannot be reached.
+         *
+         * @return Simple NFA
+         */
+        private NFA generateNFAFromNothing() {
+            State s0 = newState();
+            State s1 = newState();
+            OwnSet<State> finishingStates = new OwnSet();
+            finishingStates.add(s1);
+            return new NFA(s0, finishingStates);
         }
-        if (operation == '!') {
-            result = dfaGenerator.generateComplementDFA(automatonStack.pop());
+
+        /**
+         * Creates a simple NFA that recognizes any single character
+         * 
+         * @return Simple NFA
+         */
+        private NFA generateNFAFromAnySingleSymbol() {
+            State s0 = newState();
+            State s1 = newState();
+            OwnSet<State> finishingStates = new OwnSet();
+            finishingStates.add(s1);
+            s0.addStatesReachableWithAnyCharacter(s1);
+            NFA result = new NFA(s0, finishingStates);
+            return result;
         }
-        automatonStack.push(result);
-        return true;
-    }
 
-    /**
-     * Evaluates everything in the operation stack before opening parenthesis.
-     * The NFA created from the last operation will be on top of the automaton
-     * stack at the end.
-     *
-     * @param operationStack
-     * @param automatonStack
-     */
-    private void evaluateParentheses(OwnStack<Character> operationStack, OwnStack<NFA> automatonStack) {
-        while (operationStack.peek() != '(') {
-            evaluate(operationStack, automatonStack);
+        /**
+         * Creates the simplest NFA that accepts only empty string.
+         *
+         * @return NFA that has its accepting state as starting state. There is only
+         * one state in total.
+         */
+        NFA generateNFAFromEmptyString() {
+            State s = newState();
+            OwnSet<State> acceptingStates = new OwnSet();
+            acceptingStates.add(s);
+            NFA result = new NFA(s, acceptingStates);
+            return result;
         }
-        operationStack.pop();
     }
 
     /**
-     * Evaluates Kleene star and returns the resulting NFA.
-     *
-     * @param result
-     * @param automatonStack
-     * @return
-     */
-    private NFA evaluateKleeneStar(NFA result, OwnStack<NFA> automatonStack) {
-        result = automatonStack.pop();
-        State newStart = new State(lowestAvailableId);
-        lowestAvailableId++;
-        State newFinish = new State(lowestAvailableId);
-        lowestAvailableId++;
-        OwnSet<State> newAcceptingStates = new OwnSet();
-        newAcceptingStates.add(newFinish);
-        newStart.addStatesReachableWithoutSymbols(result.getStartingState());
-        newStart.addStatesReachableWithoutSymbols(newFinish);
-        
-        for (State fState : result.getAcceptingStates()) {
-            fState.addStatesReachableWithoutSymbols(result.getStartingState());
-            fState.addStatesReachableWithoutSymbols(newFinish);
+     * A part of a pattern in Glushkov's construction.
+     */
+    private static final class Fragment {
+
+        private static final Position[] NO_POSITIONS = new Position[0];
+        private static final State[] NO_STATES = new State[0];
+
+        /**
+         * Whether the part matches the empty string.
+         */
+        final boolean nullable;
+
+        /**
+         * Positions that can begin a match of the part.
+         */
+        final Position[] first;
+
+        /**
+         * States of the positions that can end a match of the part.
+         */
+        final State[] last;
+
+        Fragment(boolean nullable, Position[] first, State[] last) {
+            this.nullable = nullable;
+            this.first = first;
+            this.last = last;
         }
-        result.setStartingState(newStart);
-        result.setAcceptingStates(newAcceptingStates);
-        return result;
     }
 
     /**
-     * Evaluates the union operation by popping the two automata on top of the
-     * automaton stack.
-     *
-     * @param automatonStack
-     * @param result
+     * The state of a position and the leaf whose symbol it reads.
      */
-    private void evaluateUnion(OwnStack<NFA> automatonStack, NFA result) {
-        NFA second = automatonStack.pop();
-        NFA first = automatonStack.pop();
-
-        State start = new State(lowestAvailableId);
-        lowestAvailableId++;
-        State finish = new State(lowestAvailableId);
-        lowestAvailableId++;
+    private static final class Position {
 
-        start.addStatesReachableWithoutSymbols(first.getStartingState());
-        start.addStatesReachableWithoutSymbols(second.getStartingState());
+        final State state;
+        final RegexNode leaf;
 
-        for (State s : first.getAcceptingStates()) {
-            s.addStatesReachableWithoutSymbols(finish);
+        Position(State state, RegexNode leaf) {
+            this.state = state;
+            this.leaf = leaf;
         }
-
-        for (State s : second.getAcceptingStates()) {
-            s.addStatesReachableWithoutSymbols(finish);
-        }
-
-        OwnSet<State> acceptingStates = new OwnSet();
-        acceptingStates.add(finish);
-        result.setStartingState(start);
-        result.setAcceptingStates(acceptingStates);
     }
 
     /**
-     * Evaluates concatenation operation. Since stacks are LIFO, the second
-     * operand is the topmost.
-     *
-     * @param automatonStack
-     * @param result
+     * Concatenation: the last positions of the first part are followed by
+     * the first positions of the second.
      */
-    private void evaluateConcatenation(OwnStack<NFA> automatonStack, NFA result) {
-        NFA second = automatonStack.pop();
-        NFA first = automatonStack.pop();
-
-        State start = first.getStartingState();
-        OwnSet<State> accepting = second.getAcceptingStates();
-
-        for (State s : first.getAcceptingStates()) {
-            s.addStatesReachableWithoutSymbols(second.getStartingState());
-        }
-        result.setStartingState(start);
-        result.setAcceptingStates(accepting);
+    private static Fragment follow(Fragment first, Fragment second) {
+        connect(first.last, second.first);
+        return new Fragment(first.nullable && second.nullable,
+                first.nullable ? join(first.first, second.first) : first.first,
+                second.nullable ? join(first.last, second.last) : second.last);
     }
 
     /**
-     *
-     * Helper method for evaluating the operations in the proper order.
-     *
-     * @param operation1 symbol for operation
-     * @param operation2 symbol for compared operation
-     * @return true if operation1 has precedence over operation2. Otherwise
-     * false.
+     * Kleene star: the last positions are followed by the first ones.
      */
-    public boolean hasPrecedence(char operation1, char operation2) {
+    private static Fragment loop(Fragment fragment) {
+        connect(fragment.last, fragment.first);
+        return optional(fragment);
+    }
 
-        if (operation1 == '*' && operation2 != '*') {
-            return true;
-        }
+    private static Fragment optional(Fragment fragment) {
+        return new Fragment(true, fragment.first, fragment.last);
+    }
 
-        if (operation1 == '&' && operation2 == '|') {
-            return true;
+    /**
+     * Adds a transition from each of the states to each of the positions,
+     * reading the symbol of the position.
+     */
+    private static void connect(State[] from, Position[] to) {
+        for (State s : from) {
+            for (Position p : to) {
+                switch (p.leaf.getType()) {
+                    case SYMBOL:
+                        s.addNextStateForSymbol(p.leaf.getSymbol(), p.state);
+                        break;
+                    case CLASS:
+                        s.addNextStateForClass(p.leaf.getCharacterClass(), p.state);
+                        break;
+                    default:
+                        s.addStatesReachableWithAnyCharacter(p.state);
+                }
+            }
         }
+    }
 
-        if (operation2 == '(') {
-            return false;
+    private static Position[] join(Position[] a, Position[] b) {
+        if (a.length == 0) {
+            return b;
         }
-        if (operation1 == ')') {
-            return true;
+        if (b.length == 0) {
+            return a;
         }
+        Position[] result = new Position[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
 
-        if (operation1 == '!') {
-            return true;
+    private static State[] join(State[] a, State[] b) {
+        if (a.length == 0) {
+            return b;
         }
-
-        return false;
+        if (b.length == 0) {
+            return a;
+        }
+        State[] result = new State[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
     }
 
     /**
-     * Creates a simple NFA that recognizes only the input symbol.
      *
-     * @param symbol Character that the NFA must accept
-     * @return NFA that has two states: starting state, and accepting state,
-     * which can be reached only by the input symbol.
+     * @return Whether the tree has a complement node
      */
-    public NFA generateNFAFromOneSymbol(char symbol) {
-        State s0 = new State(lowestAvailableId);
-        lowestAvailableId++;
-        State s1 = new State(lowestAvailableId);
-        lowestAvailableId++;
-        OwnSet<State> finishingStates = new OwnSet();
-        finishingStates.add(s1);
-        s0.addNextStateForSymbol(symbol, s1);
-        NFA result = new NFA(s0, finishingStates);
-        return result;
-    }
-    
-    
-    /**
-     * Creates a simple NFA that recognizes only empty input
-     * 
-     * @return Simple NFA
-     */
-    private NFA generateNFAFromEmptySymbol(){
-        State s0 = new State(lowestAvailableId);
-        lowestAvailableId++;
-        State s1 = new State(lowestAvailableId);
-        lowestAvailableId++;
-        OwnSet<State> finishingStates = new OwnSet();
-        finishingStates.add(s1);
-        s0.addStatesReachableWithoutSymbols(s1);
-        NFA result = new NFA(s0, finishingStates);
-        return result;
-    }
-
-    /**
-     * Creates a simple NFA that recognizes any single character
-     * 
-     * @return Simple NFA
-     */
-    private NFA generateNFAFromAnySingleSymbol() {
-        State s0 = new State(lowestAvailableId);
-        lowestAvailableId++;
-        State s1 = new State(lowestAvailableId);
-        lowestAvailableId++;
-        OwnSet<State> finishingStates = new OwnSet();
-        finishingStates.add(s1);
-        s0.addStatesReachableWithAnyCharacter(s1);
-        NFA result = new NFA(s0, finishingStates);
-        return result;
+    private static boolean containsComplement(RegexNode node) {
+        if (node.getType() == RegexNode.Type.COMPLEMENT) {
+            return true;
+        }
+        for (RegexNode child : node.getChildren()) {
+            if (containsComplement(child)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * Creates the simplest NFA that accepts only empty string.
+     * Combines alternatives that are all single symbols or character classes,
+     * such as a|b|x-z, into one class.
      *
-     * @return NFA that has its accepting state as starting state. There is only
-     * one state in total.
+     * @param alternatives Children of a union
+     * @return The class, or null if some alternative is something else
      */
-    public NFA generateNFAFromEmptyString() {
-        State s = new State(lowestAvailableId);
-        lowestAvailableId++;
-        OwnSet<State> acceptingStates = new OwnSet();
-        acceptingStates.add(s);
-        NFA result = new NFA(s, acceptingStates);
+    private static CharacterClass unionOfSymbols(RegexNode[] alternatives) {
+        CharacterClass result = null;
+        for (RegexNode alternative : alternatives) {
+            CharacterClass characterClass;
+            if (alternative.getType() == RegexNode.Type.SYMBOL) {
+                characterClass = CharacterClass.of(alternative.getSymbol());
+            } else if (alternative.getType() == RegexNode.Type.CLASS) {
+                characterClass = alternative.getCharacterClass();
+            } else {
+                return null;
+            }
+            result = result == null ? characterClass : result.union(characterClass);
+        }
         return result;
     }
 
@@ -406,7 +757,7 @@ public class NFAGenerator {
      * 
      * @param alphabet 
      */
-    public void setAlphabet(OwnSet<Character> alphabet) {
+    public synchronized void setAlphabet(OwnSet<Character> alphabet) {
         this.alphabet = alphabet;
     }
 
@@ -418,12 +769,38 @@ public class NFAGenerator {
         return operations;
     }
 
+    /**
+     * Build automata of patterns without negations with Glushkov's
+     * construction. The cache is emptied.
+     */
+    public synchronized void enableGlushkovConstruction() {
+        glushkovEnabled = true;
+        cache.clear();
+    }
+
+    /**
+     * Build all automata with Thompson's construction. The cache is emptied.
+     */
+    public synchronized void disableGlushkovConstruction() {
+        glushkovEnabled = false;
+        cache.clear();
+    }
+
+    /**
+     *
+     * @return Whether automata of patterns without negations are built with
+     * Glushkov's construction
+     */
+    public boolean usesGlushkovConstruction() {
+        return glushkovEnabled;
+    }
+
     /**
      *
      * @return Cache - all the automata that the generator has produced, if
      * cacheEnabled has been true.
      */
-    public OwnMap<String, NFA> getCache() {
+    public LRUCache<String, NFA> getCache() {
         return cache;
     }
 
@@ -0,0 +1,206 @@
+package utils.structures;
+
+/**
+ * Map from characters to values with open addressing.
+ *
+ * <p>
+ * The keys are stored as ints in one array and the values in a parallel
+ * array, so neither the keys nor the entries are objects: looking up a
+ * symbol does not box it and does not follow any references. Used for the
+ * symbol transitions of states, which usually have only one or two
+ * symbols. See OpenAddressing for the probing scheme.
+ * </p>
+ *
+ * @param <V> Type of the values
+ */
+public class CharMap<V> {
+
+    /**
+     * Key of a free slot. Every character is non-negative.
+     */
+    private static final int FREE = -1;
+
+    /**
+     * The character stored in each slot, or FREE.
+     */
+    private int[] keys;
+
+    /**
+     * Value of the key in the same slot.
+     */
+    private Object[] values;
+
+    /**
+     * Number of keys.
+     */
+    private int size;
+
+    /**
+     * Creates an empty map with the smallest capacity.
+     */
+    public CharMap() {
+        this(0);
+    }
+
+    /**
+     *
+     * @param expectedSize Number of keys the map can hold without growing
+     */
+    public CharMap(int expectedSize) {
+        allocate(OpenAddressing.capacityFor(expectedSize));
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            keys[i] = FREE;
+        }
+        values = new Object[capacity];
+        size = 0;
+    }
+
+    /**
+     * Finds the slot of the key, or the free slot where it would be stored.
+     */
+    private int slotOf(char key) {
+        int mask = keys.length - 1;
+        int i = OpenAddressing.mix(key) & mask;
+        while (keys[i] != FREE && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the value in the slot. Only values of type V are ever stored,
+     * so the cast cannot fail.
+     */
+    @SuppressWarnings("unchecked")
+    private V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    /**
+     *
+     * @param key Any character
+     * @return The value of the key, or null if the map has no such key
+     */
+    public V get(char key) {
+        return valueAt(slotOf(key));
+    }
+
+    /**
+     *
+     * @param key Any character
+     * @return True if the map has the key
+     */
+    public boolean containsKey(char key) {
+        return keys[slotOf(key)] != FREE;
+    }
+
+    /**
+     * Attaches the value to the key, replacing the earlier value of the key.
+     * Doubles the capacity first if the map would become more than half
+     * full.
+     *
+     * @param key Any character
+     * @param value Value of the key
+     * @return The earlier value of the key, or null if there was none
+     */
+    public V put(char key, V value) {
+        int i = slotOf(key);
+        if (keys[i] != FREE) {
+            V previous = valueAt(i);
+            values[i] = value;
+            return previous;
+        }
+        if (2 * (size + 1) > keys.length) {
+            grow();
+            i = slotOf(key);
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * Removes the key and shifts the keys after it in the same probe
+     * sequence backwards.
+     *
+     * @param key Any character
+     * @return The value of the removed key, or null if there was none
+     */
+    public V remove(char key) {
+        int i = slotOf(key);
+        if (keys[i] == FREE) {
+            return null;
+        }
+        V removed = valueAt(i);
+        int mask = keys.length - 1;
+        for (int j = (i + 1) & mask; keys[j] != FREE; j = (j + 1) & mask) {
+            int home = OpenAddressing.mix(keys[j]) & mask;
+            if (OpenAddressing.canShift(home, i, j, mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = FREE;
+        values[i] = null;
+        size--;
+        return removed;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(2 * oldKeys.length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = slotOf((char) oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                size++;
+            }
+        }
+    }
+
+    /**
+     *
+     * @return The keys in the order of their slots
+     */
+    public char[] keys() {
+        char[] result = new char[size];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                result[count++] = (char) keys[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     *
+     * @return Number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     *
+     * @return True if there are no keys
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all keys and restores the smallest capacity.
+     */
+    public void clear() {
+        allocate(OpenAddressing.MINIMUM_CAPACITY);
+    }
+}
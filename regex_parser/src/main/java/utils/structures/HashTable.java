@@ -40,6 +40,45 @@ public abstract class HashTable<K, V> {
      */
     protected int numOfElements;
 
+    /**
+     * Sum of the mixed hash codes of the stored keys.
+     *
+     * <p>The sum does not depend on the order in which the keys were stored
+     * or on the capacity, so equal tables have equal sums. It is updated
+     * whenever a key is added or removed, which makes hashCode O(1) and lets
+     * equals reject most unequal tables without looking at their
+     * elements.</p>
+     */
+    protected int keyHash;
+
+    /**
+     * Number of times keys have been added or removed or the table has been
+     * replaced. Iterators compare it with the value at their creation to
+     * detect modifications.
+     */
+    protected int modCount;
+
+    /**
+     * Whether the array of collision lists belongs to this table alone.
+     * 
+     * <p>A copy shares the array and the lists with the original until one
+     * of them is modified. Before the first modification the array is
+     * cloned, and before a list is modified for the first time, the list is
+     * copied; the lists that are never modified stay shared. Thus copying
+     * takes O(1) time, the first modification of either table takes time
+     * linear in the capacity, and neither table sees the modifications of
+     * the other.</p>
+     */
+    private boolean ownsTable = true;
+
+    /**
+     * Which collision lists belong to this table alone, or null if all of
+     * them do. Only used when ownsTable is true: a table that does not own
+     * its array owns none of the lists, and this array is allocated when
+     * the array of lists is cloned.
+     */
+    private boolean[] ownsList;
+
     /**
      * Default constructor that sets the capacity to 100. 
      */
@@ -95,6 +134,7 @@ public abstract class HashTable<K, V> {
             rehash();
         }
         int hashCode = scaledHashCode(node.getKey());        
+        prepareList(hashCode);
         if (table[hashCode] == null) {
             table[hashCode] = new OwnLinkedList();
         }
@@ -109,6 +149,8 @@ public abstract class HashTable<K, V> {
 
             table[hashCode].insert(node);
             numOfElements++;
+            modCount++;
+            keyHash += mixedHashCode(node.getKey());
         }
     }
 
@@ -123,10 +165,12 @@ public abstract class HashTable<K, V> {
      */
     public void remove(K key) {
         int hashCode = scaledHashCode(key);
-        OwnLinkedList<K, V> list = table[hashCode];
-        if (list != null) {
-            if (list.delete(key)) {
+        if (table[hashCode] != null) {
+            prepareList(hashCode);
+            if (table[hashCode].delete(key)) {
                 numOfElements--;
+                keyHash -= mixedHashCode(key);
+                modCount++;
             }
         }
     }
@@ -142,9 +186,13 @@ public abstract class HashTable<K, V> {
         this.capacity *= 2;
         OwnLinkedList<K, V>[] newTable = new OwnLinkedList[capacity];
         this.table = newTable;
+        ownsTable = true;
+        ownsList = null;
+        modCount++;
 
         //since each of the elements will be put with the new hash, each incrementing by one
         numOfElements = 0;
+        keyHash = 0;
 
         for (int i = 0; i < oldTable.length; i++) {
 
@@ -254,10 +302,10 @@ public abstract class HashTable<K, V> {
 
             PairNode<K, V> node = collisionList.getFirstNode();
             while (node != null) {
-                PairNode<K, V> nextNode = node.getNext();
-                this.put(node);
+                // a new node, so that the lists of the parameter stay intact
+                this.put(node.getKey(), node.getValue());
                 numOfAdded++;
-                node = nextNode;
+                node = node.getNext();
             }
 
             if (numOfAdded == toBeJoined.getNumOfElements()) {
@@ -288,62 +336,158 @@ public abstract class HashTable<K, V> {
      */
     public void clear() {
         numOfElements = 0;
+        keyHash = 0;
+        modCount++;
+        ownsTable = true;
+        ownsList = null;
         table = new OwnLinkedList[100];
         capacity = 100; 
     }
 
+    /**
+     * Spreads the hash code of the key before it is added to keyHash, so
+     * that the sum of similar keys, such as consecutive state ids, does not
+     * collide with the sums of other sets of keys.
+     *
+     * @param key Stored key
+     * @return Mixed hash code of the key
+     */
+    protected static int mixedHashCode(Object key) {
+        return OpenAddressing.mix(key.hashCode());
+    }
+
+    /**
+     *
+     * @param key Key that is searched for
+     * @return The node with the key, or null if there is none
+     */
+    protected PairNode<K, V> find(K key) {
+        OwnLinkedList<K, V> list = table[scaledHashCode(key)];
+        if (list == null) {
+            return null;
+        }
+        return list.search(key);
+    }
+
+    /**
+     * Tables are equal if they have the same keys and the same value for
+     * each key, regardless of their capacities and of the order in which
+     * the keys were stored.
+     *
+     * <p>Tables with different sizes or different sums of key hash codes
+     * are rejected in constant time. Otherwise each key of this table is
+     * looked up in the other one.</p>
+     *
+     * @param o Compared object
+     * @return True if the tables contain the same key-value pairs
+     */
     @Override
     public boolean equals(Object o) {
-        
+        if (o == this) {
+            return true;
+        }
         if (o == null || this.getClass() != o.getClass()) {
             return false;
         }
         HashTable<K, V> v = (HashTable<K, V>) o;
-        if (this.getCapacity() != v.getCapacity() || this.getNumOfElements() != v.getNumOfElements()) {
+        if (numOfElements != v.numOfElements || keyHash != v.keyHash) {
             return false;
         }
 
         for (int i = 0; i < table.length; i++) {
             if (table[i] == null) {
-                if (v.getTable()[i] != null && !v.getTable()[i].isEmpty()) {
-                    return false;
-                }
                 continue;
             }
-
-            if (v.getTable()[i] == null) {
-                if (table[i] != null && !table[i].isEmpty()) {
+            PairNode<K, V> node = table[i].getFirstNode();
+            while (node != null) {
+                PairNode<K, V> other = v.find(node.getKey());
+                if (other == null) {
                     return false;
                 }
-                continue;
-            }
-
-            if (!table[i].equals(v.getTable()[i])) {
-                return false;
+                V value = node.getValue();
+                if (value == null ? other.getValue() != null : !value.equals(other.getValue())) {
+                    return false;
+                }
+                node = node.getNext();
             }
         }
 
         return true;
     }
 
-
+    /**
+     * Depends only on the keys, so that it can be maintained while keys are
+     * added and removed. Tables that are equal have the same keys and thus
+     * the same hash code.
+     *
+     * @return Sum of the mixed hash codes of the keys
+     */
     @Override
     public int hashCode() {
-        int max = capacity;
-        if (max > 200) {
-            max = 150;
-        }
-        int code = 7;
-        for (int i = 0; i < max; i++) {
-            if (table[i] != null) {
-                code = 31 * code + table[i].hashCode();
-            }
-        }
-        return code;
+        return keyHash;
     }
     
     public void setTable(OwnLinkedList<K,V>[] lst){
         table = lst; 
+        ownsTable = true;
+        ownsList = null;
+        modCount++;
+    }
+
+    /**
+     * Makes the copy share the contents of this table. Afterwards neither
+     * table owns the array or any of the lists, so each of them copies what
+     * it modifies first. Nothing is allocated here: the record of the owned
+     * lists is created by the first modification.
+     * 
+     * @param copy Empty table that becomes a copy of this one
+     */
+    protected void shareWith(HashTable<K, V> copy) {
+        copy.table = table;
+        copy.capacity = capacity;
+        copy.numOfElements = numOfElements;
+        copy.keyHash = keyHash;
+        copy.ownsTable = false;
+        copy.ownsList = null;
+        copy.modCount++;
+        ownsTable = false;
+        ownsList = null;
+    }
+
+    /**
+     * Makes sure that the array and the list at the index belong to this
+     * table alone before they are modified.
+     * 
+     * @param index Index of the list that is about to be modified
+     */
+    private void prepareList(int index) {
+        if (!ownsTable) {
+            table = table.clone();
+            ownsTable = true;
+            ownsList = new boolean[table.length];
+        }
+        if (ownsList != null && !ownsList[index]) {
+            OwnLinkedList<K, V> shared = table[index];
+            if (shared != null) {
+                OwnLinkedList<K, V> list = new OwnLinkedList(shared.getPreventMultipleKeys());
+                PairNode<K, V> node = shared.getFirstNode();
+                while (node != null) {
+                    list.insert(node.getKey(), node.getValue());
+                    node = node.getNext();
+                }
+                table[index] = list;
+            }
+            ownsList[index] = true;
+        }
+    }
+
+    /**
+     * 
+     * @return Number of modifications so far, for detecting modifications
+     * during iteration.
+     */
+    public int getModCount() {
+        return modCount;
     }
     
     public void setNumOfElements(int n){
@@ -0,0 +1,169 @@
+package utils.structures;
+
+/**
+ * Map from ints to ints with open addressing.
+ *
+ * <p>
+ * Keys and values are stored in parallel int arrays, so nothing is boxed.
+ * Since every int is a valid key, a third array tells which slots are used.
+ * Used for numbering the states of an automaton by their ids. See
+ * OpenAddressing for the probing scheme.
+ * </p>
+ */
+public class IntMap {
+
+    private int[] keys;
+
+    private int[] values;
+
+    /**
+     * Whether each slot holds a key.
+     */
+    private boolean[] used;
+
+    /**
+     * Number of keys.
+     */
+    private int size;
+
+    /**
+     * Creates an empty map with the smallest capacity.
+     */
+    public IntMap() {
+        this(0);
+    }
+
+    /**
+     *
+     * @param expectedSize Number of keys the map can hold without growing
+     */
+    public IntMap(int expectedSize) {
+        allocate(OpenAddressing.capacityFor(expectedSize));
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        size = 0;
+    }
+
+    /**
+     * Finds the slot of the key, or the free slot where it would be stored.
+     */
+    private int slotOf(int key) {
+        int mask = keys.length - 1;
+        int i = OpenAddressing.mix(key) & mask;
+        while (used[i] && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     *
+     * @param key Any int
+     * @param missing Value returned if the map does not have the key
+     * @return The value of the key, or missing
+     */
+    public int get(int key, int missing) {
+        int i = slotOf(key);
+        return used[i] ? values[i] : missing;
+    }
+
+    /**
+     *
+     * @param key Any int
+     * @return True if the map has the key
+     */
+    public boolean containsKey(int key) {
+        return used[slotOf(key)];
+    }
+
+    /**
+     * Attaches the value to the key, replacing the earlier value of the key.
+     * Doubles the capacity first if the map would become more than half
+     * full.
+     *
+     * @param key Any int
+     * @param value Value of the key
+     */
+    public void put(int key, int value) {
+        int i = slotOf(key);
+        if (!used[i]) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+                i = slotOf(key);
+            }
+            keys[i] = key;
+            used[i] = true;
+            size++;
+        }
+        values[i] = value;
+    }
+
+    /**
+     * Removes the key and shifts the keys after it in the same probe
+     * sequence backwards.
+     *
+     * @param key Any int
+     * @return True if the map had the key
+     */
+    public boolean remove(int key) {
+        int i = slotOf(key);
+        if (!used[i]) {
+            return false;
+        }
+        int mask = keys.length - 1;
+        for (int j = (i + 1) & mask; used[j]; j = (j + 1) & mask) {
+            int home = OpenAddressing.mix(keys[j]) & mask;
+            if (OpenAddressing.canShift(home, i, j, mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        used[i] = false;
+        size--;
+        return true;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(2 * oldKeys.length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                used[slot] = true;
+                size++;
+            }
+        }
+    }
+
+    /**
+     *
+     * @return Number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     *
+     * @return True if there are no keys
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all keys and restores the smallest capacity.
+     */
+    public void clear() {
+        allocate(OpenAddressing.MINIMUM_CAPACITY);
+    }
+}
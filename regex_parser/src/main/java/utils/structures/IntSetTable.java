@@ -0,0 +1,173 @@
+package utils.structures;
+
+/**
+ * Interns sets of ints: every distinct set is stored once, as a sorted
+ * array, and gets an id in the order the sets are first seen.
+ *
+ * <p>
+ * The hash code of each stored set is computed once and kept next to it. A
+ * lookup sorts the elements of the candidate into a reusable array, probes
+ * an open addressing table of ids (see OpenAddressing) and compares the
+ * elements only when the hash codes are equal, so a set that has been seen
+ * before costs no allocation at all. Used by the powerset construction,
+ * where the same sets of NFA states are reached again and again.
+ * </p>
+ */
+public class IntSetTable {
+
+    /**
+     * Stored sets by id, sorted.
+     */
+    private int[][] sets;
+
+    /**
+     * Hash code of each stored set.
+     */
+    private int[] hashes;
+
+    /**
+     * Number of stored sets.
+     */
+    private int size;
+
+    /**
+     * Open addressing table of id + 1, or 0 for a free slot.
+     */
+    private int[] slots;
+
+    /**
+     * Work space for sorting the candidate set.
+     */
+    private int[] sorted;
+
+    /**
+     * Creates an empty table.
+     */
+    public IntSetTable() {
+        sets = new int[16][];
+        hashes = new int[16];
+        slots = new int[32];
+        sorted = new int[16];
+        size = 0;
+    }
+
+    /**
+     * Returns the id of the set, storing the set first if it has not been
+     * seen before. A new set gets the id size() - 1.
+     *
+     * @param set Set of non-negative ints
+     * @return Id of the set
+     */
+    public int intern(SparseSet set) {
+        int length = set.size();
+        if (sorted.length < length) {
+            sorted = new int[Math.max(length, 2 * sorted.length)];
+        }
+        for (int i = 0; i < length; i++) {
+            sorted[i] = set.get(i);
+        }
+        sort(sorted, length);
+        int hash = hash(sorted, length);
+
+        int mask = slots.length - 1;
+        int slot = OpenAddressing.mix(hash) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && sameElements(sets[id], sorted, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == sets.length) {
+            int[][] largerSets = new int[2 * size][];
+            int[] largerHashes = new int[2 * size];
+            System.arraycopy(sets, 0, largerSets, 0, size);
+            System.arraycopy(hashes, 0, largerHashes, 0, size);
+            sets = largerSets;
+            hashes = largerHashes;
+        }
+        int id = size++;
+        sets[id] = new int[length];
+        System.arraycopy(sorted, 0, sets[id], 0, length);
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+        if (2 * size > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Sorts the first length elements of the array in ascending order with
+     * insertion sort. The sets of states are small, and the elements of a
+     * sparse set often come in nearly ascending order.
+     */
+    private static void sort(int[] elements, int length) {
+        for (int i = 1; i < length; i++) {
+            int e = elements[i];
+            int j = i - 1;
+            while (j >= 0 && elements[j] > e) {
+                elements[j + 1] = elements[j];
+                j--;
+            }
+            elements[j + 1] = e;
+        }
+    }
+
+    private static int hash(int[] elements, int length) {
+        int h = 7;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + elements[i];
+        }
+        return h;
+    }
+
+    private static boolean sameElements(int[] set, int[] elements, int length) {
+        if (set.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (set[i] != elements[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Doubles the table of ids, using the stored hash codes.
+     */
+    private void rehash() {
+        slots = new int[2 * slots.length];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = OpenAddressing.mix(hashes[id]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    /**
+     *
+     * @param id Id of a stored set
+     * @return The elements of the set in ascending order. The array must not
+     * be modified.
+     */
+    public int[] get(int id) {
+        if (id >= size) {
+            throw new IndexOutOfBoundsException("Id " + id + " out of size " + size);
+        }
+        return sets[id];
+    }
+
+    /**
+     *
+     * @return Number of distinct sets stored
+     */
+    public int size() {
+        return size;
+    }
+}
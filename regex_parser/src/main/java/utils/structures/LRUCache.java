@@ -0,0 +1,342 @@
+package utils.structures;
+
+/**
+ * A thread-safe cache that holds a bounded number and total weight of values
+ * and evicts the least recently used ones.
+ *
+ * <p>
+ * The entries are kept in an OpenMap and, in the order of their last use, in a
+ * doubly linked list whose head is the most recently used entry. Values are
+ * created with a Loader when they are missing. Only one thread loads a
+ * missing key: other threads asking for the same key meanwhile wait for that
+ * load to finish instead of loading the value again. Loading happens outside
+ * the lock of the cache, so hits on other keys are not blocked by it.
+ * </p>
+ *
+ * @param <K> Type for keys.
+ * @param <V> Type for values.
+ */
+public class LRUCache<K, V> {
+
+    /**
+     * Creates the value of a key that is not in the cache.
+     *
+     * @param <K> Type for keys.
+     * @param <V> Type for values.
+     */
+    public interface Loader<K, V> {
+
+        /**
+         *
+         * @param key Key that is missing from the cache
+         * @return Value for the key, not null
+         */
+        V load(K key);
+    }
+
+    /**
+     * Tells how heavy a value is, for example how much memory it takes.
+     *
+     * @param <V> Type for values.
+     */
+    public interface Weigher<V> {
+
+        /**
+         *
+         * @param value Value that is added to the cache
+         * @return Weight of the value, at least 0
+         */
+        long weigh(V value);
+    }
+
+    /**
+     * One key and its value, or a value being loaded.
+     */
+    private static class Entry<K, V> {
+
+        private final K key;
+        private V value;
+        private long weight;
+        private boolean loading;
+        private Entry<K, V> previous;
+        private Entry<K, V> next;
+
+        private Entry(K key) {
+            this.key = key;
+            this.loading = true;
+        }
+    }
+
+    /**
+     * All entries, including the ones being loaded.
+     */
+    private final OpenMap<K, Entry<K, V>> entries;
+
+    /**
+     * Most recently used entry.
+     */
+    private Entry<K, V> head;
+
+    /**
+     * Least recently used entry, which is evicted first.
+     */
+    private Entry<K, V> tail;
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final Weigher<V> weigher;
+
+    /**
+     * Number of loaded entries.
+     */
+    private int size;
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a cache in which every value weighs 1.
+     *
+     * @param maxEntries Largest number of values kept in the cache
+     */
+    public LRUCache(int maxEntries) {
+        this(maxEntries, Long.MAX_VALUE, null);
+    }
+
+    /**
+     *
+     * @param maxEntries Largest number of values kept in the cache
+     * @param maxWeight Largest total weight of the values
+     * @param weigher Gives the weights of values; if null, every value
+     * weighs 1
+     */
+    public LRUCache(int maxEntries, long maxWeight, Weigher<V> weigher) {
+        if (maxEntries < 1 || maxWeight < 1) {
+            throw new IllegalArgumentException("Cache must have room for at least one entry");
+        }
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.entries = new OpenMap<>();
+    }
+
+    /**
+     * Returns the value of the key, loading it first if needed.
+     *
+     * <p>
+     * If the key is being loaded by another thread, waits for the value. If
+     * that load fails, this thread tries loading it itself. If the loader
+     * throws an exception, nothing is stored and the exception is passed on.
+     * </p>
+     *
+     * @param key Key whose value is wanted
+     * @param loader Creates the value if it is missing
+     * @return Value of the key
+     */
+    public V get(K key, Loader<K, V> loader) {
+        Entry<K, V> entry;
+        synchronized (this) {
+            while (true) {
+                entry = entries.get(key);
+                if (entry == null) {
+                    break;
+                }
+                if (!entry.loading) {
+                    hits++;
+                    moveToFront(entry);
+                    return entry.value;
+                }
+                waitForLoad();
+            }
+            misses++;
+            entry = new Entry<>(key);
+            entries.put(key, entry);
+        }
+
+        V value;
+        try {
+            value = loader.load(key);
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                entries.remove(key);
+                notifyAll();
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            entry.value = value;
+            entry.weight = weigher == null ? 1 : weigher.weigh(value);
+            entry.loading = false;
+            linkFirst(entry);
+            size++;
+            weight += entry.weight;
+            evict(entry);
+            notifyAll();
+        }
+        return value;
+    }
+
+    private void waitForLoad() {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a value to be loaded", e);
+        }
+    }
+
+    /**
+     *
+     * @param key Key whose value is wanted
+     * @return Value of the key, or null if it is not in the cache or is still
+     * being loaded
+     */
+    public synchronized V getIfPresent(K key) {
+        Entry<K, V> entry = entries.get(key);
+        if (entry == null || entry.loading) {
+            return null;
+        }
+        moveToFront(entry);
+        return entry.value;
+    }
+
+    /**
+     * Removes least recently used entries until the limits are met. The
+     * newest entry is kept even if it alone exceeds the weight limit.
+     *
+     * @param newest Entry that has just been added
+     */
+    private void evict(Entry<K, V> newest) {
+        while ((size > maxEntries || weight > maxWeight) && tail != newest) {
+            Entry<K, V> victim = tail;
+            unlink(victim);
+            entries.remove(victim.key);
+            size--;
+            weight -= victim.weight;
+            evictions++;
+        }
+    }
+
+    private void moveToFront(Entry<K, V> entry) {
+        if (head != entry) {
+            unlink(entry);
+            linkFirst(entry);
+        }
+    }
+
+    private void linkFirst(Entry<K, V> entry) {
+        entry.previous = null;
+        entry.next = head;
+        if (head != null) {
+            head.previous = entry;
+        }
+        head = entry;
+        if (tail == null) {
+            tail = entry;
+        }
+    }
+
+    private void unlink(Entry<K, V> entry) {
+        if (entry.previous != null) {
+            entry.previous.next = entry.next;
+        } else {
+            head = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.previous = entry.previous;
+        } else {
+            tail = entry.previous;
+        }
+        entry.previous = null;
+        entry.next = null;
+    }
+
+    /**
+     *
+     * @param key Key to be searched for
+     * @return True if the value of the key is in the cache
+     */
+    public synchronized boolean containsKey(K key) {
+        Entry<K, V> entry = entries.get(key);
+        return entry != null && !entry.loading;
+    }
+
+    /**
+     * Removes all the loaded values. The counters are not reset.
+     */
+    public synchronized void clear() {
+        while (tail != null) {
+            Entry<K, V> entry = tail;
+            unlink(entry);
+            entries.remove(entry.key);
+        }
+        size = 0;
+        weight = 0;
+    }
+
+    /**
+     *
+     * @return Number of values in the cache
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     *
+     * @return True if there are no values in the cache
+     */
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     *
+     * @return Total weight of the values in the cache
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     *
+     * @return How many times a value was found in the cache
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     *
+     * @return How many times a value had to be loaded
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     *
+     * @return How many values have been evicted to keep within the limits
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     *
+     * @return Largest number of values kept in the cache
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     *
+     * @return Largest total weight of the values
+     */
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+}
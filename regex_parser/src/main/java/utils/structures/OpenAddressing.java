@@ -0,0 +1,72 @@
+package utils.structures;
+
+/**
+ * Helpers shared by the open addressing hash tables OpenMap, IntMap and
+ * CharMap.
+ *
+ * <p>
+ * The tables keep keys and values in parallel arrays whose length is a
+ * power of two, so the home slot of a key is its mixed hash code masked with
+ * capacity - 1 instead of two modulo operations. Collisions are resolved
+ * with linear probing: a key is stored in the first free slot after its home
+ * slot. At most half of the slots are used, which keeps the probe sequences
+ * short. Removing a key shifts the following keys of the same probe sequence
+ * backwards, so no deleted markers are needed.
+ * </p>
+ */
+final class OpenAddressing {
+
+    /**
+     * Smallest capacity of a table.
+     */
+    static final int MINIMUM_CAPACITY = 4;
+
+    private OpenAddressing() {
+    }
+
+    /**
+     * Spreads the bits of the hash code, so that keys that differ only in
+     * their high bits, or consecutive keys such as state ids and symbols,
+     * get well distributed home slots.
+     *
+     * @param h Hash code of a key
+     * @return Mixed hash code
+     */
+    static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     *
+     * @param expectedSize Number of keys the table should hold without
+     * growing
+     * @return Smallest power of two that keeps the table at most half full
+     * @throws IllegalArgumentException If expectedSize is negative
+     */
+    static int capacityFor(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size " + expectedSize + " is negative");
+        }
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < 2 * expectedSize) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    /**
+     * Tells whether the key in slot j may be moved to the free slot i when
+     * the key of slot i is removed: it may, unless its home slot lies
+     * cyclically after i.
+     *
+     * @param home Home slot of the key in slot j
+     * @param i Slot that became free
+     * @param j Slot of the key
+     * @param mask capacity - 1
+     * @return True if the key can be moved to slot i
+     */
+    static boolean canShift(int home, int i, int j, int mask) {
+        return ((j - home) & mask) >= ((j - i) & mask);
+    }
+}
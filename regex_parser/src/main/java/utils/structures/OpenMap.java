@@ -0,0 +1,191 @@
+package utils.structures;
+
+/**
+ * Map with open addressing, an alternative to OwnMap.
+ *
+ * <p>
+ * OwnMap allocates a PairNode and possibly a collision list for every key,
+ * and copies the nodes when it grows. Here the keys and values are stored in
+ * two parallel arrays, so putting a key allocates nothing unless the map
+ * grows, and a lookup compares keys in consecutive slots instead of
+ * following list nodes. Keys cannot be null. See OpenAddressing for the
+ * probing scheme.
+ * </p>
+ *
+ * @param <K> Type of the keys
+ * @param <V> Type of the values
+ */
+public class OpenMap<K, V> {
+
+    /**
+     * The key stored in each slot, or null for a free slot.
+     */
+    private Object[] keys;
+
+    /**
+     * Value of the key in the same slot.
+     */
+    private Object[] values;
+
+    /**
+     * Number of keys.
+     */
+    private int size;
+
+    /**
+     * Creates an empty map with the smallest capacity.
+     */
+    public OpenMap() {
+        this(0);
+    }
+
+    /**
+     *
+     * @param expectedSize Number of keys the map can hold without growing
+     */
+    public OpenMap(int expectedSize) {
+        allocate(OpenAddressing.capacityFor(expectedSize));
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        size = 0;
+    }
+
+    private static int homeOf(Object key, int mask) {
+        return OpenAddressing.mix(key.hashCode()) & mask;
+    }
+
+    /**
+     * Finds the slot of the key, or the free slot where it would be stored.
+     */
+    private int slotOf(Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Keys cannot be null");
+        }
+        int mask = keys.length - 1;
+        int i = homeOf(key, mask);
+        while (keys[i] != null && !keys[i].equals(key)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the value in the slot. Only values of type V are ever stored,
+     * so the cast cannot fail.
+     */
+    @SuppressWarnings("unchecked")
+    private V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    /**
+     *
+     * @param key Key that is not null
+     * @return The value of the key, or null if the map has no such key
+     */
+    public V get(K key) {
+        return valueAt(slotOf(key));
+    }
+
+    /**
+     *
+     * @param key Key that is not null
+     * @return True if the map has the key
+     */
+    public boolean containsKey(K key) {
+        return keys[slotOf(key)] != null;
+    }
+
+    /**
+     * Attaches the value to the key, replacing the earlier value of the key.
+     * Doubles the capacity first if the map would become more than half
+     * full.
+     *
+     * @param key Key that is not null
+     * @param value Value of the key
+     * @return The earlier value of the key, or null if there was none
+     */
+    public V put(K key, V value) {
+        int i = slotOf(key);
+        if (keys[i] != null) {
+            V previous = valueAt(i);
+            values[i] = value;
+            return previous;
+        }
+        if (2 * (size + 1) > keys.length) {
+            grow();
+            i = slotOf(key);
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * Removes the key and shifts the keys after it in the same probe
+     * sequence backwards.
+     *
+     * @param key Key that is not null
+     * @return The value of the removed key, or null if there was none
+     */
+    public V remove(K key) {
+        int i = slotOf(key);
+        if (keys[i] == null) {
+            return null;
+        }
+        V removed = valueAt(i);
+        int mask = keys.length - 1;
+        for (int j = (i + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+            if (OpenAddressing.canShift(homeOf(keys[j], mask), i, j, mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = null;
+        values[i] = null;
+        size--;
+        return removed;
+    }
+
+    private void grow() {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(2 * oldKeys.length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                size++;
+            }
+        }
+    }
+
+    /**
+     *
+     * @return Number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     *
+     * @return True if there are no keys
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all keys and restores the smallest capacity.
+     */
+    public void clear() {
+        allocate(OpenAddressing.MINIMUM_CAPACITY);
+    }
+}
@@ -99,29 +99,26 @@ public class OwnMap<K, V> extends HashTable<K, V> {
 
     
     /**
-     * Only needed with copy
-     * 
-     * @param st 
+     * Creates a map that shares the contents of the original map. Only
+     * needed with copy.
      */
-    private void setKeySet(OwnSet<K> st){
-        this.keySet = st; 
+    private OwnMap(OwnMap<K, V> original) {
+        super(0);
+        original.shareWith(this);
+        keySet = original.keySet.copy();
     }
-  
-    
+
     /**
+     * 
+     * <p>The copy shares the table and the key set of this map until either
+     * map is modified, so copying takes O(1) time. Modifying either map
+     * afterwards does not affect the other. The values themselves are not
+     * copied.</p>
      * 
      * @return a map with identical contents but different address
      */
     public OwnMap<K, V> copy() {
-        OwnMap<K,V> result = new OwnMap(capacity);
-        result.setNumOfElements(numOfElements);
-        OwnLinkedList<K, V>[] copyTable = new OwnLinkedList[capacity];
-        for (int i = 0; i < capacity; i++) {
-            copyTable[i] = table[i];
-        }
-        result.setTable(copyTable);
-        result.setKeySet(keySet.copy());
-        return result;
+        return new OwnMap(this);
     }
 
 }
@@ -85,41 +85,6 @@ public class OwnSet<T> extends HashTable<T, T> implements Iterable<T> {
         return list.search(element) != null;
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (o == null || this.getClass() != o.getClass()) {
-            return false;
-        }
-        OwnSet<T> comp = (OwnSet<T>) o;
-        if (this.getCapacity() != comp.getCapacity() || this.getNumOfElements() != comp.getNumOfElements()) {
-
-        }
-
-        for (int i = 0; i < table.length; i++) {
-
-            if (this.table[i] == null) {
-                if (comp.getTable()[i] == null || comp.getTable()[i].isEmpty()) {
-                    continue;
-                } else {
-                    return false;
-                }
-            }
-
-            if (comp.getTable()[i] == null) {
-                if (table[i] == null || table[i].isEmpty()) {
-                    continue;
-                } else {
-                    return false;
-                }
-            }
-
-            if (!table[i].equals(comp.getTable()[i])) {
-                return false;
-            }
-        }
-        return true;
-    }
-
     /**
      * Returns an iterator to go through the elements of the set.
      *
@@ -131,22 +96,20 @@ public class OwnSet<T> extends HashTable<T, T> implements Iterable<T> {
      */
     @Override
     public Iterator<T> iterator() {
-        SetIterator<T> it = new SetIterator(table);
-        return it;
+        return new SetIterator(this);
     }
 
     /**
+     * 
+     * <p>The copy shares the table of this set until either set is modified,
+     * so copying takes O(1) time. Modifying either set afterwards does not
+     * affect the other.</p>
      * 
      * @return An OwnSet with identical contents but different address
      */
     public OwnSet<T> copy() {
-        OwnSet<T> result = new OwnSet(capacity);
-        result.setNumOfElements(numOfElements);
-        OwnLinkedList<T, T>[] copyTable = new OwnLinkedList[capacity];
-        for (int i = 0; i < capacity; i++) {
-            copyTable[i] = table[i];
-        }
-        result.setTable(copyTable);
+        OwnSet<T> result = new OwnSet(0);
+        shareWith(result);
         return result;
     }
 
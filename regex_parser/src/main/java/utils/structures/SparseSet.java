@@ -0,0 +1,141 @@
+package utils.structures;
+
+/**
+ * Set of integers 0, ..., capacity - 1 as described by Briggs and Torczon.
+ *
+ * <p>
+ * The elements are listed in the order of insertion in a dense array, and a
+ * sparse array tells where each element is listed. An integer is an element
+ * only if the sparse array points to a listed position that holds the same
+ * integer, so neither array ever needs to be cleared: adding, testing and
+ * clearing all take O(1) time, and the elements can be iterated in the
+ * order they were added. Simulations of compiled automata use it for the
+ * sets of current and next states, whose elements are dense state ids.
+ * </p>
+ *
+ */
+public class SparseSet {
+
+    /**
+     * Elements in the order of insertion. Only the first size are valid.
+     */
+    private final int[] dense;
+
+    /**
+     * Index of each element in the dense array. Entries of integers that
+     * are not elements are arbitrary.
+     */
+    private final int[] sparse;
+
+    /**
+     * Number of elements.
+     */
+    private int size;
+
+    /**
+     *
+     * @param capacity Number of integers the set can contain: the elements
+     * are 0, ..., capacity - 1
+     * @throws IllegalArgumentException If capacity is negative
+     */
+    public SparseSet(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity " + capacity + " is negative");
+        }
+        dense = new int[capacity];
+        sparse = new int[capacity];
+        size = 0;
+    }
+
+    /**
+     * Adds the integer to the end of the elements, unless it is already an
+     * element.
+     *
+     * @param i Integer between 0 and capacity - 1
+     * @return True if the integer was added, false if it was an element
+     * already
+     */
+    public boolean add(int i) {
+        if (contains(i)) {
+            return false;
+        }
+        dense[size] = i;
+        sparse[i] = size;
+        size++;
+        return true;
+    }
+
+    /**
+     *
+     * @param i Integer between 0 and capacity - 1
+     * @return Whether the integer is an element
+     */
+    public boolean contains(int i) {
+        int index = sparse[i];
+        return index < size && dense[index] == i;
+    }
+
+    /**
+     * Removes all the elements in constant time.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Keeps only the elements that were added first.
+     *
+     * @param newSize Number of elements that are kept
+     */
+    public void truncate(int newSize) {
+        if (newSize < size) {
+            size = newSize;
+        }
+    }
+
+    /**
+     *
+     * @param index Position in the order of insertion, between 0 and size - 1
+     * @return The element at the position
+     */
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of size " + size);
+        }
+        return dense[index];
+    }
+
+    /**
+     *
+     * @return Number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     *
+     * @return True if there are no elements
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     *
+     * @return Number of integers the set can contain
+     */
+    public int capacity() {
+        return dense.length;
+    }
+
+    /**
+     *
+     * @return The elements in the order of insertion
+     */
+    public int[] toArray() {
+        int[] elements = new int[size];
+        System.arraycopy(dense, 0, elements, 0, size);
+        return elements;
+    }
+}
@@ -0,0 +1,143 @@
+package domain;
+
+import utils.generators.NFAGenerator;
+import utils.structures.OwnSet;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class BitParallelNFATest {
+
+    public BitParallelNFATest() {
+    }
+
+    private NFA simpleUnionNFA(char firstOption, char secondOption) {
+        State s0 = new State(0);
+        State s1 = new State(1);
+        State s2 = new State(2);
+        State s3 = new State(3);
+        State s4 = new State(4);
+        State s5 = new State(5);
+        s0.addStatesReachableWithoutSymbols(s1);
+        s0.addStatesReachableWithoutSymbols(s2);
+        s1.addNextStateForSymbol(firstOption, s3);
+        s2.addNextStateForSymbol(secondOption, s4);
+        s3.addStatesReachableWithoutSymbols(s5);
+        s4.addStatesReachableWithoutSymbols(s5);
+        OwnSet<State> accepting = new OwnSet();
+        accepting.add(s5);
+        return new NFA(s0, accepting);
+    }
+
+    private NFA bitParallel(String regex) {
+        NFA nfa = new NFAGenerator(false).generateNFA(regex);
+        nfa.enableBitParallelSimulation();
+        return nfa;
+    }
+
+    @Test
+    public void startingStatesContainEpsilonClosure() {
+        BitParallelNFA simulation = new BitParallelNFA(new CompiledNFA(simpleUnionNFA('a', 'b')));
+        long[] start = simulation.startingStates();
+        assertEquals(1, simulation.getWords());
+        assertEquals(3, Long.bitCount(start[0]));
+    }
+
+    @Test
+    public void acceptsWorksLikeNFAWithUnion() {
+        BitParallelNFA simulation = new BitParallelNFA(new CompiledNFA(simpleUnionNFA('a', 'b')));
+        assertTrue(simulation.accepts("a") && simulation.accepts("b"));
+        assertFalse(simulation.accepts("") || simulation.accepts("ab") || simulation.accepts("c"));
+    }
+
+    @Test
+    public void anySymbolTransitionIsCombinedWithSymbolTransition() {
+        State s0 = new State(0);
+        State s1 = new State(1);
+        State s2 = new State(2);
+        s0.addStatesReachableWithAnyCharacter(s1);
+        s0.addNextStateForSymbol('a', s2);
+        s2.addNextStateForSymbol('b', s1);
+        OwnSet<State> accepting = new OwnSet();
+        accepting.add(s1);
+        BitParallelNFA simulation = new BitParallelNFA(new CompiledNFA(new NFA(s0, accepting)));
+        assertTrue(simulation.accepts("a"));
+        assertTrue(simulation.accepts("ab"));
+        assertTrue(simulation.accepts("x"));
+        assertFalse(simulation.accepts("xb"));
+    }
+
+    @Test
+    public void invertedAutomatonAcceptsWhenNoStatesRemain() {
+        NFA nfa = simpleUnionNFA('a', 'b');
+        nfa.invert();
+        BitParallelNFA simulation = new BitParallelNFA(new CompiledNFA(nfa));
+        assertTrue(simulation.accepts("cc"));
+    }
+
+    @Test
+    public void automatonWithMoreThan64StatesIsSimulated() {
+        NFA nfa = bitParallel("(a?)[20,20]a[20,20]");
+        assertTrue(nfa.compile().getNumberOfStates() > 64);
+        String test = "";
+        for (int i = 0; i < 20; i++) {
+            test += "a";
+        }
+        assertTrue(nfa.accepts(test));
+        assertTrue(nfa.accepts(test + test));
+        assertFalse(nfa.accepts(test.substring(1)));
+        assertFalse(nfa.accepts(test + test + "a"));
+    }
+
+    @Test
+    public void largeTrickyAutomatonIsSimulatedWithLinearMasks() {
+        int n = 1000;
+        NFA nfa = bitParallel("(a?)[" + n + "," + n + "]a[" + n + "," + n + "]");
+        CompiledNFA compiled = nfa.compile();
+        BitParallelNFA simulation = new BitParallelNFA(compiled);
+        assertTrue(simulation.getWords() > BitParallelNFA.MAX_MASKED_WORDS);
+        assertTrue(simulation.getMaskSize() <= compiled.getNumberOfClasses() * simulation.getWords());
+        StringBuilder test = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            test.append('a');
+        }
+        assertTrue(simulation.accepts(test));
+        assertFalse(simulation.accepts(test.substring(1)));
+        assertTrue(nfa.accepts(test.toString() + test));
+        assertFalse(nfa.accepts(test.toString() + test + "a"));
+    }
+
+    @Test
+    public void resultsMatchListSimulation() {
+        String[] regexes = {"(a|b)*abb", ".*((C|c)ountenance).*", "!(ab*)", "x[2,4]y?"};
+        String[] tests = {"", "abb", "aabb", "ab", "countenance is", "a Countenance", "xx", "xxxxy", "b"};
+        NFAGenerator generator = new NFAGenerator(false);
+        for (String regex : regexes) {
+            NFA lists = generator.generateNFA(regex);
+            lists.disableCaching();
+            NFA bits = bitParallel(regex);
+            for (String test : tests) {
+                assertEquals(regex + " " + test, lists.accepts(test), bits.accepts(test));
+            }
+        }
+    }
+
+    @Test
+    public void enablingAndDisablingBitParallelSimulation() {
+        NFA nfa = simpleUnionNFA('a', 'b');
+        assertFalse(nfa.usesBitParallelSimulation());
+        nfa.enableBitParallelSimulation();
+        assertTrue(nfa.usesBitParallelSimulation());
+        assertTrue(nfa.accepts("a"));
+        nfa.disableBitParallelSimulation();
+        assertFalse(nfa.usesBitParallelSimulation());
+    }
+
+    @Test
+    public void simulationIsRebuiltAfterInversion() {
+        NFA nfa = simpleUnionNFA('a', 'b');
+        nfa.enableBitParallelSimulation();
+        assertFalse(nfa.accepts("cc"));
+        nfa.invert();
+        assertTrue(nfa.accepts("cc"));
+    }
+}
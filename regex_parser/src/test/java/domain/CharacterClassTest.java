@@ -0,0 +1,49 @@
+package domain;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CharacterClassTest {
+
+    public CharacterClassTest() {
+    }
+
+    @Test
+    public void rangeContainsItsEndsAndNothingOutside() {
+        CharacterClass c = CharacterClass.range('b', 'y');
+        assertTrue(c.contains('b') && c.contains('m') && c.contains('y'));
+        assertFalse(c.contains('a') || c.contains('z'));
+        assertEquals(24, c.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reversedRangeThrows() {
+        CharacterClass.range('z', 'a');
+    }
+
+    @Test
+    public void unionMergesOverlappingAndAdjacentRanges() {
+        CharacterClass c = CharacterClass.range('a', 'c').union(CharacterClass.range('d', 'f')).union(CharacterClass.range('b', 'e'));
+        assertEquals(1, c.getNumberOfRanges());
+        assertEquals('a', c.getFirst(0));
+        assertEquals('f', c.getLast(0));
+    }
+
+    @Test
+    public void unionKeepsSeparateRangesSorted() {
+        CharacterClass c = CharacterClass.of('x').union(CharacterClass.range('0', '9')).union(CharacterClass.of('a'));
+        assertEquals("0-9|a|x", c.toString());
+        assertTrue(c.contains('5') && c.contains('a') && c.contains('x'));
+        assertFalse(c.contains('b') || c.contains('w') || c.contains('y'));
+        assertEquals('x', c.getMaximum());
+    }
+
+    @Test
+    public void classesWithSameCharactersAreEqual() {
+        CharacterClass c1 = CharacterClass.range('a', 'b').union(CharacterClass.of('c'));
+        CharacterClass c2 = CharacterClass.range('a', 'c');
+        assertEquals(c1, c2);
+        assertEquals(c1.hashCode(), c2.hashCode());
+        assertNotEquals(c1, CharacterClass.range('a', 'd'));
+    }
+}
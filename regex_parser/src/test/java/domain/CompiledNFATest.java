@@ -0,0 +1,226 @@
+package domain;
+
+import utils.structures.OwnSet;
+import utils.structures.SparseSet;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CompiledNFATest {
+
+    public CompiledNFATest() {
+    }
+
+    private NFA simpleUnionNFA(char firstOption, char secondOption) {
+        State s0 = new State(0);
+        State s1 = new State(1);
+        State s2 = new State(2);
+        State s3 = new State(3);
+        State s4 = new State(4);
+        State s5 = new State(5);
+        s0.addStatesReachableWithoutSymbols(s1);
+        s0.addStatesReachableWithoutSymbols(s2);
+        s1.addNextStateForSymbol(firstOption, s3);
+        s2.addNextStateForSymbol(secondOption, s4);
+        s3.addStatesReachableWithoutSymbols(s5);
+        s4.addStatesReachableWithoutSymbols(s5);
+        OwnSet<State> accepting = new OwnSet();
+        accepting.add(s5);
+        return new NFA(s0, accepting);
+    }
+
+    @Test
+    public void onlyReachableStatesAreCompiled() {
+        NFA nfa = simpleUnionNFA('a', 'b');
+        new State(10).addStatesReachableWithoutSymbols(nfa.getStartingState());
+        assertEquals(6, new CompiledNFA(nfa).getNumberOfStates());
+    }
+
+    @Test
+    public void startingStateHasDenseIdZero() {
+        State s = new State(-5);
+        s.addNextStateForSymbol('a', new State(7));
+        CompiledNFA compiled = new CompiledNFA(new NFA(s, new OwnSet()));
+        assertEquals(0, compiled.getStartingState());
+    }
+
+    @Test
+    public void everyUsedSymbolHasOwnClass() {
+        CompiledNFA compiled = new CompiledNFA(simpleUnionNFA('a', 'b'));
+        assertEquals(3, compiled.getNumberOfClasses());
+        assertTrue(compiled.symbolClassOf('a') != compiled.symbolClassOf('b'));
+    }
+
+    @Test
+    public void unusedSymbolsBelongToClassZero() {
+        CompiledNFA compiled = new CompiledNFA(simpleUnionNFA('a', 'b'));
+        assertEquals(0, compiled.symbolClassOf('c'));
+        assertEquals(0, compiled.symbolClassOf('€'));
+    }
+
+    @Test
+    public void acceptingStatesAreRecognizedById() {
+        State s0 = new State(0);
+        s0.addNextStateForSymbol('a', new State(1));
+        OwnSet<State> accepting = new OwnSet();
+        accepting.add(new State(1));
+        CompiledNFA compiled = new CompiledNFA(new NFA(s0, accepting));
+        assertFalse(compiled.isAccepting(0));
+        assertTrue(compiled.isAccepting(1));
+    }
+
+    @Test
+    public void acceptsWorksLikeNFAWithUnion() {
+        CompiledNFA compiled = new CompiledNFA(simpleUnionNFA('a', 'b'));
+        assertTrue(compiled.accepts("a") && compiled.accepts("b"));
+        assertFalse(compiled.accepts("") || compiled.accepts("ab") || compiled.accepts("c"));
+    }
+
+    @Test
+    public void anySymbolTransitionIsFollowedWithUnusedSymbol() {
+        State s0 = new State(0);
+        State s1 = new State(1);
+        s0.addStatesReachableWithAnyCharacter(s1);
+        OwnSet<State> accepting = new OwnSet();
+        accepting.add(s1);
+        CompiledNFA compiled = new CompiledNFA(new NFA(s0, accepting));
+        assertTrue(compiled.accepts("\n"));
+        assertFalse(compiled.accepts("xy"));
+    }
+
+    @Test
+    public void stepCanSkipAnySymbolTransitions() {
+        State s0 = new State(0);
+        s0.addStatesReachableWithAnyCharacter(new State(1));
+        s0.addNextStateForSymbol('a', new State(2));
+        CompiledNFA compiled = new CompiledNFA(new NFA(s0, new OwnSet()));
+        int[] stack = new int[3];
+        SparseSet current = new SparseSet(3);
+        SparseSet next = new SparseSet(3);
+        compiled.startingStates(current, stack);
+        compiled.step(current, compiled.symbolClassOf('a'), true, next, stack);
+        assertEquals(2, next.size());
+        compiled.step(current, compiled.symbolClassOf('a'), false, next, stack);
+        assertEquals(1, next.size());
+        compiled.step(current, compiled.symbolClassOf('b'), false, next, stack);
+        assertTrue(next.isEmpty());
+    }
+
+    @Test
+    public void epsilonCyclesDoNotPreventTermination() {
+        State s0 = new State(0);
+        State s1 = new State(1);
+        s0.addStatesReachableWithoutSymbols(s1);
+        s1.addStatesReachableWithoutSymbols(s0);
+        s1.addNextStateForSymbol('a', s0);
+        OwnSet<State> accepting = new OwnSet();
+        accepting.add(s1);
+        CompiledNFA compiled = new CompiledNFA(new NFA(s0, accepting));
+        assertTrue(compiled.accepts("aaaa"));
+    }
+
+    @Test
+    public void invertedAutomatonAcceptsWhenNoStatesRemain() {
+        NFA nfa = simpleUnionNFA('a', 'b');
+        nfa.invert();
+        CompiledNFA compiled = new CompiledNFA(nfa);
+        assertTrue(compiled.accepts("cc"));
+    }
+
+    @Test
+    public void nfaRecompilesAfterAcceptingStatesChange() {
+        NFA nfa = simpleUnionNFA('a', 'b');
+        assertTrue(nfa.accepts("a"));
+        nfa.setAcceptingStates(new OwnSet());
+        assertFalse(nfa.accepts("a"));
+    }
+
+    @Test
+    public void characterClassIsOneSymbolClass() {
+        State s0 = new State(0);
+        State s1 = new State(1);
+        s0.addNextStateForClass(CharacterClass.range('a', 'z'), s1);
+        OwnSet<State> accepting = new OwnSet();
+        accepting.add(s1);
+        CompiledNFA compiled = new CompiledNFA(new NFA(s0, accepting));
+        assertEquals(2, compiled.getNumberOfClasses());
+        assertEquals(compiled.symbolClassOf('a'), compiled.symbolClassOf('z'));
+        assertEquals(0, compiled.symbolClassOf('A'));
+        assertTrue(compiled.accepts("q"));
+        assertFalse(compiled.accepts("Q") || compiled.accepts("qq"));
+    }
+
+    @Test
+    public void symbolInsideCharacterClassGetsOwnClass() {
+        State s0 = new State(0);
+        State s1 = new State(1);
+        State s2 = new State(2);
+        s0.addNextStateForClass(CharacterClass.range('a', 'z'), s1);
+        s0.addNextStateForSymbol('m', s2);
+        s2.addNextStateForSymbol('m', s1);
+        OwnSet<State> accepting = new OwnSet();
+        accepting.add(s1);
+        CompiledNFA compiled = new CompiledNFA(new NFA(s0, accepting));
+        assertEquals(3, compiled.getNumberOfClasses());
+        assertEquals(compiled.symbolClassOf('a'), compiled.symbolClassOf('z'));
+        assertTrue(compiled.symbolClassOf('a') != compiled.symbolClassOf('m'));
+        assertTrue(compiled.accepts("a") && compiled.accepts("m") && compiled.accepts("mm") && compiled.accepts("z"));
+        assertFalse(compiled.accepts("am") || compiled.accepts("zm"));
+    }
+
+    @Test
+    public void symbolsThatNoTransitionTellsApartShareClass() {
+        State s0 = new State(0);
+        State s1 = new State(1);
+        State s2 = new State(2);
+        s0.addNextStateForClass(CharacterClass.of('a').union(CharacterClass.of('c')), s1);
+        s1.addNextStateForClass(CharacterClass.range('a', 'c'), s2);
+        OwnSet<State> accepting = new OwnSet();
+        accepting.add(s2);
+        CompiledNFA compiled = new CompiledNFA(new NFA(s0, accepting));
+        assertEquals(3, compiled.getNumberOfClasses());
+        assertEquals(compiled.symbolClassOf('a'), compiled.symbolClassOf('c'));
+        assertTrue(compiled.symbolClassOf('a') != compiled.symbolClassOf('b'));
+        assertTrue(compiled.accepts("ab") && compiled.accepts("cc"));
+        assertFalse(compiled.accepts("ba") || compiled.accepts("a"));
+    }
+
+    /**
+     * A chain of n states joined by empty transitions, where each state can
+     * also read 'a' back to the start. Only the last state is accepting.
+     */
+    private NFA epsilonChain(int n) {
+        State[] states = new State[n];
+        for (int i = 0; i < n; i++) {
+            states[i] = new State(i);
+        }
+        for (int i = 0; i + 1 < n; i++) {
+            states[i].addStatesReachableWithoutSymbols(states[i + 1]);
+            states[i + 1].addNextStateForSymbol('a', states[0]);
+        }
+        states[0].addNextStateForSymbol('b', states[n - 1]);
+        OwnSet<State> accepting = new OwnSet();
+        accepting.add(states[n - 1]);
+        return new NFA(states[0], accepting);
+    }
+
+    @Test
+    public void closuresArePrecomputedForSmallAutomata() {
+        CompiledNFA compiled = new CompiledNFA(epsilonChain(10));
+        assertNotNull(compiled.getClosureOffsets());
+        int[] offsets = compiled.getClosureOffsets();
+        assertEquals(10, offsets[1] - offsets[0]);
+        assertEquals(10 + 9 + 8 + 7 + 6 + 5 + 4 + 3 + 2 + 1, offsets[10]);
+        assertEquals(0, compiled.getClosureTargets()[offsets[0]]);
+        assertTrue(compiled.accepts("") && compiled.accepts("aaab"));
+    }
+
+    @Test
+    public void closuresOverBudgetAreFollowedDuringSimulation() {
+        CompiledNFA compiled = new CompiledNFA(epsilonChain(1000));
+        assertNull(compiled.getClosureOffsets());
+        assertTrue(compiled.accepts("") && compiled.accepts("aaab") && compiled.accepts("b"));
+        State s0 = new State(0);
+        s0.addNextStateForSymbol('c', new State(1));
+        assertFalse(new CompiledNFA(new NFA(s0, new OwnSet())).accepts("c"));
+    }
+}
@@ -0,0 +1,117 @@
+package domain;
+
+import utils.generators.NFAGenerator;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LazyDFATest {
+
+    public LazyDFATest() {
+    }
+
+    private CompiledNFA compiled(String regex) {
+        return new NFAGenerator(false).generateNFA(regex).compile();
+    }
+
+    @Test
+    public void noStatesBeforeFirstRun() {
+        LazyDFA dfa = new LazyDFA(compiled("(a|b)*abb"));
+        assertEquals(0, dfa.size());
+        assertEquals(0, dfa.getMemoryUsed());
+    }
+
+    @Test
+    public void sameSetsOfStatesAreInterned() {
+        LazyDFA dfa = new LazyDFA(compiled("(a|b)*abb"));
+        assertTrue(dfa.accepts("abb"));
+        int states = dfa.size();
+        assertTrue(dfa.accepts("ababb"));
+        assertTrue(dfa.accepts("aabbabb"));
+        assertFalse(dfa.accepts("abba"));
+        assertTrue(dfa.size() <= states + 1);
+    }
+
+    @Test
+    public void emptySetOfStatesEndsSimulation() {
+        LazyDFA dfa = new LazyDFA(compiled("ab"));
+        assertFalse(dfa.accepts("ba"));
+        assertFalse(dfa.accepts("abb"));
+        assertTrue(dfa.accepts("ab"));
+    }
+
+    @Test
+    public void invertedAutomatonAcceptsWhenNoStatesRemain() {
+        NFA nfa = new NFAGenerator(false).generateNFA("ab");
+        nfa.invert();
+        LazyDFA dfa = new LazyDFA(nfa.compile());
+        assertTrue(dfa.accepts("ba"));
+    }
+
+    @Test
+    public void memoryUseStaysWithinBudget() {
+        CompiledNFA automaton = compiled("(a|b)*a(a|b)[8,8]");
+        LazyDFA dfa = new LazyDFA(automaton, 4000);
+        String test = "";
+        int seed = 12345;
+        for (int i = 0; i < 300; i++) {
+            seed = seed * 1103515245 + 12345;
+            test += ((seed >>> 16) & 1) == 0 ? 'a' : 'b';
+        }
+        for (int i = 0; i < test.length(); i++) {
+            String part = test.substring(i);
+            assertEquals(automaton.accepts(part), dfa.accepts(part));
+            assertTrue(dfa.getMemoryUsed() <= 4000);
+        }
+        assertTrue(dfa.getFlushes() > 0);
+    }
+
+    @Test
+    public void resultsDoNotDependOnBudget() {
+        String[] tests = {"", "a", "ab", "abababab", "bbbbabbb", "aabbaabbaabb"};
+        CompiledNFA automaton = compiled("(a|b)*a(a|b)[2,2]|b*");
+        LazyDFA small = new LazyDFA(automaton, 1);
+        LazyDFA large = new LazyDFA(automaton);
+        for (String test : tests) {
+            assertEquals(test, automaton.accepts(test), small.accepts(test));
+            assertEquals(test, automaton.accepts(test), large.accepts(test));
+        }
+    }
+
+    @Test
+    public void nfaCacheIsDiscardedWhenBudgetChanges() {
+        NFA nfa = new NFAGenerator(false).generateNFA("a[200,200]");
+        nfa.accepts("aaaa");
+        assertTrue(nfa.getCache().size() > 0);
+        nfa.setCacheMemoryBudget(1000);
+        assertEquals(0, nfa.getCache().size());
+        assertEquals(1000, nfa.getCache().getMemoryBudget());
+    }
+
+    @Test
+    public void dfaCanBeSharedByThreads() throws InterruptedException {
+        final CompiledNFA automaton = compiled("(a|b)*a(a|b)[5,5]");
+        final LazyDFA dfa = new LazyDFA(automaton, 3000);
+        final boolean[] failed = new boolean[1];
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int seed = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    String test = "";
+                    for (int i = 0; i < 200; i++) {
+                        test += ((i * (seed + 3)) % 5 < 2) ? 'a' : 'b';
+                        if (dfa.accepts(test) != automaton.accepts(test)) {
+                            failed[0] = true;
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(failed[0]);
+    }
+}
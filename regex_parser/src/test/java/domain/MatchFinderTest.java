@@ -0,0 +1,48 @@
+package domain;
+
+import utils.generators.NFAGenerator;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MatchFinderTest {
+
+    public MatchFinderTest() {
+    }
+
+    private MatchFinder finder(String regex) {
+        return new MatchFinder(new NFAGenerator(false).generateNFA(regex).compile());
+    }
+
+    @Test
+    public void earlierStartWinsOverEarlierEnd() {
+        MatchFinder finder = finder("abcd|c");
+        assertTrue(finder.find("abcd", 0, 4));
+        assertEquals(0, finder.getStart());
+        assertEquals(4, finder.getEnd());
+    }
+
+    @Test
+    public void noStartIsInjectedAfterLimit() {
+        MatchFinder finder = finder("ab");
+        assertFalse(finder.find("xxab", 0, 1));
+        assertEquals(-1, finder.getStart());
+        assertTrue(finder.find("xxab", 0, 2));
+        assertEquals(2, finder.getStart());
+    }
+
+    @Test
+    public void finderCanBeReused() {
+        MatchFinder finder = finder("a(b|c)*");
+        assertTrue(finder.find("xabcbx", 0, 6));
+        assertEquals(1, finder.getStart());
+        assertEquals(5, finder.getEnd());
+        assertTrue(finder.find("acb", 0, 3));
+        assertEquals(0, finder.getStart());
+        assertEquals(3, finder.getEnd());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invertedAutomatonIsRejected() {
+        finder("!(!(ab))");
+    }
+}
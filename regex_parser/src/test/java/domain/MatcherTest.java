@@ -0,0 +1,300 @@
+package domain;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MatcherTest {
+
+    public MatcherTest() {
+    }
+
+    private InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String filler(int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + i % 3));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void searchReturnsEndOfEarliestEndingMatch() {
+        Matcher matcher = Pattern.compile("(C|c)ountenance").matcher();
+        assertEquals(15, matcher.search("his countenance, Countenance"));
+    }
+
+    @Test
+    public void searchReturnsMinusOneWithoutMatch() {
+        Matcher matcher = Pattern.compile("raakile").matcher();
+        assertEquals(-1, matcher.search("raaka ja kypsä"));
+    }
+
+    @Test
+    public void emptyMatchIsFoundAtBeginning() {
+        Matcher matcher = Pattern.compile("a*").matcher();
+        assertEquals(0, matcher.search("bbb"));
+    }
+
+    @Test
+    public void matcherCanBeReusedForSearches() {
+        Matcher matcher = Pattern.compile("ab[2,3]").matcher();
+        assertEquals(-1, matcher.search("abab"));
+        assertEquals(5, matcher.search("aaabb"));
+        assertTrue(matcher.matches("abbb"));
+    }
+
+    @Test
+    public void streamIsSearchedAcrossBuffers() throws IOException {
+        String text = filler(3 * Matcher.BUFFER_SIZE) + "xyz";
+        Matcher matcher = Pattern.compile("xyz").matcher();
+        assertEquals(text.length(), matcher.search(stream(text)));
+        assertEquals(-1, matcher.search(stream(filler(2 * Matcher.BUFFER_SIZE))));
+    }
+
+    @Test
+    public void multibyteCharacterSplitBetweenBuffersIsDecoded() throws IOException {
+        String text = filler(Matcher.BUFFER_SIZE - 1) + "äö";
+        Matcher matcher = Pattern.compile("äö").matcher();
+        assertEquals(text.length(), matcher.search(stream(text)));
+    }
+
+    @Test
+    public void searchStopsReadingAtFirstMatch() throws IOException {
+        String text = "needle" + filler(4 * Matcher.BUFFER_SIZE);
+        InputStream in = stream(text);
+        assertEquals(6, Pattern.compile("needle").matcher().search(in));
+        assertTrue(in.available() > 0);
+    }
+
+    @Test
+    public void lineBreaksAreMatchedByAnySymbol() throws IOException {
+        Matcher matcher = Pattern.compile("a.b").matcher();
+        assertEquals(4, matcher.search(stream("xa\nb")));
+    }
+
+    @Test
+    public void fileIsSearchedThroughChannel() throws IOException {
+        File file = File.createTempFile("search", ".txt");
+        file.deleteOnExit();
+        String text = filler(100000) + "kypsä omena";
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            assertEquals(text.length() - 6, Pattern.compile("kypsä").matcher().search(channel));
+            assertEquals(-1, Pattern.compile("raaka").matcher().search(channel));
+        }
+    }
+
+    @Test
+    public void invertedPatternCanBeSearched() {
+        Pattern pattern = Pattern.compile("!(!(ab))");
+        assertTrue(pattern.getAutomaton().isInverted());
+        assertTrue(pattern.matcher().search("xxabxx") != -1);
+    }
+
+    @Test
+    public void searchAgreesWithFindOnInvertedPattern() {
+        Pattern pattern = Pattern.compile("!(!(b))");
+        assertTrue(pattern.getAutomaton().isInverted());
+        String[] texts = {"ccc", "", "b", "cbc", "bbb", "cb"};
+        for (String text : texts) {
+            Matcher matcher = pattern.matcher();
+            assertEquals(text, matcher.find(text), matcher.search(text) != -1);
+        }
+        assertEquals(-1, pattern.matcher().search("ccc"));
+    }
+
+    @Test
+    public void searchOfInvertedPatternReturnsEarliestEnd() {
+        Pattern pattern = Pattern.compile("!(!(ab*))");
+        assertTrue(pattern.getAutomaton().isInverted());
+        String[] texts = {"cab", "abbb", "bba", "", "ca", "ccc"};
+        for (String text : texts) {
+            int earliest = -1;
+            for (int j = 0; j <= text.length() && earliest == -1; j++) {
+                for (int i = 0; i <= j; i++) {
+                    if (pattern.matches(text.substring(i, j))) {
+                        earliest = j;
+                        break;
+                    }
+                }
+            }
+            assertEquals(text, earliest, pattern.matcher().search(text));
+        }
+    }
+
+    @Test
+    public void streamSearchAgreesWithSearchOnInvertedPattern() throws IOException {
+        Pattern pattern = Pattern.compile("!(!(ab))");
+        assertTrue(pattern.getAutomaton().isInverted());
+        String[] texts = {"xxabxx", "ab", "", "ba", "aab", "bbbb", "ä"};
+        for (String text : texts) {
+            Matcher matcher = pattern.matcher();
+            assertEquals(text, matcher.search(text), matcher.search(stream(text)));
+            assertEquals(text, matcher.find(text), matcher.search(stream(text)) != -1);
+        }
+    }
+
+    /**
+     * Finds the leftmost-longest match by trying every part of the text.
+     */
+    private int[] bruteForce(Pattern pattern, String text, int from) {
+        for (int i = from; i <= text.length(); i++) {
+            for (int j = text.length(); j >= i; j--) {
+                if (pattern.matches(text.substring(i, j))) {
+                    return new int[]{i, j};
+                }
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void findReturnsLeftmostMatch() {
+        Matcher matcher = Pattern.compile("abcd|c").matcher();
+        assertTrue(matcher.find("xabcd"));
+        assertEquals(1, matcher.start());
+        assertEquals(5, matcher.end());
+    }
+
+    @Test
+    public void findReturnsLongestMatchAtLeftmostStart() {
+        Matcher matcher = Pattern.compile("(a|b)*c").matcher();
+        assertTrue(matcher.find("xxabacbcd"));
+        assertEquals(2, matcher.start());
+        assertEquals(6, matcher.end());
+    }
+
+    @Test
+    public void findReturnsEmptyMatch() {
+        Matcher matcher = Pattern.compile("a*").matcher();
+        assertTrue(matcher.find("bbaa"));
+        assertEquals(0, matcher.start());
+        assertEquals(0, matcher.end());
+        assertTrue(matcher.find("bbaa", 2));
+        assertEquals(2, matcher.start());
+        assertEquals(4, matcher.end());
+    }
+
+    @Test
+    public void findStartsFromGivenIndex() {
+        Matcher matcher = Pattern.compile("ab").matcher();
+        assertTrue(matcher.find("abxab", 1));
+        assertEquals(3, matcher.start());
+        assertEquals(5, matcher.end());
+        assertFalse(matcher.find("abxab", 4));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void positionsAreNotAvailableWithoutMatch() {
+        Matcher matcher = Pattern.compile("ab").matcher();
+        assertFalse(matcher.find("ba"));
+        matcher.start();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void findFromOutsideTextFails() {
+        Pattern.compile("ab").matcher().find("ab", 3);
+    }
+
+    @Test
+    public void findInInvertedPatternUsesAnchoredAttempts() {
+        Pattern pattern = Pattern.compile("!(!(ab))");
+        Matcher matcher = pattern.matcher();
+        assertTrue(matcher.find("xxabxx"));
+        int[] expected = bruteForce(pattern, "xxabxx", 0);
+        assertEquals(expected[0], matcher.start());
+        assertEquals(expected[1], matcher.end());
+    }
+
+    @Test
+    public void findAgreesWithTryingEveryPart() {
+        String[] regexes = {"(a|b)*b", "ab|b(a|c)*", "a[2,3]", "(ab)*c?", "a.c", "b(a|#)c"};
+        java.util.Random random = new java.util.Random(42);
+        for (String regex : regexes) {
+            Pattern pattern = Pattern.compile(regex);
+            Matcher matcher = pattern.matcher();
+            for (int k = 0; k < 50; k++) {
+                StringBuilder sb = new StringBuilder();
+                int length = random.nextInt(10);
+                for (int i = 0; i < length; i++) {
+                    sb.append((char) ('a' + random.nextInt(4)));
+                }
+                String text = sb.toString();
+                int from = random.nextInt(text.length() + 1);
+                int[] expected = bruteForce(pattern, text, from);
+                assertEquals(regex + " " + text, expected != null, matcher.find(text, from));
+                if (expected != null) {
+                    assertEquals(regex + " " + text, expected[0], matcher.start());
+                    assertEquals(regex + " " + text, expected[1], matcher.end());
+                }
+            }
+        }
+    }
+
+    private String listMatches(Matcher matcher, CharSequence text) {
+        StringBuilder sb = new StringBuilder();
+        for (Match match : matcher.findAll(text)) {
+            sb.append(match.getStart()).append('-').append(match.getEnd()).append(' ');
+        }
+        return sb.toString().trim();
+    }
+
+    @Test
+    public void findAllEnumeratesNonOverlappingMatches() {
+        Matcher matcher = Pattern.compile("ab|ba").matcher();
+        assertEquals("0-2 3-5 5-7", listMatches(matcher, "abxabab"));
+        assertEquals("", listMatches(matcher, "xxx"));
+    }
+
+    @Test
+    public void findAllAdvancesPastEmptyMatches() {
+        Matcher matcher = Pattern.compile("a*").matcher();
+        assertEquals("0-0 1-3 3-3", listMatches(matcher, "baa"));
+        assertEquals("0-0", listMatches(matcher, ""));
+    }
+
+    @Test
+    public void findAllReusesOneMatchObject() {
+        Iterator<Match> matches = Pattern.compile("o(n|u)").matcher().findAll("onko ou").iterator();
+        Match first = matches.next();
+        assertEquals("on", first.toString());
+        Match second = matches.next();
+        assertSame(first, second);
+        assertEquals("ou", second.toString());
+        assertEquals(5, second.getStart());
+        assertEquals(2, second.length());
+        assertFalse(matches.hasNext());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void findAllIteratorEnds() {
+        Iterator<Match> matches = Pattern.compile("x").matcher().findAll("x").iterator();
+        matches.next();
+        matches.next();
+    }
+
+    @Test
+    public void findAllSearchesCharBuffer() {
+        String text = filler(10000) + "xyz" + filler(10000) + "xyyz";
+        CharBuffer buffer = CharBuffer.wrap(text.toCharArray());
+        Matcher matcher = Pattern.compile("xy*z").matcher();
+        assertEquals("10000-10003 20003-20007", listMatches(matcher, buffer));
+    }
+}
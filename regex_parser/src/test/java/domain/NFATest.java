@@ -244,4 +244,69 @@ public class NFATest {
 
     }
 
+    @Test
+    public void addEpsilonTransitionsOfStatesFollowsChainsAndCycles() {
+        NFA nfa = simpleKleeneStarNFA('a');
+        OwnSet<State> states = new OwnSet();
+        states.add(new State(2));
+        nfa.addEpsilonTransitionsOfStates(states);
+        assertEquals(1, states.size());
+
+        states = new OwnSet();
+        states.add(nfa.getStartingState());
+        nfa.addEpsilonTransitionsOfStates(states);
+        assertEquals(3, states.size());
+        assertFalse(states.contains(new State(2)));
+    }
+
+    @Test
+    public void addEpsilonTransitionsOfStatesDoesNotExpandVisitedStates() {
+        NFA nfa = simpleUnionNFA('a', 'b');
+        OwnSet<State> states = new OwnSet();
+        states.add(nfa.getStartingState());
+        OwnSet<State> visited = new OwnSet();
+        visited.add(nfa.getStartingState());
+        nfa.addEpsilonTransitionsOfStates(states, visited);
+        assertEquals(1, states.size());
+    }
+
+    @Test
+    public void addEpsilonTransitionsOfStatesHandlesLongChains() {
+        State first = new State(0);
+        State last = first;
+        for (int i = 1; i <= 100000; i++) {
+            State next = new State(i);
+            last.addStatesReachableWithoutSymbols(next);
+            last = next;
+        }
+        OwnSet<State> states = new OwnSet();
+        states.add(first);
+        new NFA(first, new OwnSet()).addEpsilonTransitionsOfStates(states);
+        assertEquals(100001, states.size());
+        assertTrue(states.contains(last));
+    }
+
+    @Test
+    public void bitParallelSimulationFollowsChangedAcceptingStates() {
+        NFA nfa = simpleUnionNFA('a', 'b');
+        nfa.enableBitParallelSimulation();
+        assertTrue(nfa.accepts("a"));
+        OwnSet<State> accepting = new OwnSet<>();
+        accepting.add(new State(4));
+        nfa.setAcceptingStates(accepting);
+        assertFalse(nfa.accepts("a"));
+        assertTrue(nfa.accepts("b"));
+    }
+
+    @Test
+    public void shiftAndSimulationFollowsChangedAcceptingStates() {
+        NFA nfa = simpleUnionNFA('a', 'b');
+        nfa.enableShiftAndSimulation();
+        assertTrue(nfa.accepts("a"));
+        OwnSet<State> accepting = new OwnSet<>();
+        accepting.add(new State(4));
+        nfa.setAcceptingStates(accepting);
+        assertFalse(nfa.accepts("a"));
+        assertTrue(nfa.accepts("b"));
+    }
 }
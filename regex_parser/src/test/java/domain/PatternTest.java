@@ -0,0 +1,78 @@
+package domain;
+
+import utils.generators.NFAGenerator;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class PatternTest {
+
+    public PatternTest() {
+    }
+
+    @Test
+    public void compiledPatternMatchesLikeNFA() {
+        Pattern pattern = Pattern.compile("(a|b)*abb");
+        assertTrue(pattern.matches("aababb"));
+        assertFalse(pattern.matches("abba"));
+        assertEquals("(a|b)*abb", pattern.getRegex());
+    }
+
+    @Test
+    public void largePatternIsMatchedWithLazyDFA() {
+        Pattern pattern = Pattern.compile("a[200,200]");
+        Matcher matcher = pattern.matcher();
+        String test = "";
+        for (int i = 0; i < 200; i++) {
+            test += "a";
+        }
+        assertTrue(matcher.matches(test));
+        assertFalse(matcher.matches(test + "a"));
+        assertFalse(matcher.matches(test.substring(1)));
+    }
+
+    @Test
+    public void negatedPatternIsMatchedCorrectly() {
+        Pattern pattern = Pattern.compile("!(ab*)");
+        assertTrue(pattern.matches("ba"));
+        assertFalse(pattern.matches("abbb"));
+    }
+
+    @Test
+    public void changesToNFADoNotAffectPattern() {
+        NFA nfa = new NFAGenerator(false).generateNFA("ab");
+        Pattern pattern = new Pattern("ab", nfa);
+        nfa.invert();
+        assertTrue(pattern.matches("ab"));
+        assertFalse(pattern.matches("ba"));
+    }
+
+    @Test
+    public void matchersOfSharedPatternWorkInParallel() throws InterruptedException {
+        final Pattern pattern = Pattern.compile("(a|b)*a(a|b)[150,150]");
+        final boolean[] failed = new boolean[1];
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int seed = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    Matcher matcher = pattern.matcher();
+                    String suffix = "";
+                    for (int i = 0; i < 150; i++) {
+                        suffix += ((i + seed) % 3 == 0) ? "a" : "b";
+                    }
+                    for (int i = 0; i < 20; i++) {
+                        if (!matcher.matches("ba" + suffix) || matcher.matches("ab" + suffix)) {
+                            failed[0] = true;
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(failed[0]);
+    }
+}
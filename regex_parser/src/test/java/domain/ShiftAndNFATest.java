@@ -0,0 +1,111 @@
+package domain;
+
+import utils.generators.NFAGenerator;
+import utils.structures.OwnSet;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ShiftAndNFATest {
+
+    public ShiftAndNFATest() {
+    }
+
+    private CompiledNFA compiled(String regex) {
+        return new NFAGenerator(false).generateNFA(regex).compile();
+    }
+
+    private String repeat(char c, int n) {
+        String result = "";
+        for (int i = 0; i < n; i++) {
+            result += c;
+        }
+        return result;
+    }
+
+    @Test
+    public void smallAutomatonFitsInOneWord() {
+        ShiftAndNFA simulation = new ShiftAndNFA(compiled("(a|b)*abb"));
+        assertEquals(1, simulation.getWords());
+    }
+
+    @Test
+    public void automatonWithOver63PositionsUsesTwoWords() {
+        ShiftAndNFA simulation = new ShiftAndNFA(compiled("(a?)[40,40]a[40,40]"));
+        assertEquals(2, simulation.getWords());
+        assertTrue(simulation.accepts(repeat('a', 40)));
+        assertTrue(simulation.accepts(repeat('a', 80)));
+        assertFalse(simulation.accepts(repeat('a', 39)));
+        assertFalse(simulation.accepts(repeat('a', 81)));
+    }
+
+    @Test
+    public void tooManyPositionsDoNotFit() {
+        assertFalse(ShiftAndNFA.fits(compiled("a[128,128]")));
+        assertTrue(ShiftAndNFA.fits(compiled("a[127,127]")));
+    }
+
+    @Test
+    public void invertedAutomatonDoesNotFit() {
+        NFA nfa = new NFAGenerator(false).generateNFA("ab");
+        nfa.invert();
+        assertFalse(ShiftAndNFA.fits(nfa.compile()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorRejectsAutomatonThatDoesNotFit() {
+        new ShiftAndNFA(compiled("a[128,128]"));
+    }
+
+    @Test
+    public void emptyStringIsAcceptedWhenStartingStateIsAccepting() {
+        ShiftAndNFA simulation = new ShiftAndNFA(compiled("a*"));
+        assertTrue(simulation.accepts(""));
+        assertTrue(simulation.accepts("aaa"));
+        assertFalse(simulation.accepts("ab"));
+    }
+
+    @Test
+    public void anySymbolMatchesUnusedSymbols() {
+        ShiftAndNFA simulation = new ShiftAndNFA(compiled(".*((C|c)ountenance).*"));
+        assertTrue(simulation.accepts("his countenance!"));
+        assertTrue(simulation.accepts("Countenance"));
+        assertFalse(simulation.accepts("his count"));
+    }
+
+    @Test
+    public void resultsMatchListSimulation() {
+        String[] regexes = {"(a|b)*abb", "x[2,4]y?", "(ab|a)*(b|#)", "a.c", "(a|b|c)[1,3]c"};
+        String[] tests = {"", "abb", "aabb", "ab", "xx", "xxxxy", "b", "abc", "aac", "ac", "c", "abbbc"};
+        NFAGenerator generator = new NFAGenerator(false);
+        for (String regex : regexes) {
+            NFA nfa = generator.generateNFA(regex);
+            CompiledNFA automaton = nfa.compile();
+            ShiftAndNFA simulation = new ShiftAndNFA(automaton);
+            for (String test : tests) {
+                assertEquals(regex + " " + test, automaton.accepts(test), simulation.accepts(test));
+            }
+        }
+    }
+
+    @Test
+    public void generatorEnablesShiftAndForSmallAutomata() {
+        NFAGenerator generator = new NFAGenerator(false);
+        assertTrue(generator.generateNFA("abc").usesShiftAndSimulation());
+        assertFalse(generator.generateNFA("a[200,200]").usesShiftAndSimulation());
+    }
+
+    @Test
+    public void nfaStopsUsingShiftAndWhenInverted() {
+        State s0 = new State(0);
+        State s1 = new State(1);
+        s0.addNextStateForSymbol('a', s1);
+        OwnSet<State> accepting = new OwnSet();
+        accepting.add(s1);
+        NFA nfa = new NFA(s0, accepting);
+        nfa.enableShiftAndSimulation();
+        assertTrue(nfa.accepts("a"));
+        assertFalse(nfa.accepts("b"));
+        nfa.invert();
+        assertTrue(nfa.accepts("b"));
+    }
+}
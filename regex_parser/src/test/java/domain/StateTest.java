@@ -209,6 +209,28 @@ public class StateTest {
         assertTrue(s1.hashCode() != s2.hashCode());
     }
 
-    
-
+    @Test
+    public void classTransitionsWithEqualClassesAreMerged(){
+        State s = new State(0);
+        s.addNextStateForClass(CharacterClass.range('a', 'c'), new State(1));
+        s.addNextStateForClass(CharacterClass.range('a', 'c'), new State(2));
+        s.addNextStateForClass(CharacterClass.range('x', 'z'), new State(3));
+        assertEquals(2, s.getNumberOfClassTransitions());
+        assertEquals(2, s.getNextStatesForClass(0).size());
+    }
+
+    @Test
+    public void nextStatesForSymbolIncludeClassTransitions(){
+        State s = new State(0);
+        s.addNextStateForSymbol('b', new State(1));
+        s.addNextStateForClass(CharacterClass.range('a', 'c'), new State(2));
+        s.addStatesReachableWithAnyCharacter(new State(3));
+        OwnSet<State> states = new OwnSet();
+        s.addNextStatesForSymbolTo('b', states);
+        assertEquals(2, states.size());
+        assertTrue(states.contains(new State(1)) && states.contains(new State(2)));
+        states = new OwnSet();
+        s.addNextStatesForSymbolTo('d', states);
+        assertTrue(states.isEmpty());
+    }
 }
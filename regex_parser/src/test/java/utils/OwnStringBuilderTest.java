@@ -100,4 +100,60 @@ public class OwnStringBuilderTest {
         assertEquals("and", sb.substring(11, 14));
     }
     
+    @Test
+    public void substringSpanningEditedPositionIsCorrect(){
+        sb.insert(5, "-");
+        sb.deleteCharAt(0);
+        assertEquals("itch-craft", sb.substring(0, 10));
+    }
+    
+    @Test
+    public void editsFarApartAgreeWithStringBuilder(){
+        StringBuilder expected = new StringBuilder("witchcraft and wizardry");
+        for (int i = 0; i < 2000; i++) {
+            int idx = (i * 37) % (expected.length() + 1);
+            if (i % 3 == 2) {
+                idx = Math.min(idx, expected.length() - 1);
+                expected.deleteCharAt(idx);
+                sb.deleteCharAt(idx);
+            } else {
+                expected.insert(idx, "x" + i);
+                sb.insert(idx, "x" + i);
+            }
+        }
+        assertEquals(expected.length(), sb.length());
+        assertEquals(expected.toString(), sb.toString());
+        assertEquals(expected.indexOf("x1999"), sb.indexOf("x1999", 0));
+    }
+    
+    @Test
+    public void charAtSkipsGap(){
+        sb.insert(3, "ABC");
+        sb.deleteCharAt(10);
+        String expected = "witABCchcrft and wizardry";
+        for (int i = 0; i < expected.length(); i++) {
+            assertEquals(expected.charAt(i), sb.charAt(i));
+        }
+    }
+    
+    @Test(expected = StringIndexOutOfBoundsException.class)
+    public void insertBeyondEndThrows(){
+        sb.insert(sb.length() + 1, "a");
+    }
+    
+    @Test
+    public void appendAddsToEnd(){
+        sb.insert(0, "x").append(" and ").append('z');
+        assertEquals("xwitchcraft and wizardry and z", sb.toString());
+    }
+    
+    @Test
+    public void appendGrowsEmptyBuilder(){
+        OwnStringBuilder empty = new OwnStringBuilder("");
+        for (int i = 0; i < 100; i++) {
+            empty.append('a');
+        }
+        assertEquals(100, empty.length());
+        assertEquals('a', empty.charAt(99));
+    }
 }
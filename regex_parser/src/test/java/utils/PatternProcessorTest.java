@@ -156,12 +156,12 @@ public class PatternProcessorTest {
 
     @Test
     public void replaceShorthandsWorksWithRepetitionWhenBothValuesSpecified() {
-        assertEquals("(aaaa|aaa|aa)", processor.replaceShorthands("a[2,4]"));
+        assertEquals("(aa(a(a|#)|#))", processor.replaceShorthands("a[2,4]"));
     }
 
     @Test
     public void replaceShorthandsWorksWithRepetitionWhenBothValuesDoubleDigits() {
-        assertEquals("(aaaaaaaaaaaaaaa|aaaaaaaaaaaaaa)", processor.replaceShorthands("a[14,15]"));
+        assertEquals("(aaaaaaaaaaaaaa(a|#))", processor.replaceShorthands("a[14,15]"));
     }
 
     @Test
@@ -171,7 +171,7 @@ public class PatternProcessorTest {
 
     @Test
     public void replaceShorthandsWorksWithRepetitionWhenOnlyMaximumSpecified() {
-        assertEquals("(aaa|aa|a|#)", processor.replaceShorthands("a[,3]"));
+        assertEquals("((a(a(a|#)|#)|#))", processor.replaceShorthands("a[,3]"));
     }
 
     @Test
@@ -179,6 +179,18 @@ public class PatternProcessorTest {
         assertEquals("(aa)", processor.replaceShorthands("a[2,2]"));
     }
 
+    @Test
+    public void replaceShorthandsWorksWithRepetitionWhenMaximumIsZero() {
+        assertEquals("(#)", processor.replaceShorthands("a[0,0]"));
+    }
+
+    @Test
+    public void repetitionWithLargeMaximumGrowsLinearly() {
+        String affectedPart = processor.replaceShorthands("a-z");
+        String processed = processor.replaceShorthands("a-z[0,999]");
+        assertTrue(processed.length() < 1000 * (affectedPart.length() + 4) + 10);
+    }
+
     @Test
     public void replaceShorthandsWorksWithMultipleChoiceWithSameNumberInBothPlaces() {
         assertEquals("(3)", processor.replaceShorthands("3-3"));
@@ -272,7 +284,7 @@ public class PatternProcessorTest {
     
     @Test
     public void escapingPlusMarkWorksWithRepetition(){
-        assertEquals("((/[)&(/[)&(/[)&(/[)&(/[)|(/[)&(/[)&(/[)&(/[)|(/[)&(/[)&(/[))", processor.elongateRegularExpression("/[[3,5]"));
+        assertEquals("((/[)&(/[)&(/[)&((/[)&((/[)|#)|#))", processor.elongateRegularExpression("/[[3,5]"));
     }
     
     @Test
@@ -287,7 +299,7 @@ public class PatternProcessorTest {
     
     @Test
     public void spaceWorksWithRepetition(){
-        assertEquals("( & & | & )", processor.elongateRegularExpression(" [2,3]"));
+        assertEquals("( & &( |#))", processor.elongateRegularExpression(" [2,3]"));
     }
     
     @Test
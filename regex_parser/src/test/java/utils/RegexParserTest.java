@@ -0,0 +1,137 @@
+package utils;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class RegexParserTest {
+
+    private RegexParser parser;
+
+    public RegexParserTest() {
+    }
+
+    @Before
+    public void setUp() {
+        parser = new RegexParser();
+    }
+
+    @Test
+    public void emptyPatternIsEmptyString() {
+        assertEquals(RegexNode.Type.EMPTY, parser.parse("").getType());
+    }
+
+    @Test
+    public void concatenationBindsTighterThanUnion() {
+        assertEquals("((a&b)|c)", parser.parse("ab|c").toString());
+        assertEquals("((a&b)|c)", parser.parse("a&b|c").toString());
+    }
+
+    @Test
+    public void longConcatenationIsOneNode() {
+        RegexNode root = parser.parse("abcdef");
+        assertEquals(RegexNode.Type.CONCATENATION, root.getType());
+        assertEquals(6, root.getChildren().length);
+    }
+
+    @Test
+    public void starAppliesToPrecedingAtomOrGroup() {
+        assertEquals("(a&b*)", parser.parse("ab*").toString());
+        assertEquals("(a&b)*", parser.parse("(ab)*").toString());
+    }
+
+    @Test
+    public void shorthandsBecomeRepetitions() {
+        assertEquals("a[1,]", parser.parse("a+").toString());
+        assertEquals("a[0,1]", parser.parse("a?").toString());
+        assertEquals("(a&b)[2,4]", parser.parse("(ab)[2,4]").toString());
+        assertEquals("a[0,3]", parser.parse("a[ ,3]").toString());
+        assertEquals("a[2,]", parser.parse("a[2,]").toString());
+    }
+
+    @Test
+    public void rangeIsCharacterClass() {
+        assertEquals("(a-c)", parser.parse("a-c").toString());
+        assertEquals("(a-c)[1,]", parser.parse("a-c+").toString());
+        assertEquals(RegexNode.Type.CLASS, parser.parse("a-z").getType());
+    }
+
+    @Test
+    public void reversedRangeMatchesNothing() {
+        assertEquals(RegexNode.Type.NOTHING, parser.parse("c-a").getType());
+    }
+
+    @Test
+    public void shorthandsBindTighterThanNegationButStarDoesNot() {
+        assertEquals("(!(a[1,]))", parser.parse("!a+").toString());
+        assertEquals("(!(a))*", parser.parse("!a*").toString());
+    }
+
+    @Test
+    public void doubleNegationsCancelOut() {
+        assertEquals("a", parser.parse("!!a").toString());
+        assertEquals("(!(a))", parser.parse("!!!a").toString());
+        assertEquals("(!((!((a&b)))))", parser.parse("!(!(ab))").toString());
+    }
+
+    @Test
+    public void escapedCharactersAreSymbols() {
+        RegexNode root = parser.parse("/(/*");
+        assertEquals("(/(&/*)", root.toString());
+        assertEquals('*', root.getChildren()[1].getSymbol());
+    }
+
+    @Test
+    public void anyAndEmptySymbolsAreParsed() {
+        assertEquals("(.&#)", parser.parse(".#").toString());
+    }
+
+    @Test
+    public void treeIsWrittenAsParsablePattern() {
+        String[] patterns = {"(a|b)*abb", "!(ab)[2,3]c", "a-c?/+", "(car)+W?!(nafta|#)", "c-a"};
+        for (String pattern : patterns) {
+            String written = parser.parse(pattern).toString();
+            assertEquals(written, parser.parse(written).toString());
+        }
+    }
+
+    @Test
+    public void strayCharactersAreSkipped() {
+        assertEquals("(a&b)", parser.parse("a]b").toString());
+    }
+
+    @Test
+    public void unclosedGroupIsClosedAtEnd() {
+        assertEquals("(a&(b|c))", parser.parse("a(b|c").toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unmatchedClosingParenthesisIsRejected() {
+        parser.parse("ab)c");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingOperandIsRejected() {
+        parser.parse("a|");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void repetitionWithMinimumOverMaximumIsRejected() {
+        parser.parse("a[3,2]");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void repetitionWithoutCommaIsRejected() {
+        parser.parse("a[3]");
+    }
+
+    @Test
+    public void veryLongPatternIsParsedQuickly() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200000; i++) {
+            sb.append("(a|b)");
+        }
+        RegexNode root = parser.parse(sb.toString());
+        assertEquals(200000, root.getChildren().length);
+    }
+}
@@ -5,6 +5,7 @@ import utils.structures.OwnSet;
 import org.junit.Before;
 import org.junit.Test;
 import static org.junit.Assert.*;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 
 
@@ -78,9 +79,41 @@ public class SetIteratorTest {
         
         assertTrue(allIsFine);
     }
-    
-    
 
+    @Test
+    public void everyElementIsReturnedOnceAfterRehashing(){
+        OwnSet<Integer> large = new OwnSet(4);
+        for(int i = 0; i < 1000; i++){
+            large.add(i);
+        }
+        boolean[] seen = new boolean[1000];
+        int count = 0;
+        for(int i : large){
+            assertFalse(seen[i]);
+            seen[i] = true;
+            count++;
+        }
+        assertEquals(1000, count);
+    }
 
-    
+    @Test(expected = ConcurrentModificationException.class)
+    public void addingDuringIterationCausesException(){
+        iter.next();
+        set.add("21");
+        iter.next();
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void removingDuringIterationCausesException(){
+        iter.next();
+        set.remove("1");
+        iter.next();
+    }
+
+    @Test
+    public void addingExistingElementDuringIterationIsAllowed(){
+        iter.next();
+        set.add("1");
+        iter.next();
+    }
 }
@@ -73,4 +73,66 @@ public class DFAGeneratorTest {
         assertTrue(nfa.isInverted() && nfa.accepts("antti") && nfa.accepts("rutto"));
     }
 
+    @Test
+    public void generateComplementDFAFromDFADoesNotModifyInput(){
+        NFA nfa = nGenerator.generateNFA("(antti)|(rutto)");
+        NFA dfa = dGenerator.generateComplementDFA(nfa);
+        dGenerator.generateComplementDFA(dfa);
+        assertFalse(dfa.isInverted());
+        assertFalse(dfa.accepts("antti"));
+    }
+
+    @Test
+    public void generateComplementDFADoesNotModifyTransitionsOfInput(){
+        NFA nfa = new NFAGenerator(false).generateNFA("ab*");
+        int before = nfa.getStartingState().getNextStatesForSymbol('a').size();
+        dGenerator.generateComplementDFA(nfa);
+        assertEquals(before, nfa.getStartingState().getNextStatesForSymbol('a').size());
+    }
+
+    @Test
+    public void generateComplementDFAGroupsSymbolsThatLeadToSameState(){
+        NFA dfa = generateComplementFromPattern("a");
+        // 'a' leads to the accepting state of the NFA, every other symbol to the empty set
+        assertEquals(2, dfa.getStartingState().getNumberOfClassTransitions());
+        assertEquals(3, dfa.compile().getNumberOfClasses());
+    }
+
+    @Test
+    public void generateComplementDFAFromRangeRecognizesComplement(){
+        NFA dfa = generateComplementFromPattern("(a-z)[2,3]");
+        assertTrue(dfa.accepts("a") && dfa.accepts("abcd") && dfa.accepts("A1"));
+        assertFalse(dfa.accepts("ab") || dfa.accepts("xyz"));
+        assertTrue(dfa.compile().getNumberOfClasses() <= 3);
+    }
+
+    @Test
+    public void generateComplementDFAIsMinimal(){
+        // Subset construction gives a separate dead state for each way of
+        // failing, but all of them accept every continuation.
+        NFA dfa = generateComplementFromPattern("(ab|cd)");
+        assertEquals(5, dfa.compile().getNumberOfStates());
+        assertTrue(dfa.accepts("ac") && dfa.accepts("abab") && dfa.accepts(""));
+        assertFalse(dfa.accepts("ab") || dfa.accepts("cd"));
+    }
+
+    @Test
+    public void generateComplementDFAOfBoundedRepetitionIsSmall(){
+        NFA dfa = generateComplementFromPattern("(a-z)[10,20]");
+        assertTrue(dfa.compile().getNumberOfStates() <= 23);
+        assertTrue(dfa.accepts("abcdefghi") && dfa.accepts("abcdefghijklmnopqrstu"));
+        assertFalse(dfa.accepts("abcdefghij") || dfa.accepts("abcdefghijklmnopqrst"));
+    }
+
+    @Test
+    public void generateDFAOfInvertedAutomatonIsNotInverted(){
+        NFA inverted = nGenerator.generateNFA("!(!(ab))");
+        assertTrue(inverted.isInverted());
+        NFA dfa = dGenerator.generateDFA(inverted);
+        assertFalse(dfa.isInverted());
+        String[] inputs = {"", "a", "ab", "abb", "ba", "ä", "aä"};
+        for (String input : inputs) {
+            assertEquals(input, inverted.accepts(input), dfa.accepts(input));
+        }
+    }
 }
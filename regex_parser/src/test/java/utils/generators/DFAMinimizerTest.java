@@ -0,0 +1,49 @@
+package utils.generators;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DFAMinimizerTest {
+
+    public DFAMinimizerTest() {
+    }
+
+    @Test
+    public void equivalentStatesShareBlock() {
+        // 0 -a-> 1, 0 -b-> 2; 1 and 2 are both accepting sinks
+        int[][] transitions = {{1, 2}, {1, 1}, {2, 2}};
+        boolean[] accepting = {false, true, true};
+        int[] blocks = DFAMinimizer.minimize(transitions, accepting, 3, 2);
+        assertEquals(0, blocks[0]);
+        assertEquals(blocks[1], blocks[2]);
+        assertTrue(blocks[0] != blocks[1]);
+    }
+
+    @Test
+    public void statesWithDifferentFuturesAreSeparated() {
+        // Accepts strings whose length is divisible by three, written with six states
+        int[][] transitions = {{1}, {2}, {3}, {4}, {5}, {0}};
+        boolean[] accepting = {true, false, false, true, false, false};
+        int[] blocks = DFAMinimizer.minimize(transitions, accepting, 6, 1);
+        assertEquals(blocks[0], blocks[3]);
+        assertEquals(blocks[1], blocks[4]);
+        assertEquals(blocks[2], blocks[5]);
+        assertTrue(blocks[0] != blocks[1] && blocks[1] != blocks[2] && blocks[0] != blocks[2]);
+    }
+
+    @Test
+    public void singleBlockWhenAllStatesAccept() {
+        int[][] transitions = {{1, 0}, {0, 1}};
+        int[] blocks = DFAMinimizer.minimize(transitions, new boolean[]{true, true}, 2, 2);
+        assertEquals(0, blocks[0]);
+        assertEquals(0, blocks[1]);
+    }
+
+    @Test
+    public void blocksAreNumberedInOrderOfFirstState() {
+        int[][] transitions = {{1}, {2}, {2}};
+        boolean[] accepting = {false, false, true};
+        int[] blocks = DFAMinimizer.minimize(transitions, accepting, 3, 1);
+        assertArrayEquals(new int[]{0, 1, 2}, blocks);
+    }
+}
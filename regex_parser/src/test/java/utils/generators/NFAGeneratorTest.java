@@ -3,6 +3,7 @@ package utils.generators;
 import utils.generators.NFAGenerator;
 import utils.structures.OwnSet;
 import domain.NFA;
+import domain.State;
 import org.junit.Before;
 import org.junit.Test;
 import utils.Utilities;
@@ -296,6 +297,19 @@ public class NFAGeneratorTest {
         assertTrue(nfa.accepts("acacac") && nfa.accepts("acacacac") && nfa.accepts("acacacacac"));
     }
 
+    @Test
+    public void generateNFAFromRepetitionWithLargeMaximumHasLinearSize() {
+        NFA nfa = g.generateNFA("(a-z)[0,300]");
+        assertTrue(nfa.compile().getNumberOfStates() < 300 * 26 * 5);
+        String test = "";
+        for (int i = 0; i < 300; i++) {
+            test += (char) ('a' + i % 26);
+        }
+        assertTrue(nfa.accepts(test));
+        assertTrue(nfa.accepts(""));
+        assertFalse(nfa.accepts(test + "a"));
+    }
+
     @Test
     public void generateNFAFromCharacterAndRepetitionWithoutMinimunAcceptsEmptyString() {
         NFA nfa = g.generateNFA("a[,4]");
@@ -519,4 +533,229 @@ public class NFAGeneratorTest {
     
 
 
+    @Test
+    public void cacheEvictsLeastRecentlyUsedAutomata() {
+        NFAGenerator small = new NFAGenerator(true, 2, 1000);
+        small.generateNFA("a");
+        small.generateNFA("b");
+        small.generateNFA("a");
+        small.generateNFA("c");
+        assertEquals(2, small.getCache().size());
+        assertEquals(1, small.getCache().getEvictions());
+        assertEquals(1, small.getCache().getHits());
+    }
+
+    @Test
+    public void sameAutomatonIsReturnedFromCache() {
+        assertSame(g.generateNFA("ab*"), g.generateNFA("ab*"));
+    }
+
+    @Test
+    public void generatorCanBeSharedByThreads() throws InterruptedException {
+        final String[] patterns = {"ab*(c|a)*", "(a|b)[2,5]", "x?yz+", ".*((C|c)ountenance).*"};
+        final boolean[] failed = new boolean[1];
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 20; i++) {
+                        NFA nfa = g.generateNFA(patterns[(i + offset) % patterns.length]);
+                        if (nfa.accepts("qqq") || !nfa.accepts("abbcac") && !nfa.accepts("aabb")
+                                && !nfa.accepts("xyzz") && !nfa.accepts("a countenance")) {
+                            failed[0] = true;
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(failed[0]);
+        assertEquals(patterns.length, g.getCache().size());
+        assertEquals(patterns.length, g.getCache().getMisses());
+    }
+
+    @Test
+    public void generatorWithoutCacheConstructsConcurrently() throws InterruptedException {
+        final NFAGenerator generator = new NFAGenerator(false);
+        final String[] patterns = {"!(a)b", "!(a)c", "!(b)", "a!(bc)d"};
+        final String[] accepted = {"xb", "xc", "a", "axd"};
+        final String[] rejected = {"ab", "ac", "b", "abcd"};
+        final boolean[] failed = new boolean[1];
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 20; i++) {
+                        int k = (i + offset) % patterns.length;
+                        NFA nfa = generator.generateNFA(patterns[k]);
+                        if (!nfa.accepts(accepted[k]) || nfa.accepts(rejected[k])) {
+                            failed[0] = true;
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(failed[0]);
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void generateNFAFromInvalidPatternFails() {
+        g.generateNFA("a|");
+    }
+
+    @Test
+    public void failedPatternIsNotCached() {
+        try {
+            g.generateNFA("a[3,2]");
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+        assertFalse(g.getCache().containsKey("a[3,2]"));
+    }
+
+    @Test
+    public void generateNFAConcatenatesEmptySymbol() {
+        NFA nfa = g.generateNFA("a#b");
+        assertTrue(nfa.accepts("ab"));
+        assertFalse(nfa.accepts("b"));
+    }
+
+    @Test
+    public void generateNFAFromReversedRangeAcceptsNothing() {
+        NFA nfa = g.generateNFA("ac-a");
+        assertFalse(nfa.accepts("a"));
+        assertFalse(nfa.accepts("ab"));
+    }
+
+    @Test
+    public void generateNFAFromLongPatternWithoutDeepRecursion() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append("(a|b)");
+        }
+        NFA nfa = new NFAGenerator(false).generateNFA(sb.toString());
+        assertTrue(nfa.accepts(sb.toString().replace("(a|b)", "a")));
+    }
+
+    @Test
+    public void generateNFAFromRangeHasConstantNumberOfStates() {
+        NFA nfa = g.generateNFA("(a-z)+");
+        assertTrue(nfa.compile().getNumberOfStates() <= 8);
+        assertTrue(nfa.accepts("regex") && nfa.accepts("z"));
+        assertFalse(nfa.accepts("") || nfa.accepts("Regex"));
+    }
+
+    @Test
+    public void generateNFAFromUnionOfSymbolsAndRanges() {
+        NFA nfa = g.generateNFA("(a|x-z|0-9)");
+        assertEquals(2, nfa.compile().getNumberOfStates());
+        assertTrue(nfa.accepts("a") && nfa.accepts("y") && nfa.accepts("5"));
+        assertFalse(nfa.accepts("b") || nfa.accepts("ay"));
+    }
+
+    @Test
+    public void generateNFAFromNegatedRange() {
+        NFA nfa = g.generateNFA("!(a-c)");
+        assertTrue(nfa.accepts("d") && nfa.accepts("ab") && nfa.accepts(""));
+        assertFalse(nfa.accepts("a") || nfa.accepts("c"));
+    }
+
+    @Test
+    public void glushkovAutomatonHasOneStatePerPosition() {
+        NFAGenerator glushkov = new NFAGenerator(false);
+        glushkov.enableGlushkovConstruction();
+        NFA nfa = glushkov.generateNFA("(ab|c)*d");
+        assertEquals(5, nfa.compile().getNumberOfStates());
+        assertTrue(nfa.accepts("d") && nfa.accepts("abcd") && nfa.accepts("cabd"));
+        assertFalse(nfa.accepts("") || nfa.accepts("ad") || nfa.accepts("abc"));
+    }
+
+    @Test
+    public void glushkovAutomatonHasNoEmptyTransitions() {
+        NFAGenerator glushkov = new NFAGenerator(false);
+        glushkov.enableGlushkovConstruction();
+        NFA nfa = glushkov.generateNFA("(a|#)(b*|c?)[2,3].");
+        OwnSet<State> states = new OwnSet();
+        states.add(nfa.getStartingState());
+        OwnSet<State> visited = new OwnSet();
+        while (!states.isEmpty()) {
+            State s = states.any();
+            states.remove(s);
+            visited.add(s);
+            assertTrue(s.getNextStatesWithEmptyTransitions().isEmpty());
+            OwnSet<State> next = new OwnSet();
+            for (char c : "abcx".toCharArray()) {
+                s.addNextStatesForSymbolTo(c, next);
+            }
+            next.addAll(s.getNextStatesWithAnyCharacter());
+            for (State t : next) {
+                if (!visited.contains(t)) {
+                    states.add(t);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void glushkovAndThompsonAutomataAcceptSameStrings() {
+        NFAGenerator thompson = new NFAGenerator(false);
+        NFAGenerator glushkov = new NFAGenerator(false);
+        glushkov.enableGlushkovConstruction();
+        String[] patterns = {"(a|b)*abb", "a?b+(c|#)", "(ab)[2,4]", "(a|bc)*[1,]", ".a*.", "(a-c)*(b|#)c", "((a*)*|b)c", "a[0,0]b"};
+        String[] inputs = {"", "a", "b", "c", "ab", "abb", "aabb", "abab", "ababab", "abababab", "bc", "bbc", "acc", "bcbc", "ac", "aac", "cc", "b"};
+        for (String pattern : patterns) {
+            NFA t = thompson.generateNFA(pattern);
+            NFA g = glushkov.generateNFA(pattern);
+            for (String input : inputs) {
+                assertEquals(pattern + " " + input, t.accepts(input), g.accepts(input));
+            }
+        }
+    }
+
+    @Test
+    public void glushkovConstructionFallsBackToThompsonWithNegation() {
+        NFAGenerator glushkov = new NFAGenerator(false);
+        glushkov.enableGlushkovConstruction();
+        NFA nfa = glushkov.generateNFA("a!(b)");
+        assertTrue(nfa.accepts("a") && nfa.accepts("abb"));
+        assertFalse(nfa.accepts("ab"));
+    }
+
+    @Test
+    public void switchingConstructionEmptiesCache() {
+        NFAGenerator generator = new NFAGenerator();
+        generator.generateNFA("ab");
+        generator.enableGlushkovConstruction();
+        assertTrue(generator.usesGlushkovConstruction());
+        assertTrue(generator.getCache().isEmpty());
+        assertEquals(3, generator.generateNFA("ab").compile().getNumberOfStates());
+    }
+
+    @Test
+    public void complementsOfEarlierPatternsAreNotReused() {
+        NFAGenerator generator = new NFAGenerator(false);
+        generator.generateNFA("!(a)b");
+        assertTrue(generator.generateNFA("!(a)c").accepts("xc"));
+    }
+
+    @Test
+    public void complementOfAnotherSymbolIsBuiltAnew() {
+        NFAGenerator generator = new NFAGenerator(false);
+        generator.generateNFA("!(a)");
+        NFA nfa = generator.generateNFA("!(b)");
+        assertTrue(nfa.accepts("a"));
+        assertFalse(nfa.accepts("b"));
+    }
 }
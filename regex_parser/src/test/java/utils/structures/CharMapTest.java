@@ -0,0 +1,95 @@
+package utils.structures;
+
+import java.util.HashMap;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CharMapTest {
+
+    private CharMap<String> map;
+
+    @Before
+    public void setUp() {
+        map = new CharMap<>();
+    }
+
+    @Test
+    public void initiallyMapIsEmpty() {
+        assertTrue(map.isEmpty());
+        assertNull(map.get('a'));
+        assertFalse(map.containsKey('a'));
+    }
+
+    @Test
+    public void putValueCanBeRetrieved() {
+        map.put('a', "first");
+        map.put('\uffff', "last");
+        assertEquals("first", map.get('a'));
+        assertEquals("last", map.get('\uffff'));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void puttingExistingKeyReplacesValue() {
+        assertNull(map.put('a', "first"));
+        assertEquals("first", map.put('a', "second"));
+        assertEquals("second", map.get('a'));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void mapGrowsWhenManyKeysArePut() {
+        for (char c = 0; c < 1000; c++) {
+            map.put(c, "" + (int) c);
+        }
+        assertEquals(1000, map.size());
+        for (char c = 0; c < 1000; c++) {
+            assertEquals("" + (int) c, map.get(c));
+        }
+        assertEquals(1000, map.keys().length);
+    }
+
+    @Test
+    public void removedKeyIsNotFoundButOthersAre() {
+        for (char c = 'a'; c <= 'z'; c++) {
+            map.put(c, "" + c);
+        }
+        assertEquals("m", map.remove('m'));
+        assertNull(map.remove('m'));
+        assertFalse(map.containsKey('m'));
+        for (char c = 'a'; c <= 'z'; c++) {
+            if (c != 'm') {
+                assertEquals("" + c, map.get(c));
+            }
+        }
+        assertEquals(25, map.size());
+    }
+
+    @Test
+    public void randomOperationsAgreeWithHashMap() {
+        Random random = new Random(3);
+        HashMap<Character, String> expected = new HashMap();
+        for (int i = 0; i < 20000; i++) {
+            char key = (char) random.nextInt(200);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, "" + i), map.put(key, "" + i));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (char c = 0; c < 200; c++) {
+            assertEquals(expected.get(c), map.get(c));
+        }
+    }
+
+    @Test
+    public void clearRemovesAllKeys() {
+        map.put('a', "a");
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get('a'));
+    }
+}
@@ -0,0 +1,82 @@
+package utils.structures;
+
+import java.util.HashMap;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class IntMapTest {
+
+    private IntMap map;
+
+    @Before
+    public void setUp() {
+        map = new IntMap();
+    }
+
+    @Test
+    public void missingKeyGivesMissingValue() {
+        assertTrue(map.isEmpty());
+        assertEquals(-1, map.get(5, -1));
+        assertFalse(map.containsKey(5));
+    }
+
+    @Test
+    public void anyIntCanBeKey() {
+        map.put(0, 1);
+        map.put(-1, 2);
+        map.put(Integer.MIN_VALUE, 3);
+        map.put(Integer.MAX_VALUE, 4);
+        assertEquals(1, map.get(0, -1));
+        assertEquals(2, map.get(-1, -1));
+        assertEquals(3, map.get(Integer.MIN_VALUE, -1));
+        assertEquals(4, map.get(Integer.MAX_VALUE, -1));
+        assertEquals(4, map.size());
+    }
+
+    @Test
+    public void puttingExistingKeyReplacesValue() {
+        map.put(7, 1);
+        map.put(7, 2);
+        assertEquals(2, map.get(7, -1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void removedKeyIsNotFound() {
+        map.put(7, 1);
+        assertTrue(map.remove(7));
+        assertFalse(map.remove(7));
+        assertFalse(map.containsKey(7));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void randomOperationsAgreeWithHashMap() {
+        Random random = new Random(5);
+        HashMap<Integer, Integer> expected = new HashMap();
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(300) - 100;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                expected.put(key, i);
+                map.put(key, i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key = -100; key < 200; key++) {
+            Integer value = expected.get(key);
+            assertEquals(value == null ? -1 : value, map.get(key, -1));
+        }
+    }
+
+    @Test
+    public void clearRemovesAllKeys() {
+        map.put(1, 1);
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(1));
+    }
+}
@@ -0,0 +1,79 @@
+package utils.structures;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class IntSetTableTest {
+
+    private IntSetTable table;
+
+    @Before
+    public void setUp() {
+        table = new IntSetTable();
+    }
+
+    private static SparseSet setOf(int... elements) {
+        SparseSet set = new SparseSet(1000);
+        for (int e : elements) {
+            set.add(e);
+        }
+        return set;
+    }
+
+    @Test
+    public void setsGetIdsInOrderOfFirstAppearance() {
+        assertEquals(0, table.intern(setOf(1, 2)));
+        assertEquals(1, table.intern(setOf(3)));
+        assertEquals(2, table.intern(setOf()));
+        assertEquals(3, table.size());
+    }
+
+    @Test
+    public void sameSetInAnotherOrderGetsSameId() {
+        int id = table.intern(setOf(5, 1, 9));
+        assertEquals(id, table.intern(setOf(9, 5, 1)));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void storedSetIsSorted() {
+        int id = table.intern(setOf(5, 1, 9));
+        assertArrayEquals(new int[]{1, 5, 9}, table.get(id));
+    }
+
+    @Test
+    public void setInDescendingOrderIsSorted() {
+        SparseSet set = new SparseSet(1000);
+        for (int e = 999; e >= 0; e -= 3) {
+            set.add(e);
+        }
+        int[] stored = table.get(table.intern(set));
+        assertEquals(set.size(), stored.length);
+        for (int i = 1; i < stored.length; i++) {
+            assertTrue(stored[i - 1] < stored[i]);
+        }
+    }
+
+    @Test
+    public void subsetGetsOwnId() {
+        int id = table.intern(setOf(1, 2, 3));
+        assertNotEquals(id, table.intern(setOf(1, 2)));
+    }
+
+    @Test
+    public void manySetsKeepTheirIds() {
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i, table.intern(setOf(i, i + 1, 2 * i)));
+        }
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i, table.intern(setOf(2 * i, i + 1, i)));
+        }
+        assertEquals(500, table.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getUnknownIdThrowsException() {
+        table.get(0);
+    }
+}
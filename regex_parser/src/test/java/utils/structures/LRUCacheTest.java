@@ -0,0 +1,157 @@
+package utils.structures;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LRUCacheTest {
+
+    private LRUCache<String, Integer> cache;
+
+    private LRUCache.Loader<String, Integer> length;
+
+    public LRUCacheTest() {
+
+    }
+
+    @Before
+    public void setUp() {
+        cache = new LRUCache(3);
+        length = new LRUCache.Loader<String, Integer>() {
+            @Override
+            public Integer load(String key) {
+                return key.length();
+            }
+        };
+    }
+
+    @Test
+    public void cacheIsInitiallyEmpty() {
+        assertTrue(cache.isEmpty());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void missingValueIsLoaded() {
+        assertEquals(6, (int) cache.get("kameli", length));
+        assertTrue(cache.containsKey("kameli"));
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    public void storedValueIsNotLoadedAgain() {
+        cache.get("kameli", length);
+        LRUCache.Loader<String, Integer> failing = new LRUCache.Loader<String, Integer>() {
+            @Override
+            public Integer load(String key) {
+                throw new IllegalStateException();
+            }
+        };
+        assertEquals(6, (int) cache.get("kameli", failing));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void leastRecentlyUsedValueIsEvicted() {
+        cache.get("a", length);
+        cache.get("bb", length);
+        cache.get("ccc", length);
+        cache.get("a", length);
+        cache.get("dddd", length);
+        assertEquals(3, cache.size());
+        assertTrue(cache.containsKey("a"));
+        assertFalse(cache.containsKey("bb"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void totalWeightIsBounded() {
+        LRUCache<String, Integer> weighted = new LRUCache(100, 10, new LRUCache.Weigher<Integer>() {
+            @Override
+            public long weigh(Integer value) {
+                return value;
+            }
+        });
+        weighted.get("abcd", length);
+        weighted.get("efgh", length);
+        weighted.get("ijkl", length);
+        assertEquals(2, weighted.size());
+        assertEquals(8, weighted.getWeight());
+        assertFalse(weighted.containsKey("abcd"));
+    }
+
+    @Test
+    public void valueHeavierThanLimitIsStillKept() {
+        LRUCache<String, Integer> weighted = new LRUCache(100, 3, new LRUCache.Weigher<Integer>() {
+            @Override
+            public long weigh(Integer value) {
+                return value;
+            }
+        });
+        weighted.get("ab", length);
+        assertEquals(5, (int) weighted.get("abcde", length));
+        assertEquals(1, weighted.size());
+        assertTrue(weighted.containsKey("abcde"));
+    }
+
+    @Test
+    public void failedLoadIsNotStored() {
+        try {
+            cache.get("kameli", new LRUCache.Loader<String, Integer>() {
+                @Override
+                public Integer load(String key) {
+                    throw new IllegalStateException();
+                }
+            });
+            fail();
+        } catch (IllegalStateException e) {
+        }
+        assertFalse(cache.containsKey("kameli"));
+        assertEquals(6, (int) cache.get("kameli", length));
+    }
+
+    @Test
+    public void clearRemovesValues() {
+        cache.get("a", length);
+        cache.get("bb", length);
+        cache.clear();
+        assertTrue(cache.isEmpty());
+        assertEquals(0, cache.getWeight());
+        assertNull(cache.getIfPresent("a"));
+    }
+
+    @Test
+    public void concurrentRequestsLoadValueOnce() throws InterruptedException {
+        final int[] loads = new int[1];
+        final LRUCache.Loader<String, Integer> slow = new LRUCache.Loader<String, Integer>() {
+            @Override
+            public Integer load(String key) {
+                synchronized (loads) {
+                    loads[0]++;
+                }
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                }
+                return key.length();
+            }
+        };
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    cache.get("kameli", slow);
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, loads[0]);
+        assertEquals(1, cache.getMisses());
+        assertEquals(7, cache.getHits());
+    }
+}
@@ -0,0 +1,83 @@
+package utils.structures;
+
+import java.util.HashMap;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class OpenMapTest {
+
+    private OpenMap<String, Integer> map;
+
+    @Before
+    public void setUp() {
+        map = new OpenMap<>();
+    }
+
+    @Test
+    public void initiallyMapIsEmpty() {
+        assertTrue(map.isEmpty());
+        assertNull(map.get("a"));
+        assertFalse(map.containsKey("a"));
+    }
+
+    @Test
+    public void putValueCanBeRetrieved() {
+        map.put("a", 1);
+        map.put("b", 2);
+        assertEquals((Integer) 1, map.get("a"));
+        assertEquals((Integer) 2, map.get("b"));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void puttingExistingKeyReplacesValue() {
+        assertNull(map.put("a", 1));
+        assertEquals((Integer) 1, map.put("a", 2));
+        assertEquals((Integer) 2, map.get("a"));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void keysWithSameHashCodeAreKeptApart() {
+        // "Aa" and "BB" have the same hash code
+        map.put("Aa", 1);
+        map.put("BB", 2);
+        assertEquals((Integer) 1, map.get("Aa"));
+        assertEquals((Integer) 2, map.get("BB"));
+        map.remove("Aa");
+        assertEquals((Integer) 2, map.get("BB"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullKeyThrowsException() {
+        map.put(null, 1);
+    }
+
+    @Test
+    public void randomOperationsAgreeWithHashMap() {
+        Random random = new Random(7);
+        HashMap<String, Integer> expected = new HashMap();
+        for (int i = 0; i < 20000; i++) {
+            String key = "k" + random.nextInt(300);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int k = 0; k < 300; k++) {
+            assertEquals(expected.get("k" + k), map.get("k" + k));
+        }
+    }
+
+    @Test
+    public void clearRemovesAllKeys() {
+        map.put("a", 1);
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get("a"));
+    }
+}
@@ -185,6 +185,63 @@ public class OwnMapTest {
     
     
     
+    @Test
+    public void mapsWithSameKeysAreEqualOnlyWithSameValues(){
+        OwnMap<String, Integer> map2 = new OwnMap(10);
+        map.put("a", 1);
+        map.put("b", 2);
+        map2.put("b", 2);
+        map2.put("a", 1);
+        assertEquals(map, map2);
+        assertEquals(map.hashCode(), map2.hashCode());
+        map2.put("a", 3);
+        assertFalse(map.equals(map2));
+    }
+
+    @Test
+    public void modifyingCopyDoesNotChangeOriginal(){
+        map.put("a", 1);
+        map.put("b", 2);
+        OwnMap<String, Integer> copy = map.copy();
+        copy.put("a", 3);
+        copy.remove("b");
+        copy.put("c", 4);
+        assertEquals((Integer) 1, map.get("a"));
+        assertEquals((Integer) 2, map.get("b"));
+        assertFalse(map.containsKey("c"));
+        assertEquals(2, map.size());
+        assertEquals((Integer) 3, copy.get("a"));
+        assertFalse(copy.containsKey("b"));
+        assertTrue(copy.containsKey("c"));
+    }
+
+    @Test
+    public void modifyingOriginalDoesNotChangeCopy(){
+        addHundredElements();
+        OwnMap<String, Integer> copy = map.copy();
+        map.put("key0", -1);
+        map.remove("key1");
+        assertEquals((Integer) 0, copy.get("key0"));
+        assertTrue(copy.containsKey("key1"));
+        assertEquals(100, copy.size());
+    }
+
+    @Test
+    public void copyOfModifiedCopyIsIndependent(){
+        addHundredElements();
+        OwnMap<String, Integer> copy = map.copy();
+        copy.put("key0", -1);
+        OwnMap<String, Integer> second = copy.copy();
+        second.put("key0", -2);
+        copy.remove("key1");
+        assertEquals((Integer) 0, map.get("key0"));
+        assertEquals((Integer) (-1), copy.get("key0"));
+        assertEquals((Integer) (-2), second.get("key0"));
+        assertTrue(map.containsKey("key1"));
+        assertTrue(second.containsKey("key1"));
+        assertEquals(99, copy.size());
+    }
+
     private void addHundredElements(){
         for(int i = 0; i < 100; i++){
             map.put("key" + i, i);
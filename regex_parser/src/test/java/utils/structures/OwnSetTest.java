@@ -131,6 +131,108 @@ public class OwnSetTest {
         }
         assertEquals(set, set2);
     }
-      
-    
+
+    @Test
+    public void equalsIgnoresCapacityAndOrderOfAdding(){
+        OwnSet<String> set2 = new OwnSet(7);
+        for(int i = 0; i < 50; i++){
+            set.add("" + i);
+            set2.add("" + (49 - i));
+        }
+        assertEquals(set, set2);
+        assertEquals(set.hashCode(), set2.hashCode());
+    }
+
+    @Test
+    public void equalsReturnsFalseForDifferentElementsOfSameNumber(){
+        set.add("yksi");
+        OwnSet<String> set2 = new OwnSet();
+        set2.add("kaksi");
+        assertFalse(set.equals(set2));
+    }
+
+    @Test
+    public void hashCodeFollowsAddingAndRemoving(){
+        OwnSet<String> set2 = new OwnSet();
+        set2.add("yksi");
+        int hash = set2.hashCode();
+        set.add("yksi");
+        set.add("kaksi");
+        set.add("kaksi");
+        set.remove("kaksi");
+        set.remove("kolme");
+        assertEquals(hash, set.hashCode());
+        assertEquals(set2, set);
+        set.clear();
+        assertEquals(new OwnSet().hashCode(), set.hashCode());
+    }
+
+    @Test
+    public void hashCodeSurvivesRehashing(){
+        OwnSet<String> set2 = new OwnSet(1000);
+        for(int i = 0; i < 500; i++){
+            set.add("" + i);
+            set2.add("" + i);
+        }
+        assertTrue(set.getCapacity() != set2.getCapacity());
+        assertEquals(set2.hashCode(), set.hashCode());
+        assertEquals(set2, set);
+    }
+
+    @Test
+    public void copyHasSameElements(){
+        set.add("yksi");
+        set.add("kaksi");
+        OwnSet<String> copy = set.copy();
+        assertEquals(set, copy);
+        assertTrue(copy.contains("yksi") && copy.contains("kaksi"));
+        assertEquals(2, copy.size());
+    }
+
+    @Test
+    public void modifyingOriginalDoesNotChangeCopy(){
+        set.add("yksi");
+        set.add("kaksi");
+        OwnSet<String> copy = set.copy();
+        set.add("kolme");
+        set.remove("yksi");
+        assertTrue(copy.contains("yksi"));
+        assertFalse(copy.contains("kolme"));
+        assertEquals(2, copy.size());
+        int count = 0;
+        for(String s : copy){
+            count++;
+        }
+        assertEquals(2, count);
+    }
+
+    @Test
+    public void modifyingCopyDoesNotChangeOriginal(){
+        for(int i = 0; i < 50; i++){
+            set.add("" + i);
+        }
+        OwnSet<String> copy = set.copy();
+        copy.remove("0");
+        for(int i = 50; i < 200; i++){
+            copy.add("" + i);
+        }
+        assertEquals(50, set.size());
+        assertTrue(set.contains("0"));
+        assertFalse(set.contains("50"));
+        assertEquals(199, copy.size());
+        assertFalse(copy.contains("0"));
+    }
+
+    @Test
+    public void copiesOfCopiesAreIndependent(){
+        set.add("yksi");
+        OwnSet<String> copy = set.copy();
+        OwnSet<String> copyOfCopy = copy.copy();
+        copy.add("kaksi");
+        copyOfCopy.clear();
+        assertEquals(1, set.size());
+        assertEquals(2, copy.size());
+        assertTrue(copyOfCopy.isEmpty());
+        assertTrue(set.contains("yksi") && copy.contains("yksi"));
+    }
 }
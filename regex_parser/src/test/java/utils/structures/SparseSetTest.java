@@ -0,0 +1,80 @@
+package utils.structures;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SparseSetTest {
+
+    SparseSet set;
+
+    @Before
+    public void setUp() {
+        set = new SparseSet(10);
+    }
+
+    @Test
+    public void initiallySetIsEmpty() {
+        assertTrue(set.isEmpty());
+        assertEquals(10, set.capacity());
+        for (int i = 0; i < 10; i++) {
+            assertFalse(set.contains(i));
+        }
+    }
+
+    @Test
+    public void addedElementsAreContainedOnce() {
+        assertTrue(set.add(3));
+        assertTrue(set.add(7));
+        assertFalse(set.add(3));
+        assertEquals(2, set.size());
+        assertTrue(set.contains(3));
+        assertTrue(set.contains(7));
+        assertFalse(set.contains(0));
+    }
+
+    @Test
+    public void elementsAreListedInOrderOfInsertion() {
+        set.add(9);
+        set.add(0);
+        set.add(4);
+        assertArrayEquals(new int[]{9, 0, 4}, set.toArray());
+        assertEquals(0, set.get(1));
+    }
+
+    @Test
+    public void clearRemovesAllElements() {
+        set.add(1);
+        set.add(2);
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(1));
+        assertFalse(set.contains(2));
+        assertTrue(set.add(2));
+        assertFalse(set.contains(1));
+        assertArrayEquals(new int[]{2}, set.toArray());
+    }
+
+    @Test
+    public void truncateKeepsFirstElements() {
+        set.add(5);
+        set.add(6);
+        set.add(8);
+        set.truncate(1);
+        assertArrayEquals(new int[]{5}, set.toArray());
+        assertFalse(set.contains(6));
+        set.truncate(3);
+        assertEquals(1, set.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getBeyondSizeThrowsException() {
+        set.add(1);
+        set.get(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeCapacityThrowsException() {
+        new SparseSet(-1);
+    }
+}